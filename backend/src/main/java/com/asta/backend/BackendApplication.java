@@ -3,9 +3,11 @@ package com.asta.backend;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.asta.backend.mapper")
+@EnableScheduling
 public class BackendApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,225 @@
+package com.asta.backend.archive;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * 归档段文件（写入后不可修改）
+ * <p>
+ * 文件布局：
+ * <pre>
+ * [记录区] 每条记录为 [ID长度 u16][ID UTF-8][正文长度 i32][正文]
+ * [索引区] 每个条目16字节 [ID哈希 i64][记录偏移 i64]，按哈希升序
+ * [尾部]   [索引区偏移 i64][记录数量 i32][MAGIC i32]
+ * </pre>
+ * 读取时整个文件以只读方式内存映射，按哈希二分查找索引后校验ID，索引不占用堆内存。
+ * 所有读取均使用绝对位置，可多线程并发访问。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+final class ArchiveSegment {
+
+    private static final int MAGIC = 0x48534547;
+    private static final int FOOTER_SIZE = 8 + 4 + 4;
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    private final long sequence;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int indexOffset;
+
+    private ArchiveSegment(long sequence, Path path, MappedByteBuffer buffer, int count, int indexOffset) {
+        this.sequence = sequence;
+        this.path = path;
+        this.buffer = buffer;
+        this.count = count;
+        this.indexOffset = indexOffset;
+    }
+
+    /**
+     * 打开段文件
+     */
+    static ArchiveSegment open(long sequence, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FOOTER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("归档段文件大小异常: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int footer = (int) size - FOOTER_SIZE;
+            if (buffer.getInt(footer + 12) != MAGIC) {
+                throw new IOException("归档段文件格式错误: " + path);
+            }
+            int indexOffset = (int) buffer.getLong(footer);
+            int count = buffer.getInt(footer + 8);
+            return new ArchiveSegment(sequence, path, buffer, count, indexOffset);
+        }
+    }
+
+    /**
+     * 将记录写为新的段文件，先写临时文件再原子替换
+     *
+     * @param records 记录ID -> 编码后的正文
+     */
+    static void write(Path path, Map<String, byte[]> records) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        long[][] index = new long[records.size()][];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            long offset = 0;
+            int i = 0;
+            for (Map.Entry<String, byte[]> entry : records.entrySet()) {
+                byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] body = entry.getValue();
+                index[i++] = new long[]{hash(entry.getKey()), offset};
+                out.writeShort(id.length);
+                out.write(id);
+                out.writeInt(body.length);
+                out.write(body);
+                offset += 2 + id.length + 4 + body.length;
+            }
+            if (offset + (long) index.length * INDEX_ENTRY_SIZE + FOOTER_SIZE > Integer.MAX_VALUE) {
+                throw new IOException("归档段文件超过2GB");
+            }
+
+            Arrays.sort(index, Comparator.comparingLong((long[] e) -> e[0]).thenComparingLong(e -> e[1]));
+            for (long[] entry : index) {
+                out.writeLong(entry[0]);
+                out.writeLong(entry[1]);
+            }
+            out.writeLong(offset);
+            out.writeInt(index.length);
+            out.writeInt(MAGIC);
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * 按ID读取正文
+     *
+     * @return 正文，不存在时返回null
+     */
+    byte[] get(String id) {
+        int recordOffset = find(id);
+        if (recordOffset < 0) {
+            return null;
+        }
+        int idLength = Short.toUnsignedInt(buffer.getShort(recordOffset));
+        int bodyOffset = recordOffset + 2 + idLength;
+        byte[] body = new byte[buffer.getInt(bodyOffset)];
+        buffer.get(bodyOffset + 4, body);
+        return body;
+    }
+
+    boolean contains(String id) {
+        return find(id) >= 0;
+    }
+
+    /**
+     * 顺序遍历段内全部记录
+     */
+    void forEach(BiConsumer<String, byte[]> consumer) {
+        int offset = 0;
+        while (offset < indexOffset) {
+            int idLength = Short.toUnsignedInt(buffer.getShort(offset));
+            byte[] id = new byte[idLength];
+            buffer.get(offset + 2, id);
+            int bodyLength = buffer.getInt(offset + 2 + idLength);
+            byte[] body = new byte[bodyLength];
+            buffer.get(offset + 2 + idLength + 4, body);
+            consumer.accept(new String(id, StandardCharsets.UTF_8), body);
+            offset += 2 + idLength + 4 + bodyLength;
+        }
+    }
+
+    /**
+     * 二分查找索引，返回记录偏移，不存在时返回-1
+     */
+    private int find(String id) {
+        long hash = hash(id);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midHash = buffer.getLong(indexOffset + mid * INDEX_ENTRY_SIZE);
+            if (midHash < hash) {
+                low = mid + 1;
+            } else if (midHash > hash) {
+                high = mid - 1;
+            } else {
+                // 哈希冲突时向两侧逐条比对ID
+                for (int i = mid; i >= 0 && hashAt(i) == hash; i--) {
+                    if (idMatches(offsetAt(i), id)) {
+                        return offsetAt(i);
+                    }
+                }
+                for (int i = mid + 1; i < count && hashAt(i) == hash; i++) {
+                    if (idMatches(offsetAt(i), id)) {
+                        return offsetAt(i);
+                    }
+                }
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private long hashAt(int i) {
+        return buffer.getLong(indexOffset + i * INDEX_ENTRY_SIZE);
+    }
+
+    private int offsetAt(int i) {
+        return (int) buffer.getLong(indexOffset + i * INDEX_ENTRY_SIZE + 8);
+    }
+
+    private boolean idMatches(int recordOffset, String id) {
+        byte[] expected = id.getBytes(StandardCharsets.UTF_8);
+        if (Short.toUnsignedInt(buffer.getShort(recordOffset)) != expected.length) {
+            return false;
+        }
+        ByteBuffer actual = buffer.slice(recordOffset + 2, expected.length);
+        return actual.equals(ByteBuffer.wrap(expected));
+    }
+
+    /**
+     * 64位FNV-1a哈希
+     */
+    private static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,356 @@
+package com.asta.backend.archive;
+
+import com.asta.backend.constant.RedisConstant;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 历史记录冷数据归档存储（节点本地）
+ * <p>
+ * 较早记录的编码后正文按批写入只追加、不可修改的段文件，通过 {@link java.nio.MappedByteBuffer} 读取，
+ * 正文从Redis移除后仍可在本地读取而无需访问数据库。
+ * </p>
+ * <p>
+ * 删除只记录墓碑（记录ID及删除时的最大段序号，仅对序号不大于该值的段生效，之后重新归档的同ID记录不受影响），
+ * 由记录删除时显式调用 {@link #delete}，并通过独立的归档删除频道在各节点同步，与详情缓存的失效无关；
+ * 段内已删除记录比例超过阈值后重写该段。
+ * </p>
+ * <p>
+ * 覆盖写入不会删除已归档的正文：Redis中的新正文优先读取，归档任务发现两者不一致时通过 {@link #replace}
+ * 写入新版本，并通知其他节点丢弃旧版本后重新归档。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HistoryArchiveStore implements MessageListener {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TOMBSTONE_FILE = "tombstones.log";
+    private static final String NODE_SEPARATOR = "|";
+    private static final String ID_SEPARATOR = ",";
+
+    private final RedisMessageListenerContainer listenerContainer;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${history.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${history.archive.path:data/archive}")
+    private String archivePath;
+
+    /**
+     * 段内已删除记录超过该比例时重写
+     */
+    @Value("${history.archive.compact-ratio:0.3}")
+    private double compactRatio;
+
+    /**
+     * 按段序号倒序排列，新段优先
+     */
+    private volatile List<ArchiveSegment> segments = List.of();
+
+    /**
+     * 记录ID -> 删除时的最大段序号
+     */
+    private final Map<String, Long> tombstones = new ConcurrentHashMap<>();
+
+    /**
+     * 追加、重写段及写墓碑文件时持有
+     */
+    private final Object writeLock = new Object();
+
+    private long nextSequence = 1;
+
+    /**
+     * 本节点标识，忽略自己发布的归档删除消息
+     */
+    private final String nodeToken = UUID.randomUUID().toString();
+
+    private Counter hitCounter;
+    private Counter missCounter;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path directory = Paths.get(archivePath);
+        Files.createDirectories(directory);
+
+        List<ArchiveSegment> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+                    continue;
+                }
+                long sequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                try {
+                    loaded.add(ArchiveSegment.open(sequence, file));
+                    nextSequence = Math.max(nextSequence, sequence + 1);
+                } catch (IOException e) {
+                    log.error("打开归档段失败，已跳过，文件: {}, 错误: {}", file, e.getMessage());
+                }
+            }
+        }
+        loaded.sort(Comparator.comparingLong(ArchiveSegment::sequence).reversed());
+        segments = List.copyOf(loaded);
+        loadTombstones(directory.resolve(TOMBSTONE_FILE));
+
+        hitCounter = Counter.builder("history.archive.reads").tag("result", "hit").register(meterRegistry);
+        missCounter = Counter.builder("history.archive.reads").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("history.archive.segments", () -> segments.size()).register(meterRegistry);
+        Gauge.builder("history.archive.bytes", () -> segments.stream().mapToLong(ArchiveSegment::sizeInBytes).sum())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisConstant.HISTORY_ARCHIVE_CHANNEL));
+        log.info("加载历史记录归档完成，段数量: {}，墓碑数量: {}", segments.size(), tombstones.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 读取归档的记录正文
+     *
+     * @return 编码后的正文，未归档或已删除时返回null
+     */
+    public byte[] get(String id) {
+        if (!enabled) {
+            return null;
+        }
+        long deadUntil = tombstones.getOrDefault(id, 0L);
+        for (ArchiveSegment segment : segments) {
+            if (segment.sequence() <= deadUntil) {
+                break;
+            }
+            byte[] body = segment.get(id);
+            if (body != null) {
+                hitCounter.increment();
+                return body;
+            }
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * 是否已归档且未删除
+     */
+    public boolean contains(String id) {
+        if (!enabled) {
+            return false;
+        }
+        long deadUntil = tombstones.getOrDefault(id, 0L);
+        for (ArchiveSegment segment : segments) {
+            if (segment.sequence() <= deadUntil) {
+                return false;
+            }
+            if (segment.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将一批记录写为新的段
+     *
+     * @param records 记录ID -> 编码后的正文
+     */
+    public void append(Map<String, byte[]> records) throws IOException {
+        if (!enabled || records.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            long sequence = nextSequence++;
+            Path path = segmentPath(sequence);
+            ArchiveSegment.write(path, records);
+            List<ArchiveSegment> updated = new ArrayList<>(segments.size() + 1);
+            updated.add(ArchiveSegment.open(sequence, path));
+            updated.addAll(segments);
+            segments = List.copyOf(updated);
+            log.info("写入归档段，序号: {}，记录数量: {}", sequence, records.size());
+        }
+    }
+
+    /**
+     * 记录被删除时调用：标记本节点及其他节点上的归档正文已删除
+     */
+    public void delete(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        tombstone(ids);
+        publish(ids);
+    }
+
+    /**
+     * 写入记录的新版本，并通知其他节点丢弃其归档的旧版本
+     * <p>
+     * 本节点的新段优先于旧段读取，无需墓碑；其他节点标记墓碑后，下一轮归档从Redis或数据库重新读取。
+     * </p>
+     *
+     * @param records 记录ID -> 编码后的正文
+     */
+    public void replace(Map<String, byte[]> records) throws IOException {
+        if (!enabled || records.isEmpty()) {
+            return;
+        }
+        append(records);
+        publish(records.keySet());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(NODE_SEPARATOR);
+        if (separator < 0 || body.substring(0, separator).equals(nodeToken)) {
+            return;
+        }
+        tombstone(Arrays.asList(body.substring(separator + 1).split(ID_SEPARATOR)));
+    }
+
+    /**
+     * 写入墓碑，只记录本地确实归档过的ID
+     */
+    private void tombstone(Collection<String> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        List<String> archived = ids.stream().filter(this::contains).toList();
+        if (archived.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            long deadUntil = nextSequence - 1;
+            try (BufferedWriter writer = Files.newBufferedWriter(tombstonePath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (String id : archived) {
+                    tombstones.put(id, deadUntil);
+                    writer.write(id + "\t" + deadUntil);
+                    writer.newLine();
+                }
+            } catch (IOException e) {
+                log.error("写入归档墓碑失败，错误: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 通知其他节点，本节点未启用归档时同样发布，其他节点可能已归档该记录
+     */
+    private void publish(Collection<String> ids) {
+        try {
+            stringRedisTemplate.convertAndSend(RedisConstant.HISTORY_ARCHIVE_CHANNEL,
+                    nodeToken + NODE_SEPARATOR + String.join(ID_SEPARATOR, ids));
+        } catch (Exception e) {
+            log.warn("发布归档删除消息失败，错误: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 重写已删除记录比例超过阈值的段，并清理不再指向任何记录的墓碑
+     *
+     * @return 重写的段数量
+     */
+    public int compact() throws IOException {
+        if (!enabled || tombstones.isEmpty()) {
+            return 0;
+        }
+        synchronized (writeLock) {
+            int compacted = 0;
+            List<ArchiveSegment> updated = new ArrayList<>(segments.size());
+            for (ArchiveSegment segment : segments) {
+                long dead = tombstones.entrySet().stream()
+                        .filter(e -> e.getValue() >= segment.sequence() && segment.contains(e.getKey()))
+                        .count();
+                if (dead == 0 || (double) dead / segment.count() < compactRatio) {
+                    updated.add(segment);
+                    continue;
+                }
+
+                Map<String, byte[]> live = new LinkedHashMap<>();
+                segment.forEach((id, body) -> {
+                    if (tombstones.getOrDefault(id, 0L) < segment.sequence()) {
+                        live.put(id, body);
+                    }
+                });
+                if (live.isEmpty()) {
+                    Files.deleteIfExists(segment.path());
+                } else {
+                    ArchiveSegment.write(segment.path(), live);
+                    updated.add(ArchiveSegment.open(segment.sequence(), segment.path()));
+                }
+                compacted++;
+                log.info("重写归档段，序号: {}，删除记录: {}，保留记录: {}", segment.sequence(), dead, live.size());
+            }
+            segments = List.copyOf(updated);
+
+            // 墓碑只需保留仍能在段中找到对应记录的部分
+            tombstones.entrySet().removeIf(e -> segments.stream()
+                    .noneMatch(s -> s.sequence() <= e.getValue() && s.contains(e.getKey())));
+            rewriteTombstones();
+            return compacted;
+        }
+    }
+
+    private void loadTombstones(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf('\t');
+            if (separator > 0) {
+                tombstones.merge(line.substring(0, separator), Long.parseLong(line.substring(separator + 1)), Math::max);
+            }
+        }
+    }
+
+    private void rewriteTombstones() throws IOException {
+        Path path = tombstonePath();
+        Path tmp = path.resolveSibling(TOMBSTONE_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Long> entry : tombstones.entrySet()) {
+                writer.write(entry.getKey() + "\t" + entry.getValue());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentPath(long sequence) {
+        return Paths.get(archivePath).resolve(String.format("%s%010d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private Path tombstonePath() {
+        return Paths.get(archivePath).resolve(TOMBSTONE_FILE);
+    }
+}
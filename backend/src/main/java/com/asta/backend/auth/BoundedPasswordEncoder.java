@@ -0,0 +1,105 @@
+package com.asta.backend.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在专用线程池中执行密码加密及校验的 {@link PasswordEncoder}
+ * <p>
+ * BCrypt 计算耗时且占用CPU，放在与核数一致的线程池中执行，同时进行的哈希数量不超过核数；
+ * 等待队列已满时立即抛出 {@link PasswordWorkRejectedException}，并根据当前排队数量及平均耗时估算重试等待时间，
+ * 避免登录高峰占满请求线程、拖慢其他接口。
+ * 队列深度、执行中数量、哈希耗时及拒绝次数通过 auth.password.* 指标暴露。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolTaskExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, ThreadPoolTaskExecutor executor, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+        this.rejectedCounter = Counter.builder("auth.password.rejected")
+                .description("密码哈希线程池已满而被拒绝的请求数")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.queue", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("等待执行的密码哈希数量")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("执行中的密码哈希数量")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T execute(Timer timer, Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch (TaskRejectedException e) {
+            rejectedCounter.increment();
+            throw new PasswordWorkRejectedException(estimateRetryAfterSeconds());
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待密码哈希被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("密码哈希失败", e.getCause());
+        }
+    }
+
+    /**
+     * 按当前排队数量及平均哈希耗时估算队列清空所需的秒数，至少为1秒
+     */
+    private long estimateRetryAfterSeconds() {
+        double meanSeconds = Math.max(encodeTimer.mean(TimeUnit.SECONDS), matchesTimer.mean(TimeUnit.SECONDS));
+        int queued = executor.getThreadPoolExecutor().getQueue().size();
+        int threads = Math.max(1, executor.getMaxPoolSize());
+        return Math.max(1, (long) Math.ceil(queued * meanSeconds / threads));
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("auth.password.hash")
+                .description("密码哈希耗时")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
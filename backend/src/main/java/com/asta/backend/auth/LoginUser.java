@@ -0,0 +1,81 @@
+package com.asta.backend.auth;
+
+import com.asta.backend.entity.po.User;
+import lombok.Getter;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 携带用户实体的认证主体
+ * <p>
+ * 认证时查询到的用户ID、用户名、角色随认证结果一起返回，登录接口直接从主体中取值，无需再次查询用户。
+ * 认证完成后密码会被擦除。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Getter
+public class LoginUser implements UserDetails, CredentialsContainer {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final Integer userId;
+    private final String username;
+    private final String role;
+    private final List<GrantedAuthority> authorities;
+    private String password;
+
+    public LoginUser(User user) {
+        this(user.getUserId(), user.getUsername(), user.getRole(), user.getPassword(),
+                List.of(new SimpleGrantedAuthority(ROLE_PREFIX + user.getRole())));
+    }
+
+    private LoginUser(Integer userId, String username, String role, String password,
+                      List<GrantedAuthority> authorities) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.password = password;
+        this.authorities = authorities;
+    }
+
+    /**
+     * 由token中的用户ID、用户名及权限构造不含密码的主体，无状态认证使用
+     *
+     * @param userId      用户ID，旧版token未携带时为空
+     * @param username    用户名
+     * @param authorities 权限列表
+     */
+    public static LoginUser fromToken(Integer userId, String username, List<GrantedAuthority> authorities) {
+        String role = authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith(ROLE_PREFIX))
+                .map(authority -> authority.substring(ROLE_PREFIX.length()))
+                .findFirst()
+                .orElse(null);
+        return new LoginUser(userId, username, role, null, List.copyOf(authorities));
+    }
+
+    /**
+     * 复制一份不含密码的主体，供缓存长期持有
+     */
+    public LoginUser withoutPassword() {
+        return new LoginUser(userId, username, role, null, authorities);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.asta.backend.auth;
+
+import lombok.Getter;
+
+/**
+ * 密码哈希线程池已满，请求被拒绝
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Getter
+public class PasswordWorkRejectedException extends RuntimeException {
+
+    /**
+     * 建议客户端重试的等待秒数
+     */
+    private final long retryAfterSeconds;
+
+    public PasswordWorkRejectedException(long retryAfterSeconds) {
+        super("服务器繁忙，请稍后重试");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
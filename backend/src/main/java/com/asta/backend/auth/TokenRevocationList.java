@@ -0,0 +1,252 @@
+package com.asta.backend.auth;
+
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * token吊销列表
+ * <p>
+ * 吊销分两种：登出时按token ID吊销单个token；密码、角色变更或封禁时吊销某用户在此之前签发的全部token。
+ * 吊销记录保存在Redis中，本地保存已吊销token ID的布隆过滤器及用户吊销时间，
+ * 每个请求的检查只在布隆过滤器命中（已吊销或假阳性）时访问Redis确认。
+ * 新的吊销通过Redis发布订阅即时通知各节点，本地副本定期从Redis全量重建，同时清理已过期的记录。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationList implements MessageListener {
+
+    private static final String TOKEN_MESSAGE_PREFIX = "t:";
+    private static final String USER_MESSAGE_PREFIX = "u:";
+
+    /**
+     * 小于该值的吊销时间为旧版以秒保存的记录
+     */
+    private static final long SECONDS_THRESHOLD = 100_000_000_000L;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.expiration}")
+    private long expirationTime;
+
+    @Value("${auth.revocation.expected-tokens:10000}")
+    private long expectedTokens;
+
+    @Value("${auth.revocation.fpp:0.01}")
+    private double fpp;
+
+    /**
+     * 已吊销的token ID
+     */
+    private volatile BloomFilter revokedTokens;
+
+    /**
+     * 用户名 -> 吊销时间（毫秒），签发时间早于该时间的token均已吊销
+     */
+    private volatile Map<String, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    /**
+     * 重建期间收到的吊销，重建完成后补入新的布隆过滤器
+     */
+    private final Queue<String> recentTokens = new ConcurrentLinkedQueue<>();
+
+    private volatile long revokedTokenCount;
+
+    private Counter bloomMissCounter;
+    private Counter revokedCounter;
+    private Counter falsePositiveCounter;
+
+    @PostConstruct
+    public void init() {
+        revokedTokens = new BloomFilter(expectedTokens, fpp);
+        bloomMissCounter = checkCounter("pass");
+        revokedCounter = checkCounter("revoked");
+        falsePositiveCounter = checkCounter("false-positive");
+        Gauge.builder("auth.revocation.tokens", this, list -> list.revokedTokenCount)
+                .description("未过期的已吊销token数量")
+                .register(meterRegistry);
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisConstant.AUTH_REVOCATION_CHANNEL));
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("加载token吊销列表失败，等待下次同步，错误: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 吊销单个token，token过期后记录自动清理
+     *
+     * @param tokenId   token ID（jti）
+     * @param expiresAt token过期时间
+     */
+    public void revokeToken(String tokenId, Date expiresAt) {
+        long expireMillis = expiresAt == null ? System.currentTimeMillis() + expirationTime : expiresAt.getTime();
+        stringRedisTemplate.opsForZSet().add(RedisConstant.AUTH_REVOKED_TOKENS, tokenId, expireMillis);
+        addToken(tokenId);
+        publish(TOKEN_MESSAGE_PREFIX + tokenId);
+    }
+
+    /**
+     * 吊销用户此前签发的全部token
+     */
+    public void revokeUser(String username) {
+        long revokedAt = System.currentTimeMillis();
+        stringRedisTemplate.opsForHash().put(RedisConstant.AUTH_REVOKED_USERS, username, String.valueOf(revokedAt));
+        revokedUsers.merge(username, revokedAt, Math::max);
+        publish(USER_MESSAGE_PREFIX + revokedAt + ":" + username);
+    }
+
+    /**
+     * token是否已吊销
+     * <p>
+     * 布隆过滤器未命中时直接放行；命中时向Redis确认，Redis不可用时按已吊销处理。
+     * </p>
+     *
+     * @param claims 已验证签名的claims
+     */
+    public boolean isRevoked(Claims claims) {
+        Long userRevokedAt = revokedUsers.get(claims.getSubject());
+        if (userRevokedAt != null && issuedBefore(claims, userRevokedAt)) {
+            revokedCounter.increment();
+            return true;
+        }
+
+        String tokenId = claims.getId();
+        if (tokenId == null || !revokedTokens.mightContain(tokenId)) {
+            bloomMissCounter.increment();
+            return false;
+        }
+        try {
+            boolean revoked = stringRedisTemplate.opsForZSet().score(RedisConstant.AUTH_REVOKED_TOKENS, tokenId) != null;
+            (revoked ? revokedCounter : falsePositiveCounter).increment();
+            return revoked;
+        } catch (Exception e) {
+            log.warn("确认token吊销状态失败，按已吊销处理，错误: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 从Redis全量重建本地副本，同时清理已过期的吊销记录
+     */
+    @Scheduled(fixedDelayString = "${auth.revocation.sync-interval:60000}",
+            initialDelayString = "${auth.revocation.sync-interval:60000}")
+    public void reload() {
+        recentTokens.clear();
+        long now = System.currentTimeMillis();
+        stringRedisTemplate.opsForZSet().removeRangeByScore(RedisConstant.AUTH_REVOKED_TOKENS, Double.NEGATIVE_INFINITY, now);
+        Set<String> tokenIds = stringRedisTemplate.opsForZSet().range(RedisConstant.AUTH_REVOKED_TOKENS, 0, -1);
+        int tokenCount = tokenIds == null ? 0 : tokenIds.size();
+        BloomFilter filter = new BloomFilter(Math.max(expectedTokens, tokenCount * 2L), fpp);
+        if (tokenIds != null) {
+            tokenIds.forEach(filter::add);
+        }
+
+        // 用户吊销时间早于最长token有效期的记录已无效
+        long expiredBefore = now - expirationTime;
+        Map<String, Long> users = new ConcurrentHashMap<>();
+        List<Object> expiredUsers = new ArrayList<>();
+        stringRedisTemplate.opsForHash().entries(RedisConstant.AUTH_REVOKED_USERS).forEach((username, value) -> {
+            long revokedAt = toMillis(Long.parseLong((String) value));
+            if (revokedAt < expiredBefore) {
+                expiredUsers.add(username);
+            } else {
+                users.put((String) username, revokedAt);
+            }
+        });
+        if (!expiredUsers.isEmpty()) {
+            stringRedisTemplate.opsForHash().delete(RedisConstant.AUTH_REVOKED_USERS, expiredUsers.toArray());
+        }
+        // 保留重建期间通过消息收到、但读取Redis时尚未写入的用户吊销
+        revokedUsers.forEach((username, revokedAt) -> {
+            if (revokedAt >= expiredBefore) {
+                users.merge(username, revokedAt, Math::max);
+            }
+        });
+
+        revokedTokens = filter;
+        revokedUsers = users;
+        revokedTokenCount = tokenCount;
+        recentTokens.forEach(filter::add);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.startsWith(TOKEN_MESSAGE_PREFIX)) {
+            addToken(body.substring(TOKEN_MESSAGE_PREFIX.length()));
+        } else if (body.startsWith(USER_MESSAGE_PREFIX)) {
+            int separator = body.indexOf(':', USER_MESSAGE_PREFIX.length());
+            long revokedAt = toMillis(Long.parseLong(body.substring(USER_MESSAGE_PREFIX.length(), separator)));
+            revokedUsers.merge(body.substring(separator + 1), revokedAt, Math::max);
+        }
+    }
+
+    /**
+     * token是否签发于用户吊销之前
+     * <p>
+     * 比较毫秒精度的签发时间，吊销后立即重新登录签发的token不受影响；
+     * 未携带毫秒签发时间的旧版token只能按秒比较，同一秒内签发的按已吊销处理。
+     * </p>
+     */
+    private static boolean issuedBefore(Claims claims, long revokedAt) {
+        Long issuedAtMillis = JwtUtil.getIssuedAtMillis(claims);
+        if (issuedAtMillis != null) {
+            return issuedAtMillis < revokedAt;
+        }
+        return claims.getIssuedAt() == null || claims.getIssuedAt().getTime() / 1000 <= revokedAt / 1000;
+    }
+
+    /**
+     * 兼容以秒保存的吊销时间
+     */
+    private static long toMillis(long revokedAt) {
+        return revokedAt < SECONDS_THRESHOLD ? revokedAt * 1000 : revokedAt;
+    }
+
+    private void addToken(String tokenId) {
+        recentTokens.add(tokenId);
+        revokedTokens.add(tokenId);
+    }
+
+    private void publish(String message) {
+        try {
+            stringRedisTemplate.convertAndSend(RedisConstant.AUTH_REVOCATION_CHANNEL, message);
+        } catch (Exception e) {
+            log.warn("发布token吊销消息失败，等待各节点定期同步，错误: {}", e.getMessage());
+        }
+    }
+
+    private Counter checkCounter(String result) {
+        return Counter.builder("auth.revocation.checks")
+                .description("token吊销检查次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
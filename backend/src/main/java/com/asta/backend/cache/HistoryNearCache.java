@@ -0,0 +1,124 @@
+package com.asta.backend.cache;
+
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * 历史记录详情本地缓存
+ * <p>
+ * 在JVM内缓存已解码的 {@link ItineraryHistoryItem}，按估算的内存占用限制总大小，淘汰策略为Caffeine的W-TinyLFU。
+ * 记录删除或覆盖时通过Redis发布订阅通知所有节点失效本地副本；写入后过期时间作为漏收消息时的兜底。
+ * 命中、未命中及淘汰统计通过 actuator 的 cache.* 指标暴露。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HistoryNearCache implements MessageListener {
+
+    /**
+     * 每个缓存条目除文本外的估算开销（对象头、引用及其余字段）
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    /**
+     * 失效消息中多个ID的分隔符
+     */
+    private static final String ID_SEPARATOR = ",";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${history.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${history.cache.max-size-mb:32}")
+    private long maxSizeMb;
+
+    @Value("${history.cache.expire-after-write:30m}")
+    private Duration expireAfterWrite;
+
+    private Cache<String, ItineraryHistoryItem> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024 * 1024)
+                .weigher(HistoryNearCache::weigh)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "history.detail");
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisConstant.HISTORY_INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * 读取缓存，未命中时通过 loader 加载；loader 返回空时不缓存
+     */
+    public ItineraryHistoryItem get(String id, Function<String, ItineraryHistoryItem> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        return cache.get(id, loader);
+    }
+
+    /**
+     * 失效本节点及其他节点上的缓存
+     */
+    public void invalidate(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        cache.invalidateAll(ids);
+        try {
+            stringRedisTemplate.convertAndSend(RedisConstant.HISTORY_INVALIDATION_CHANNEL,
+                    String.join(ID_SEPARATOR, ids));
+        } catch (Exception e) {
+            log.warn("发布历史记录缓存失效消息失败，错误: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        for (String id : body.split(ID_SEPARATOR)) {
+            cache.invalidate(id);
+        }
+    }
+
+    private static int weigh(String id, ItineraryHistoryItem item) {
+        long chars = (long) id.length()
+                + length(item.getGeneratedItinerary())
+                + length(item.getTitle())
+                + length(item.getUsername())
+                + length(item.getCreatedAt());
+        return (int) Math.min(Integer.MAX_VALUE, chars * 2 + ENTRY_OVERHEAD_BYTES);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
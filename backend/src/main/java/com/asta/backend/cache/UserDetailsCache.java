@@ -0,0 +1,111 @@
+package com.asta.backend.cache;
+
+import com.asta.backend.auth.LoginUser;
+import com.asta.backend.constant.RedisConstant;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * JWT认证使用的用户信息本地缓存
+ * <p>
+ * 每个携带JWT的请求都需要加载用户信息，缓存后请求不再查询数据库。缓存条目数及写入后的存活时间有上限；
+ * 用户角色、密码变更时通过Redis发布订阅通知所有节点失效，存活时间作为漏收消息时的兜底。
+ * 缓存中的用户信息不含密码，只用于构造请求的认证信息，登录校验密码时仍从数据库读取。
+ * 命中率通过 actuator 的 cache.* 指标暴露，未命中时的加载耗时通过 user.details.load 指标暴露。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserDetailsCache implements MessageListener {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${auth.user-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.user-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${auth.user-cache.ttl:5m}")
+    private Duration ttl;
+
+    private Cache<String, UserDetails> cache;
+    private Timer loadTimer;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user.details");
+        loadTimer = Timer.builder("user.details.load")
+                .description("认证时从数据库加载用户信息的耗时")
+                .register(meterRegistry);
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisConstant.USER_INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * 读取缓存，未命中时通过 loader 加载；loader 抛出的异常（如用户不存在）原样抛出且不缓存
+     */
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        if (!enabled) {
+            return loadTimer.record(() -> loader.apply(username));
+        }
+        return cache.get(username, key -> withoutPassword(loadTimer.record(() -> loader.apply(key))));
+    }
+
+    /**
+     * 失效本节点及其他节点上的缓存，用户角色、密码变更或删除后调用
+     */
+    public void invalidate(String username) {
+        cache.invalidate(username);
+        try {
+            stringRedisTemplate.convertAndSend(RedisConstant.USER_INVALIDATION_CHANNEL, username);
+        } catch (Exception e) {
+            log.warn("发布用户缓存失效消息失败，用户名: {}，错误: {}", username, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        cache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 复制用户信息并去除密码，避免密码摘要长期驻留内存；{@link LoginUser} 保留类型及用户ID
+     */
+    private static UserDetails withoutPassword(UserDetails userDetails) {
+        if (userDetails instanceof LoginUser loginUser) {
+            return loginUser.withoutPassword();
+        }
+        return new User(userDetails.getUsername(), "", userDetails.isEnabled(), userDetails.isAccountNonExpired(),
+                userDetails.isCredentialsNonExpired(), userDetails.isAccountNonLocked(), userDetails.getAuthorities());
+    }
+}
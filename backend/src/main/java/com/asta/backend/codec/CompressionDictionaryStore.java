@@ -0,0 +1,92 @@
+package com.asta.backend.codec;
+
+import com.asta.backend.constant.RedisConstant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 压缩字典存储
+ * <p>
+ * 字典按版本号保存在Redis中且发布后不再修改，本地按版本缓存；
+ * 当前版本定期刷新，使其他节点训练的新字典生效。旧版本字典永久保留，保证旧记录可解压。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CompressionDictionaryStore {
+
+    private final RedisTemplate<String, byte[]> byteRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+    private volatile int currentVersion;
+
+    /**
+     * 当前用于压缩的字典版本，0表示尚无字典
+     */
+    public int currentVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * 获取指定版本的字典
+     * @param version 字典版本
+     * @return 字典内容，不存在时返回null
+     */
+    public byte[] get(int version) {
+        byte[] dictionary = dictionaries.get(version);
+        if (dictionary == null) {
+            dictionary = byteRedisTemplate.opsForValue().get(RedisConstant.COMPRESSION_DICT_PREFIX + version);
+            if (dictionary != null) {
+                dictionaries.put(version, dictionary);
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * 发布新版本字典并设为当前版本
+     * @param dictionary 字典内容
+     * @return 新版本号
+     */
+    public int publish(byte[] dictionary) {
+        Long version = stringRedisTemplate.opsForValue().increment(RedisConstant.COMPRESSION_DICT_VERSION_COUNTER);
+        int newVersion = version.intValue();
+        byteRedisTemplate.opsForValue().set(RedisConstant.COMPRESSION_DICT_PREFIX + newVersion, dictionary);
+        stringRedisTemplate.opsForValue().set(RedisConstant.COMPRESSION_DICT_CURRENT, String.valueOf(newVersion));
+        dictionaries.put(newVersion, dictionary);
+        currentVersion = newVersion;
+        log.info("发布压缩字典成功，版本: {}，大小: {} 字节", newVersion, dictionary.length);
+        return newVersion;
+    }
+
+    /**
+     * 刷新当前字典版本
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${history.compression.refresh-interval:60000}")
+    public void refresh() {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(RedisConstant.COMPRESSION_DICT_CURRENT);
+            if (version != null) {
+                int newVersion = Integer.parseInt(version);
+                if (newVersion != currentVersion && get(newVersion) != null) {
+                    currentVersion = newVersion;
+                    log.info("压缩字典切换到版本: {}", newVersion);
+                }
+            }
+        } catch (Exception e) {
+            log.error("刷新压缩字典失败，错误: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.asta.backend.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+/**
+ * 压缩字典训练工具
+ * <p>
+ * 参考 zstd cover 算法的简化实现：将样本切分为固定长度片段，
+ * 以片段内各 d 字节子串在多少个样本中出现作为片段得分，贪心选取得分最高的片段，
+ * 已选片段覆盖的子串不再重复计分。得分越高的片段放在字典越靠后的位置，
+ * 以便 deflate 用更短的回溯距离引用。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+public final class DictionaryTrainer {
+
+    /**
+     * 计分子串长度
+     */
+    private static final int DMER_LENGTH = 8;
+
+    /**
+     * 候选片段长度
+     */
+    private static final int SEGMENT_LENGTH = 64;
+
+    private DictionaryTrainer() {
+    }
+
+    /**
+     * 从样本训练字典
+     * @param samples 样本（已编码的记录字节）
+     * @param maxSize 字典最大字节数（deflate窗口为32KB，超出部分无效）
+     * @return 训练得到的字典，样本不足时返回空数组
+     */
+    public static byte[] train(List<byte[]> samples, int maxSize) {
+        // 统计每个子串出现在多少个样本中
+        Map<Long, Integer> docFreqs = new HashMap<>();
+        for (byte[] sample : samples) {
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i + DMER_LENGTH <= sample.length; i++) {
+                long dmer = dmer(sample, i);
+                if (seen.add(dmer)) {
+                    docFreqs.merge(dmer, 1, Integer::sum);
+                }
+            }
+        }
+
+        // 只出现在一个样本中的子串对其他记录没有帮助
+        docFreqs.values().removeIf(freq -> freq < 2);
+        if (docFreqs.isEmpty()) {
+            return new byte[0];
+        }
+
+        PriorityQueue<Segment> candidates = new PriorityQueue<>(Comparator.comparingLong(Segment::score).reversed());
+        for (byte[] sample : samples) {
+            for (int start = 0; start + SEGMENT_LENGTH <= sample.length; start += SEGMENT_LENGTH) {
+                long score = score(sample, start, docFreqs);
+                if (score > 0) {
+                    candidates.add(new Segment(sample, start, score));
+                }
+            }
+        }
+
+        // 贪心选取：弹出时重新计分，得分下降则放回队列（惰性更新）
+        List<Segment> selected = new ArrayList<>();
+        int size = 0;
+        while (!candidates.isEmpty() && size + SEGMENT_LENGTH <= maxSize) {
+            Segment segment = candidates.poll();
+            long score = score(segment.sample(), segment.start(), docFreqs);
+            if (score <= 0) {
+                continue;
+            }
+            if (!candidates.isEmpty() && score < candidates.peek().score()) {
+                candidates.add(new Segment(segment.sample(), segment.start(), score));
+                continue;
+            }
+            selected.add(new Segment(segment.sample(), segment.start(), score));
+            size += SEGMENT_LENGTH;
+            for (int i = segment.start(); i + DMER_LENGTH <= segment.start() + SEGMENT_LENGTH; i++) {
+                docFreqs.remove(dmer(segment.sample(), i));
+            }
+        }
+
+        // 先选中的片段得分最高，放在字典末尾
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            Segment segment = selected.get(i);
+            dictionary.write(segment.sample(), segment.start(), SEGMENT_LENGTH);
+        }
+        return dictionary.toByteArray();
+    }
+
+    private static long score(byte[] sample, int start, Map<Long, Integer> docFreqs) {
+        long score = 0;
+        Set<Long> seen = new HashSet<>();
+        for (int i = start; i + DMER_LENGTH <= start + SEGMENT_LENGTH; i++) {
+            long dmer = dmer(sample, i);
+            if (seen.add(dmer)) {
+                score += docFreqs.getOrDefault(dmer, 0);
+            }
+        }
+        return score;
+    }
+
+    private static long dmer(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 0; i < DMER_LENGTH; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private record Segment(byte[] sample, int start, long score) {
+    }
+}
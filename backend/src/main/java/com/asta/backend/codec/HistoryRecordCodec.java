@@ -0,0 +1,22 @@
+package com.asta.backend.codec;
+
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+
+import java.io.IOException;
+
+/**
+ * 历史记录存储编解码器，可作为 history.codec.format 指定的写入格式
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+public interface HistoryRecordCodec extends HistoryRecordDecoder {
+
+    /**
+     * 编码历史记录
+     * @param item 历史记录
+     * @return 编码后的字节
+     * @throws IOException 序列化失败
+     */
+    byte[] encode(ItineraryHistoryItem item) throws IOException;
+}
@@ -0,0 +1,39 @@
+package com.asta.backend.codec;
+
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+
+import java.io.IOException;
+
+/**
+ * 历史记录存储解码器
+ * <p>
+ * 只支持读取的旧格式仅实现本接口，不能作为 history.codec.format 的写入格式；
+ * 可写入的格式实现 {@link HistoryRecordCodec}。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+public interface HistoryRecordDecoder {
+
+    /**
+     * 编码格式名称
+     * @return 格式名称
+     */
+    String name();
+
+    /**
+     * 判断数据是否为本编码格式
+     * @param data Redis中存储的原始字节
+     * @return 是否可由本解码器解码
+     */
+    boolean supports(byte[] data);
+
+    /**
+     * 解码历史记录
+     * @param data 编码后的字节
+     * @return 历史记录
+     * @throws IOException 反序列化失败
+     */
+    ItineraryHistoryItem decode(byte[] data) throws IOException;
+}
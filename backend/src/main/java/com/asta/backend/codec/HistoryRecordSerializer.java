@@ -0,0 +1,252 @@
+package com.asta.backend.codec;
+
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 历史记录序列化入口
+ * <p>
+ * 写入时使用 history.codec.format 指定的编码格式；读取时根据数据头自动识别格式，
+ * 因此切换格式或迁移旧数据期间新旧记录可以同时读取。
+ * 每种格式的记录字节数及编解码耗时通过 actuator 指标
+ * history.record.bytes / history.record.encode / history.record.decode 暴露，可按 codec 标签对比。
+ * </p>
+ * <p>
+ * 编码结果超过阈值且已有训练好的字典时，使用预置字典的 deflate 压缩，
+ * 数据头为 "ZD" + 字典版本 + 原始长度；压缩率及压缩、解压耗时通过
+ * history.record.compression.ratio / history.record.compress / history.record.decompress 暴露。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+public class HistoryRecordSerializer {
+
+    /**
+     * 压缩数据头 "ZD"，与JSON、旧格式及Smile的首字节均不冲突
+     */
+    private static final byte[] COMPRESSED_HEADER = {'Z', 'D'};
+
+    /**
+     * 压缩数据头总长度：标识 + 字典版本 + 原始长度
+     */
+    private static final int COMPRESSED_HEADER_LENGTH = COMPRESSED_HEADER.length + Integer.BYTES * 2;
+
+    private final List<HistoryRecordDecoder> decoders;
+    private final HistoryRecordCodec writeCodec;
+    private final CompressionDictionaryStore dictionaryStore;
+
+    @Value("${history.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${history.compression.threshold:1024}")
+    private int compressionThreshold;
+
+    private final Timer encodeTimer;
+    private final DistributionSummary recordBytes;
+    private final Map<String, Timer> decodeTimers = new HashMap<>();
+    private final Timer compressTimer;
+    private final Timer decompressTimer;
+    private final DistributionSummary compressionRatio;
+
+    /**
+     * @param decoders 全部可识别的格式，其中实现 {@link HistoryRecordCodec} 的格式才能用于写入
+     * @param format   写入格式，只能读取的旧格式在启动时即被拒绝
+     */
+    public HistoryRecordSerializer(List<HistoryRecordDecoder> decoders,
+                                   CompressionDictionaryStore dictionaryStore,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${history.codec.format:json}") String format) {
+        this.decoders = decoders;
+        this.dictionaryStore = dictionaryStore;
+        HistoryRecordDecoder selected = decoders.stream()
+                .filter(decoder -> decoder.name().equals(format))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("不支持的历史记录编码格式: " + format));
+        if (!(selected instanceof HistoryRecordCodec codec)) {
+            throw new IllegalArgumentException("历史记录编码格式仅支持读取，不能用于写入: " + format);
+        }
+        this.writeCodec = codec;
+
+        this.encodeTimer = Timer.builder("history.record.encode")
+                .tag("codec", writeCodec.name())
+                .register(meterRegistry);
+        this.recordBytes = DistributionSummary.builder("history.record.bytes")
+                .baseUnit("bytes")
+                .tag("codec", writeCodec.name())
+                .register(meterRegistry);
+        decoders.forEach(decoder -> decodeTimers.put(decoder.name(), Timer.builder("history.record.decode")
+                .tag("codec", decoder.name())
+                .register(meterRegistry)));
+        this.compressTimer = Timer.builder("history.record.compress").register(meterRegistry);
+        this.decompressTimer = Timer.builder("history.record.decompress").register(meterRegistry);
+        this.compressionRatio = DistributionSummary.builder("history.record.compression.ratio")
+                .description("压缩后字节数 / 压缩前字节数")
+                .register(meterRegistry);
+
+        log.info("历史记录编码格式: {}", writeCodec.name());
+    }
+
+    /**
+     * 使用当前配置的格式编码
+     * @param item 历史记录
+     * @return 编码后的字节
+     * @throws IOException 序列化失败
+     */
+    public byte[] serialize(ItineraryHistoryItem item) throws IOException {
+        byte[] data = encodeUncompressed(item);
+        if (!shouldCompress(data.length)) {
+            return data;
+        }
+        int version = dictionaryStore.currentVersion();
+        byte[] dictionary = dictionaryStore.get(version);
+        return dictionary != null ? compress(data, version, dictionary) : data;
+    }
+
+    /**
+     * 使用当前配置的格式编码但不压缩，用于采集字典训练样本
+     * @param item 历史记录
+     * @return 编码后的字节
+     * @throws IOException 序列化失败
+     */
+    public byte[] encodeUncompressed(ItineraryHistoryItem item) throws IOException {
+        long start = System.nanoTime();
+        byte[] data = writeCodec.encode(item);
+        encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        recordBytes.record(data.length);
+        return data;
+    }
+
+    /**
+     * 自动识别格式并解码
+     * @param data Redis中存储的原始字节
+     * @return 历史记录
+     * @throws IOException 格式无法识别或反序列化失败
+     */
+    public ItineraryHistoryItem deserialize(byte[] data) throws IOException {
+        if (isCompressed(data)) {
+            data = decompress(data);
+        }
+        HistoryRecordDecoder decoder = detect(data);
+        long start = System.nanoTime();
+        ItineraryHistoryItem item = decoder.decode(data);
+        decodeTimers.get(decoder.name()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return item;
+    }
+
+    /**
+     * 数据是否已是当前写入格式，用于迁移时判断是否需要重写
+     */
+    public boolean isCurrentFormat(byte[] data) {
+        if (isCompressed(data)) {
+            return ByteBuffer.wrap(data, COMPRESSED_HEADER.length, Integer.BYTES).getInt()
+                    == dictionaryStore.currentVersion();
+        }
+        return writeCodec.supports(data) && !shouldCompress(data.length);
+    }
+
+    /**
+     * 使用预置字典压缩，压缩后不小于原始数据时保留原始数据
+     */
+    private byte[] compress(byte[] data, int version, byte[] dictionary) {
+        long start = System.nanoTime();
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setDictionary(dictionary);
+            deflater.setInput(data);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + COMPRESSED_HEADER_LENGTH);
+            out.write(COMPRESSED_HEADER, 0, COMPRESSED_HEADER.length);
+            out.write(ByteBuffer.allocate(Integer.BYTES * 2).putInt(version).putInt(data.length).array(), 0, Integer.BYTES * 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            byte[] compressed = out.toByteArray();
+
+            compressTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            compressionRatio.record((double) compressed.length / data.length);
+            return compressed.length < data.length ? compressed : data;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 按数据头中的字典版本解压
+     */
+    private byte[] decompress(byte[] data) throws IOException {
+        long start = System.nanoTime();
+        ByteBuffer header = ByteBuffer.wrap(data, COMPRESSED_HEADER.length, Integer.BYTES * 2);
+        int version = header.getInt();
+        int length = header.getInt();
+        byte[] dictionary = dictionaryStore.get(version);
+        if (dictionary == null) {
+            throw new IOException("压缩字典版本不存在: " + version);
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, COMPRESSED_HEADER_LENGTH, data.length - COMPRESSED_HEADER_LENGTH);
+            byte[] result = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int inflated = inflater.inflate(result, offset, length - offset);
+                if (inflated == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                        continue;
+                    }
+                    if (inflater.finished() || inflater.needsInput()) {
+                        throw new IOException("压缩数据不完整");
+                    }
+                }
+                offset += inflated;
+            }
+            decompressTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("解压历史记录失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private boolean shouldCompress(int length) {
+        return compressionEnabled && length >= compressionThreshold && dictionaryStore.currentVersion() > 0;
+    }
+
+    private static boolean isCompressed(byte[] data) {
+        return data.length >= COMPRESSED_HEADER_LENGTH
+                && data[0] == COMPRESSED_HEADER[0] && data[1] == COMPRESSED_HEADER[1];
+    }
+
+    private HistoryRecordDecoder detect(byte[] data) throws IOException {
+        for (HistoryRecordDecoder decoder : decoders) {
+            if (decoder.supports(data)) {
+                return decoder;
+            }
+        }
+        throw new IOException("无法识别的历史记录编码格式");
+    }
+}
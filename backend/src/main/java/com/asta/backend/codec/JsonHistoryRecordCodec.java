@@ -0,0 +1,41 @@
+package com.asta.backend.codec;
+
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * JSON编解码器：直接存储UTF-8 JSON字节，只编码一次
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonHistoryRecordCodec implements HistoryRecordCodec {
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public boolean supports(byte[] data) {
+        return data.length > 0 && data[0] == '{';
+    }
+
+    @Override
+    public byte[] encode(ItineraryHistoryItem item) throws IOException {
+        return objectMapper.writeValueAsBytes(item);
+    }
+
+    @Override
+    public ItineraryHistoryItem decode(byte[] data) throws IOException {
+        return objectMapper.readValue(data, ItineraryHistoryItem.class);
+    }
+}
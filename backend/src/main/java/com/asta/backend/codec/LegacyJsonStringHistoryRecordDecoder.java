@@ -0,0 +1,38 @@
+package com.asta.backend.codec;
+
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * 旧格式解码器：早期记录先转为JSON字符串，再经 GenericJackson2JsonRedisSerializer 序列化为带引号、转义的JSON字符串。
+ * 仅用于迁移期间读取，不实现编码，因此不能配置为写入格式。
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Component
+@RequiredArgsConstructor
+public class LegacyJsonStringHistoryRecordDecoder implements HistoryRecordDecoder {
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String name() {
+        return "legacy";
+    }
+
+    @Override
+    public boolean supports(byte[] data) {
+        return data.length > 0 && data[0] == '"';
+    }
+
+    @Override
+    public ItineraryHistoryItem decode(byte[] data) throws IOException {
+        String json = objectMapper.readValue(data, String.class);
+        return objectMapper.readValue(json, ItineraryHistoryItem.class);
+    }
+}
@@ -0,0 +1,46 @@
+package com.asta.backend.codec;
+
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Smile编解码器：Jackson二进制JSON格式，字段名可回引用，体积更小、解析更快
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Component
+public class SmileHistoryRecordCodec implements HistoryRecordCodec {
+
+    /**
+     * Smile数据头 ":)\n"
+     */
+    private static final byte[] HEADER = {':', ')', '\n'};
+
+    private final ObjectMapper smileMapper = new SmileMapper();
+
+    @Override
+    public String name() {
+        return "smile";
+    }
+
+    @Override
+    public boolean supports(byte[] data) {
+        return data.length >= HEADER.length
+                && data[0] == HEADER[0] && data[1] == HEADER[1] && data[2] == HEADER[2];
+    }
+
+    @Override
+    public byte[] encode(ItineraryHistoryItem item) throws IOException {
+        return smileMapper.writeValueAsBytes(item);
+    }
+
+    @Override
+    public ItineraryHistoryItem decode(byte[] data) throws IOException {
+        return smileMapper.readValue(data, ItineraryHistoryItem.class);
+    }
+}
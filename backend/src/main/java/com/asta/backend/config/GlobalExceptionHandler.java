@@ -1,17 +1,23 @@
 package com.asta.backend.config;
 
+import com.asta.backend.auth.PasswordWorkRejectedException;
 import com.asta.backend.entity.vo.JsonVO;
 import com.asta.backend.entity.vo.ResultStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
+import org.springframework.validation.method.ParameterValidationResult;
 import org.springframework.web.HttpMediaTypeException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -44,10 +50,27 @@ public class GlobalExceptionHandler {
         return JsonVO.create(data, ResultStatus.PARAMS_INVALID);
     }
 
+    // @RequestParam等方法参数校验异常处理
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public JsonVO<String> handlerMethodValidationHandler(HandlerMethodValidationException e) {
+        ParameterValidationResult result = e.getParameterValidationResults().get(0);
+        String data = "[" + result.getMethodParameter().getParameterName() + "]"
+                + result.getResolvableErrors().get(0).getDefaultMessage();
+        return JsonVO.create(data, ResultStatus.PARAMS_INVALID);
+    }
+
     // 登录认证异常
     @ExceptionHandler(BadCredentialsException.class)
     public JsonVO<String> handleBadCredentialsException(BadCredentialsException e) {
         return JsonVO.create(e.getMessage(), ResultStatus.UNAUTHORIZED);
     }
 
+    // 密码哈希线程池已满，返回503及建议的重试等待时间
+    @ExceptionHandler(PasswordWorkRejectedException.class)
+    public ResponseEntity<JsonVO<String>> handlePasswordWorkRejectedException(PasswordWorkRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(JsonVO.create(e.getMessage(), ResultStatus.SERVER_BUSY));
+    }
+
 }
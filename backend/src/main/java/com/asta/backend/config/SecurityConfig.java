@@ -1,10 +1,14 @@
 package com.asta.backend.config;
 
+import com.asta.backend.auth.BoundedPasswordEncoder;
 import com.asta.backend.filter.JwtRequestFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -63,12 +67,29 @@ public class SecurityConfig {
 
     /**
      * 配置密码编码器Bean。
+     * BCrypt 计算在专用线程池中执行，线程池已满时快速拒绝，避免占满请求线程。
      *
-     * @return PasswordEncoder 返回BCryptPasswordEncoder实例，用于密码加密和验证。
+     * @param passwordHashExecutor 密码哈希线程池
+     * @param meterRegistry 指标注册表
+     * @return PasswordEncoder 返回在线程池中执行BCrypt的编码器，用于密码加密和验证。
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(ThreadPoolTaskExecutor passwordHashExecutor, MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), passwordHashExecutor, meterRegistry);
+    }
+
+    /**
+     * 配置认证提供者Bean。
+     * 通过 UserDetailsService 一次查询加载用户并校验密码，认证结果的主体为携带用户ID及角色的 LoginUser。
+     *
+     * @param passwordEncoder 密码编码器
+     * @return DaoAuthenticationProvider 返回用户名密码认证提供者。
+     */
+    @Bean
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        return provider;
     }
 
     /**
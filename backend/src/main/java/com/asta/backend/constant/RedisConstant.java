@@ -7,14 +7,179 @@ public class RedisConstant {
      */
     public static final String ITINERARY_HISTORY_PREFIX = "itinerary:history:";
 
+    /**
+     * 历史记录摘要键前缀（不含行程内容，供列表接口读取）
+     */
+    public static final String ITINERARY_SUMMARY_PREFIX = "itinerary:summary:";
+
     /**
      * 用户历史记录列表键前缀
      */
     public static final String USER_HISTORY_LIST_PREFIX = "user:history:list:";
 
     /**
-     * 历史记录ID计数器键
+     * 历史记录ID计数器键（旧版ID生成方式使用，已停用，重建索引时跳过）
      */
     public static final String HISTORY_ID_COUNTER = "itinerary:history:id:counter";
 
+    /**
+     * 历史记录ID节点号租约键前缀，后接节点号，值为持有租约的实例标识
+     */
+    public static final String HISTORY_ID_NODE_PREFIX = "itinerary:id:node:";
+
+    /**
+     * 历史记录ID节点号分配计数器键
+     */
+    public static final String HISTORY_ID_NODE_COUNTER = "itinerary:id:node-counter";
+
+    /**
+     * 全局历史记录时间索引键（ZSET，score为创建时间毫秒值，member为历史记录ID）
+     */
+    public static final String HISTORY_TIME_INDEX = "itinerary:index:time";
+
+    /**
+     * 用户历史记录时间索引键前缀（ZSET，score为创建时间毫秒值，member为历史记录ID）
+     */
+    public static final String USER_TIME_INDEX_PREFIX = "itinerary:index:user:";
+
+    /**
+     * 标题n-gram倒排索引键前缀（SET，member为历史记录ID）
+     */
+    public static final String TITLE_GRAM_INDEX_PREFIX = "itinerary:index:gram:title:";
+
+    /**
+     * 用户名n-gram倒排索引键前缀（SET，member为历史记录ID）
+     */
+    public static final String USERNAME_GRAM_INDEX_PREFIX = "itinerary:index:gram:username:";
+
+    /**
+     * 出发地索引键前缀（ZSET，score为出行日期的纪元日，无出行日期时为-inf，member为历史记录ID）
+     */
+    public static final String ROUTE_ORIGIN_INDEX_PREFIX = "itinerary:index:route:origin:";
+
+    /**
+     * 目的地索引键前缀（ZSET，score同出发地索引）
+     */
+    public static final String ROUTE_DESTINATION_INDEX_PREFIX = "itinerary:index:route:destination:";
+
+    /**
+     * 出发地-目的地索引键前缀（ZSET，score同出发地索引），后接 "出发地|目的地"
+     */
+    public static final String ROUTE_PAIR_INDEX_PREFIX = "itinerary:index:route:pair:";
+
+    /**
+     * 出行方式索引键前缀（ZSET，score同出发地索引）
+     */
+    public static final String ROUTE_MODE_INDEX_PREFIX = "itinerary:index:route:mode:";
+
+    /**
+     * 出行日期索引键（ZSET，score为出行日期的纪元日，只包含有出行日期的记录）
+     */
+    public static final String ROUTE_DATE_INDEX = "itinerary:index:route:date";
+
+    /**
+     * 文本检索临时候选集合键前缀
+     */
+    public static final String TEXT_QUERY_TMP_PREFIX = "itinerary:index:tmp:";
+
+    /**
+     * 历史记录索引结构版本键，版本变化时启动任务会重建索引
+     */
+    public static final String HISTORY_INDEX_VERSION = "itinerary:index:version";
+
+    /**
+     * 历史记录缓存失效通知频道，消息内容为逗号分隔的历史记录ID
+     */
+    public static final String HISTORY_INVALIDATION_CHANNEL = "itinerary:channel:invalidate";
+
+    /**
+     * 历史记录归档删除通知频道，消息内容为发送节点标识及逗号分隔的历史记录ID，收到后标记本地归档正文已删除
+     */
+    public static final String HISTORY_ARCHIVE_CHANNEL = "itinerary:channel:archive";
+
+    /**
+     * 用户信息缓存失效通知频道，消息内容为用户名
+     */
+    public static final String USER_INVALIDATION_CHANNEL = "user:channel:invalidate";
+
+    /**
+     * 已吊销token键（ZSET，member为token ID，score为token过期时间毫秒值，过期后清理）
+     */
+    public static final String AUTH_REVOKED_TOKENS = "auth:revoked:tokens";
+
+    /**
+     * 已吊销用户键（HASH，field为用户名，value为秒级时间戳，此前签发的token均失效）
+     */
+    public static final String AUTH_REVOKED_USERS = "auth:revoked:users";
+
+    /**
+     * token吊销通知频道，消息为 "t:token ID" 或 "u:秒级时间戳:用户名"
+     */
+    public static final String AUTH_REVOCATION_CHANNEL = "auth:channel:revoke";
+
+    /**
+     * 后台删除任务进度键前缀（HASH），后接任务ID
+     */
+    public static final String HISTORY_DELETE_JOB_PREFIX = "itinerary:job:delete:";
+
+    /**
+     * 落库队列键（LIST），条目为 "+ID"（写入）或 "-ID"（删除），左端写入、右端回放
+     */
+    public static final String HISTORY_PERSIST_QUEUE = "itinerary:persist:queue";
+
+    /**
+     * 落库队列回放锁键，保证同一时间只有一个节点回放
+     */
+    public static final String HISTORY_PERSIST_LOCK = "itinerary:persist:lock";
+
+    /**
+     * 热数据淘汰任务锁键
+     */
+    public static final String HISTORY_EVICT_LOCK = "itinerary:persist:evict-lock";
+
+    /**
+     * 热数据水位键，值为毫秒时间戳，创建时间早于该值的记录从数据库读取
+     */
+    public static final String HISTORY_HOT_SINCE = "itinerary:persist:hot-since";
+
+    /**
+     * 行程内容键前缀（HASH，data为编码后的行程内容，refs为引用该内容的记录数），后接内容的SHA-256十六进制摘要
+     */
+    public static final String HISTORY_CONTENT_PREFIX = "itinerary:content:data:";
+
+    /**
+     * 记录内容归属键前缀（HASH，field为历史记录ID，value为其引用的内容摘要），后接分片号
+     */
+    public static final String HISTORY_CONTENT_OWNER_PREFIX = "itinerary:content:owner:";
+
+    /**
+     * 压缩字典内容键前缀，后接字典版本号
+     */
+    public static final String COMPRESSION_DICT_PREFIX = "itinerary:codec:dict:data:";
+
+    /**
+     * 压缩字典版本号计数器键
+     */
+    public static final String COMPRESSION_DICT_VERSION_COUNTER = "itinerary:codec:dict:counter";
+
+    /**
+     * 当前使用的压缩字典版本键
+     */
+    public static final String COMPRESSION_DICT_CURRENT = "itinerary:codec:dict:current";
+
+    /**
+     * 压缩字典训练锁键，避免多个节点同时训练
+     */
+    public static final String COMPRESSION_DICT_TRAIN_LOCK = "itinerary:codec:dict:lock";
+
+    /**
+     * 路线热度日计数键前缀（ZSET，member为目的地、路线或出行方式，score为当天新增行程数），后接 "维度:yyyyMMdd"
+     */
+    public static final String ROUTE_STATS_DAY_PREFIX = "itinerary:stats:day:";
+
+    /**
+     * 路线热度窗口汇总键前缀（ZSET，由日计数合并得到，短时缓存），后接 "维度:窗口"
+     */
+    public static final String ROUTE_STATS_WINDOW_PREFIX = "itinerary:stats:window:";
+
 }
@@ -0,0 +1,336 @@
+package com.asta.backend.content;
+
+import com.asta.backend.codec.HistoryRecordSerializer;
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.asta.backend.entity.vo.HistoryDedupReportVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 行程内容去重存储
+ * <p>
+ * 同一份行程内容在Redis中只保存一次，键为内容的SHA-256摘要，并记录引用该内容的记录数；
+ * 记录正文只保留内容摘要，读取时按摘要补齐行程内容。每条记录引用的摘要登记在按ID分片的归属HASH中，
+ * 保存、删除脚本据此在同一次调用内增减引用计数，计数归零时删除内容。
+ * 数据库及本地归档中仍保存完整的行程内容。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HistoryContentStore {
+
+    /**
+     * 内容归属HASH的分片数量，分片较小时Redis以紧凑编码存储
+     */
+    private static final int OWNER_BUCKETS = 1024;
+
+    /**
+     * 统计去重效果时每批SCAN的键数量
+     */
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    private static final byte[] DATA_FIELD = "data".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 批量释放内容引用的脚本
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/history_content_release.lua"), Long.class);
+
+    /**
+     * 将内嵌行程内容的旧正文迁移为去重存储的脚本
+     */
+    private static final RedisScript<Long> MIGRATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/history_content_migrate.lua"), Long.class);
+
+    private final RedisTemplate<String, byte[]> byteRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final HistoryRecordSerializer recordSerializer;
+
+    /**
+     * 根据行程内容计算并设置内容摘要，内容为空时清除摘要
+     *
+     * @return 内容摘要，内容为空时为null
+     */
+    public String assign(ItineraryHistoryItem item) {
+        String content = item.getGeneratedItinerary();
+        item.setContentHash(StringUtils.hasLength(content) ? sha256(content) : null);
+        return item.getContentHash();
+    }
+
+    /**
+     * 编码写入Redis的记录正文：有内容摘要时不含行程内容
+     */
+    public byte[] encodeBody(ItineraryHistoryItem item) throws IOException {
+        if (item.getContentHash() == null) {
+            return recordSerializer.serialize(item);
+        }
+        String content = item.getGeneratedItinerary();
+        item.setGeneratedItinerary(null);
+        try {
+            return recordSerializer.serialize(item);
+        } finally {
+            item.setGeneratedItinerary(content);
+        }
+    }
+
+    /**
+     * 编码去重存储的行程内容，复用记录编码及压缩字典
+     */
+    public byte[] encodeContent(ItineraryHistoryItem item) throws IOException {
+        return recordSerializer.serialize(new ItineraryHistoryItem().setGeneratedItinerary(item.getGeneratedItinerary()));
+    }
+
+    /**
+     * 内容键，摘要为空时返回占位键（脚本不会访问）
+     */
+    public static String contentKey(String hash) {
+        return RedisConstant.HISTORY_CONTENT_PREFIX + (hash == null ? "" : hash);
+    }
+
+    /**
+     * 记录所在的内容归属分片键
+     */
+    public static String ownerKey(String id) {
+        return RedisConstant.HISTORY_CONTENT_OWNER_PREFIX + Math.floorMod(id.hashCode(), OWNER_BUCKETS);
+    }
+
+    /**
+     * 读取记录当前引用的内容摘要
+     *
+     * @return 内容摘要，未引用去重内容时为null
+     */
+    public String ownerHash(String id) {
+        return (String) stringRedisTemplate.opsForHash().get(ownerKey(id), id);
+    }
+
+    /**
+     * 通过管道批量读取记录当前引用的内容摘要
+     *
+     * @return 记录ID -> 内容摘要，未引用去重内容的记录不包含在内
+     */
+    public Map<String, String> ownerHashes(Collection<String> ids) {
+        List<String> idList = new ArrayList<>(ids);
+        Map<String, String> hashes = new LinkedHashMap<>();
+        if (idList.isEmpty()) {
+            return hashes;
+        }
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            idList.forEach(id -> stringConnection.hGet(ownerKey(id), id));
+            return null;
+        });
+        for (int i = 0; i < idList.size(); i++) {
+            if (results.get(i) != null) {
+                hashes.put(idList.get(i), (String) results.get(i));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * 释放一批记录对内容的引用；记录已被并发覆盖写入（归属已变化）时跳过
+     *
+     * @param hashes 记录ID -> 读取到的内容摘要
+     * @return 引用计数归零而删除的内容数量
+     */
+    public long release(Map<String, String> hashes) {
+        if (hashes.isEmpty()) {
+            return 0;
+        }
+        List<String> keys = new ArrayList<>(hashes.size() * 2);
+        List<String> args = new ArrayList<>(hashes.size() * 2);
+        hashes.forEach((id, hash) -> {
+            keys.add(ownerKey(id));
+            keys.add(contentKey(hash));
+            args.add(id);
+            args.add(hash);
+        });
+        Long released = stringRedisTemplate.execute(RELEASE_SCRIPT, keys, args.toArray());
+        return released == null ? 0 : released;
+    }
+
+    /**
+     * 正文只含内容摘要时读取去重存储的行程内容补齐
+     *
+     * @return 补齐后的记录，内容已不存在（记录被并发删除）时返回null
+     */
+    public ItineraryHistoryItem resolve(ItineraryHistoryItem item) {
+        if (item == null) {
+            return null;
+        }
+        List<ItineraryHistoryItem> resolved = resolve(List.of(item));
+        return resolved.isEmpty() ? null : resolved.get(0);
+    }
+
+    /**
+     * 通过管道批量补齐只含内容摘要的记录，内容已不存在（记录被并发删除）的记录被跳过
+     */
+    public List<ItineraryHistoryItem> resolve(List<ItineraryHistoryItem> items) {
+        List<ItineraryHistoryItem> stubs = items.stream().filter(HistoryContentStore::isStub).toList();
+        if (stubs.isEmpty()) {
+            return items;
+        }
+        List<Object> values = byteRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            stubs.forEach(item -> connection.hashCommands().hGet(
+                    contentKey(item.getContentHash()).getBytes(StandardCharsets.UTF_8), DATA_FIELD));
+            return null;
+        });
+
+        Set<ItineraryHistoryItem> missing = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < stubs.size(); i++) {
+            ItineraryHistoryItem item = stubs.get(i);
+            byte[] value = (byte[]) values.get(i);
+            if (value == null) {
+                missing.add(item);
+                continue;
+            }
+            try {
+                item.setGeneratedItinerary(recordSerializer.deserialize(value).getGeneratedItinerary());
+            } catch (IOException e) {
+                log.warn("反序列化行程内容失败，ID: {}，摘要: {}", item.getId(), item.getContentHash());
+                missing.add(item);
+            }
+        }
+        if (missing.isEmpty()) {
+            return items;
+        }
+        return items.stream().filter(item -> !missing.contains(item)).toList();
+    }
+
+    /**
+     * 将内嵌行程内容的旧正文迁移为去重存储，通过管道逐条原子执行；正文已被并发修改的记录跳过
+     *
+     * @param items  已设置内容摘要的记录
+     * @param bodies 与记录一一对应的旧正文
+     * @return 迁移的记录数量
+     */
+    public long migrate(List<ItineraryHistoryItem> items, List<byte[]> bodies) throws IOException {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        List<byte[][]> commands = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            ItineraryHistoryItem item = items.get(i);
+            commands.add(new byte[][]{
+                    utf8(RedisConstant.ITINERARY_HISTORY_PREFIX + item.getId()),
+                    utf8(ownerKey(item.getId())),
+                    utf8(contentKey(item.getContentHash())),
+                    utf8(item.getId()),
+                    bodies.get(i),
+                    encodeBody(item),
+                    utf8(item.getContentHash()),
+                    encodeContent(item)
+            });
+        }
+
+        String sha = byteRedisTemplate.execute((RedisCallback<String>) connection ->
+                connection.scriptingCommands().scriptLoad(utf8(MIGRATE_SCRIPT.getScriptAsString())));
+        List<Object> results = byteRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            commands.forEach(keysAndArgs ->
+                    connection.scriptingCommands().evalSha(sha, ReturnType.INTEGER, 3, keysAndArgs));
+            return null;
+        });
+        return results.stream().filter(result -> result instanceof Long migrated && migrated > 0).count();
+    }
+
+    /**
+     * 统计去重存储的内容数量、引用数量及节省的内存
+     * <p>
+     * 字节数为Redis中保存的编码后（可能已压缩）的内容大小，不含键及数据结构本身的开销。
+     * </p>
+     */
+    public HistoryDedupReportVO report() {
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(RedisConstant.HISTORY_CONTENT_PREFIX + "*")
+                .count(SCAN_BATCH_SIZE)
+                .build();
+
+        HistoryDedupReportVO report = new HistoryDedupReportVO();
+        List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= SCAN_BATCH_SIZE) {
+                    addToReport(report, batch);
+                    batch.clear();
+                }
+            }
+        }
+        addToReport(report, batch);
+
+        long logical = report.getLogicalBytes();
+        report.setSavedBytes(logical - report.getStoredBytes());
+        report.setSavedRatio(logical == 0 ? 0.0 : (double) report.getSavedBytes() / logical);
+        return report;
+    }
+
+    /**
+     * 通过管道读取一批内容键的引用计数及内容大小并累加
+     */
+    private void addToReport(HistoryDedupReportVO report, List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String key : keys) {
+                stringConnection.hGet(key, "refs");
+                stringConnection.hStrLen(key, "data");
+            }
+            return null;
+        });
+        for (int i = 0; i < keys.size(); i++) {
+            Object refsValue = results.get(i * 2);
+            Object sizeValue = results.get(i * 2 + 1);
+            if (refsValue == null || sizeValue == null) {
+                continue;
+            }
+            long refs = Long.parseLong((String) refsValue);
+            long size = (Long) sizeValue;
+            report.setUniqueContents(report.getUniqueContents() + 1);
+            report.setReferences(report.getReferences() + refs);
+            report.setStoredBytes(report.getStoredBytes() + size);
+            report.setLogicalBytes(report.getLogicalBytes() + size * refs);
+        }
+    }
+
+    private static boolean isStub(ItineraryHistoryItem item) {
+        return item.getContentHash() != null && item.getGeneratedItinerary() == null;
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -2,16 +2,33 @@ package com.asta.backend.controller;
 
 import com.asta.backend.entity.po.ItineraryHistoryItem;
 import com.asta.backend.entity.query.ItineraryHistoryQuery;
+import com.asta.backend.entity.vo.HistoryDedupReportVO;
+import com.asta.backend.entity.vo.HistoryDeleteJobVO;
+import com.asta.backend.entity.vo.HistoryImportResultVO;
+import com.asta.backend.entity.vo.HistoryStatsVO;
+import com.asta.backend.entity.vo.ItineraryHistorySummaryVO;
 import com.asta.backend.entity.vo.ItineraryHistoryVO;
 import com.asta.backend.entity.vo.JsonVO;
 import com.asta.backend.entity.vo.PageVO;
 import com.asta.backend.entity.vo.ResultStatus;
 import com.asta.backend.service.IItineraryHistoryService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 历史记录控制器
@@ -24,7 +41,21 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItineraryHistoryController {
 
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    /**
+     * 全文检索单次返回的记录数上限
+     */
+    private static final int FULLTEXT_MAX_LIMIT = 100;
+
     private final IItineraryHistoryService historyService;
+    private final ThreadPoolTaskExecutor historyExportExecutor;
+
+    /**
+     * 流式导出的超时时间，导出大量记录耗时较长
+     */
+    @Value("${history.export.timeout:30m}")
+    private Duration exportTimeout;
 
     /**
      * 保存历史记录
@@ -39,6 +70,18 @@ public class ItineraryHistoryController {
         }
     }
 
+    /**
+     * 批量导入历史记录，请求体为NDJSON（每行一条记录）或JSON数组
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public JsonVO<HistoryImportResultVO> importHistory(InputStream body) {
+        try {
+            return JsonVO.success(historyService.importHistory(body));
+        } catch (Exception e) {
+            return JsonVO.create(null,ResultStatus.FAIL.getCode(),"批量导入历史记录失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 根据ID删除历史记录
      */
@@ -62,15 +105,47 @@ public class ItineraryHistoryController {
     @DeleteMapping("/user/{userId}")
     public JsonVO<String> deleteHistoryByUserId(@PathVariable Integer userId) {
         try {
-            Long deletedCount = historyService.deleteHistoryByUserId(userId);
-            return JsonVO.success("删除成功，共删除 " + deletedCount + " 条记录");
+            HistoryDeleteJobVO job = historyService.submitDeleteHistoryByUserId(userId);
+            if (job.getJobId() != null) {
+                return JsonVO.success("记录较多，已转为后台删除，任务ID: " + job.getJobId());
+            }
+            return JsonVO.success("删除成功，共删除 " + job.getDeleted() + " 条记录");
         } catch (Exception e) {
             return JsonVO.fail("删除用户历史记录失败: " + e.getMessage());
         }
     }
 
     /**
-     * 根据ID查询历史记录
+     * 提交用户历史记录删除任务，返回任务ID及进度
+     */
+    @PostMapping("/user/{userId}/delete-job")
+    public JsonVO<HistoryDeleteJobVO> submitDeleteJob(@PathVariable Integer userId) {
+        try {
+            return JsonVO.success(historyService.submitDeleteHistoryByUserId(userId));
+        } catch (Exception e) {
+            return JsonVO.create(null,ResultStatus.FAIL.getCode(),"提交删除任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询后台删除任务进度
+     */
+    @GetMapping("/delete-job/{jobId}")
+    public JsonVO<HistoryDeleteJobVO> getDeleteJob(@PathVariable String jobId) {
+        try {
+            HistoryDeleteJobVO result = historyService.getDeleteJob(jobId);
+            if (result != null) {
+                return JsonVO.success(result);
+            } else {
+                return JsonVO.create(null, ResultStatus.FAIL.getCode(),"删除任务不存在或已过期");
+            }
+        } catch (Exception e) {
+            return JsonVO.create(null,ResultStatus.FAIL.getCode(),"查询删除任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 根据ID查询历史记录（含行程内容）
      */
     @GetMapping("/{id}")
     public JsonVO<ItineraryHistoryVO> getHistoryById(@PathVariable String id) {
@@ -90,9 +165,9 @@ public class ItineraryHistoryController {
      * 根据用户ID查询历史记录列表
      */
     @GetMapping("/user/{userId}")
-    public JsonVO<List<ItineraryHistoryVO>> getHistoryByUserId(@PathVariable Integer userId) {
+    public JsonVO<List<ItineraryHistorySummaryVO>> getHistoryByUserId(@PathVariable Integer userId) {
         try {
-            List<ItineraryHistoryVO> result = historyService.getHistoryByUserId(userId);
+            List<ItineraryHistorySummaryVO> result = historyService.getHistoryByUserId(userId);
             return JsonVO.success(result);
         } catch (Exception e) {
             return JsonVO.create(null,ResultStatus.FAIL.getCode(),"查询用户历史记录失败: " + e.getMessage());
@@ -103,38 +178,126 @@ public class ItineraryHistoryController {
      * 分页查询历史记录
      */
     @PostMapping("/page")
-    public JsonVO<PageVO<ItineraryHistoryVO>> getHistoryPage(@RequestBody ItineraryHistoryQuery query) {
+    public JsonVO<PageVO<ItineraryHistorySummaryVO>> getHistoryPage(@RequestBody @Validated ItineraryHistoryQuery query) {
         try {
-            PageVO<ItineraryHistoryVO> result = historyService.getHistoryPage(query);
+            PageVO<ItineraryHistorySummaryVO> result = historyService.getHistoryPage(query);
             return JsonVO.success(result);
         } catch (Exception e) {
             return JsonVO.create(null,ResultStatus.FAIL.getCode(),"分页查询历史记录失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 按路线条件分页查询历史记录（如某月前往某目的地的行程），按出行日期倒序
+     */
+    @PostMapping("/route")
+    public JsonVO<PageVO<ItineraryHistorySummaryVO>> getHistoryByRoute(@RequestBody @Validated ItineraryHistoryQuery query) {
+        try {
+            PageVO<ItineraryHistorySummaryVO> result = historyService.getHistoryByRoute(query);
+            return JsonVO.success(result);
+        } catch (Exception e) {
+            return JsonVO.create(null,ResultStatus.FAIL.getCode(),"按路线查询历史记录失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 热门目的地、路线及出行方式统计
+     */
+    @GetMapping("/stats")
+    public JsonVO<HistoryStatsVO> getRouteStats(@RequestParam(required = false) String window,
+                                                @RequestParam(required = false) Integer limit) {
+        try {
+            return JsonVO.success(historyService.getRouteStats(window, limit));
+        } catch (Exception e) {
+            return JsonVO.create(null,ResultStatus.FAIL.getCode(),"查询热门路线统计失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 行程内容去重效果：去重后的内容数量、引用数量及节省的内存
+     */
+    @GetMapping("/dedup-report")
+    public JsonVO<HistoryDedupReportVO> getDedupReport() {
+        try {
+            return JsonVO.success(historyService.getDedupReport());
+        } catch (Exception e) {
+            return JsonVO.create(null,ResultStatus.FAIL.getCode(),"查询行程内容去重统计失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 查询所有历史记录
      */
     @GetMapping("/all")
-    public JsonVO<List<ItineraryHistoryVO>> getAllHistory() {
+    public JsonVO<List<ItineraryHistorySummaryVO>> getAllHistory() {
         try {
-            List<ItineraryHistoryVO> result = historyService.getAllHistory();
+            List<ItineraryHistorySummaryVO> result = historyService.getAllHistory();
             return JsonVO.success(result);
         } catch (Exception e) {
             return JsonVO.create(null,ResultStatus.FAIL.getCode(),"查询所有历史记录失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 流式导出历史记录（NDJSON，每行一条完整记录），按创建时间倒序
+     * <p>
+     * 连接中断后以最后收到的记录ID作为 after 参数重新请求即可续传；gzip=true 时压缩响应。
+     * </p>
+     */
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportHistory(@RequestParam(required = false) Integer userId,
+                                            @RequestParam(required = false) String after,
+                                            @RequestParam(defaultValue = "false") boolean gzip,
+                                            HttpServletResponse response) {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=history.ndjson");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        // 导出耗时较长，使用专用线程池及单独的超时时间，不影响其他异步请求的默认配置
+        return new WebAsyncTask<>(exportTimeout.toMillis(), historyExportExecutor, () -> {
+            OutputStream out = response.getOutputStream();
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE, true);
+                historyService.exportHistory(userId, after, gzipOut);
+                gzipOut.finish();
+            } else {
+                historyService.exportHistory(userId, after, out);
+            }
+            out.flush();
+            return null;
+        });
+    }
+
     /**
      * 根据标题搜索历史记录
      */
     @GetMapping("/search")
-    public JsonVO<List<ItineraryHistoryVO>> searchHistoryByTitle(@RequestParam String title) {
+    public JsonVO<List<ItineraryHistorySummaryVO>> searchHistoryByTitle(@RequestParam String title) {
         try {
-            List<ItineraryHistoryVO> result = historyService.getHistoryByTitle(title);
+            List<ItineraryHistorySummaryVO> result = historyService.getHistoryByTitle(title);
             return JsonVO.success(result);
         } catch (Exception e) {
             return JsonVO.create(null,ResultStatus.FAIL.getCode(),"搜索历史记录失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 按行程内容全文检索历史记录
+     */
+    @GetMapping("/fulltext")
+    public JsonVO<List<ItineraryHistorySummaryVO>> searchHistoryFullText(@RequestParam String keyword,
+                                                                  @RequestParam(required = false) Integer userId,
+                                                                  @RequestParam(defaultValue = "20")
+                                                                  @Min(value = 1, message = "条数最小值为1")
+                                                                  @Max(value = FULLTEXT_MAX_LIMIT, message = "条数最大值为100")
+                                                                  Integer limit) {
+        try {
+            List<ItineraryHistorySummaryVO> result = historyService.searchFullText(keyword, userId, limit);
+            return JsonVO.success(result);
+        } catch (Exception e) {
+            return JsonVO.create(null,ResultStatus.FAIL.getCode(),"全文检索历史记录失败: " + e.getMessage());
+        }
+    }
 }
@@ -9,6 +9,7 @@ import com.asta.backend.service.IUserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 import org.springframework.web.bind.annotation.RestController;
@@ -39,4 +40,13 @@ public class UserController {
         if (!res) return JsonVO.fail("注册失败!");
         return JsonVO.success("注册成功!");
     }
+
+    @PostMapping("/logout")
+    JsonVO<String> logout(@RequestHeader(value = "Authorization", required = false) String authorization){
+
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            userService.logout(authorization.substring(7));
+        }
+        return JsonVO.success("登出成功!");
+    }
 }
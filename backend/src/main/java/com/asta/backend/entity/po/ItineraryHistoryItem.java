@@ -1,5 +1,9 @@
 package com.asta.backend.entity.po;
 
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -18,6 +22,7 @@ import java.io.Serializable;
 @EqualsAndHashCode(callSuper = false)
 @Accessors(chain = true)
 @JsonIgnoreProperties(ignoreUnknown = true)
+@TableName("itinerary_history")
 public class ItineraryHistoryItem implements Serializable {
 
     @Serial
@@ -26,30 +31,72 @@ public class ItineraryHistoryItem implements Serializable {
     /**
      * 历史记录ID
      */
+    @TableId(value = "id", type = IdType.INPUT)
     private String id;
 
     /**
      * 生成的行程内容
      */
+    @TableField("generated_itinerary")
     private String generatedItinerary;
 
     /**
      * 创建时间
      */
+    @TableField("created_at")
     private String createdAt;
 
     /**
      * 行程标题
      */
+    @TableField("title")
     private String title;
 
     /**
      * 用户ID（关联用户）
      */
+    @TableField("user_id")
     private Integer userId;
 
     /**
      * 用户名（冗余字段，便于查询）
      */
+    @TableField("username")
     private String username;
+
+    /**
+     * 出发地
+     */
+    @TableField("start_point")
+    private String startPoint;
+
+    /**
+     * 目的地
+     */
+    @TableField("end_point")
+    private String endPoint;
+
+    /**
+     * 出行日期（格式：yyyy-MM-dd）
+     */
+    @TableField("travel_date")
+    private String travelDate;
+
+    /**
+     * 出行方式：driving、walking、transit、cycling
+     */
+    @TableField("travel_mode")
+    private String travelMode;
+
+    /**
+     * 预计时长：half-day、one-day、two-days、three-days、week、custom
+     */
+    @TableField("duration")
+    private String duration;
+
+    /**
+     * 行程内容的SHA-256摘要；Redis中的正文只保留该摘要，行程内容按摘要去重存储，数据库中保存完整内容
+     */
+    @TableField(exist = false)
+    private String contentHash;
 }
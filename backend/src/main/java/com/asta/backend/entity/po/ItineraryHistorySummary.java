@@ -0,0 +1,78 @@
+package com.asta.backend.entity.po;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 历史行程记录摘要实体类
+ * <p>
+ * 与记录正文分开存储，只包含列表展示及检索所需的字段，不含行程内容。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ItineraryHistorySummary implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 历史记录ID
+     */
+    private String id;
+
+    /**
+     * 创建时间
+     */
+    private String createdAt;
+
+    /**
+     * 行程标题
+     */
+    private String title;
+
+    /**
+     * 用户ID（关联用户）
+     */
+    private Integer userId;
+
+    /**
+     * 用户名（冗余字段，便于查询）
+     */
+    private String username;
+
+    /**
+     * 出发地
+     */
+    private String startPoint;
+
+    /**
+     * 目的地
+     */
+    private String endPoint;
+
+    /**
+     * 出行日期（格式：yyyy-MM-dd）
+     */
+    private String travelDate;
+
+    /**
+     * 出行方式：driving、walking、transit、cycling
+     */
+    private String travelMode;
+
+    /**
+     * 预计时长：half-day、one-day、two-days、three-days、week、custom
+     */
+    private String duration;
+}
@@ -45,4 +45,29 @@ public class ItineraryHistoryQuery extends PageQuery {
      * 结束时间（格式：yyyy-MM-dd HH:mm:ss）
      */
     private String endTime;
+
+    /**
+     * 出发地（精确匹配）
+     */
+    private String startPoint;
+
+    /**
+     * 目的地（精确匹配）
+     */
+    private String endPoint;
+
+    /**
+     * 出行方式（精确匹配）
+     */
+    private String travelMode;
+
+    /**
+     * 出行日期下限（格式：yyyy-MM-dd，含）
+     */
+    private String travelDateFrom;
+
+    /**
+     * 出行日期上限（格式：yyyy-MM-dd，含）
+     */
+    private String travelDateTo;
 }
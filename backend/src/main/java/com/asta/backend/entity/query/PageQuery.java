@@ -1,5 +1,6 @@
 package com.asta.backend.entity.query;
 
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.Getter;
 import lombok.Setter;
@@ -11,8 +12,19 @@ import lombok.ToString;
 public class PageQuery {
 
     @Min(value = 1, message = "页码最小值为1")
-    private int pageIndex;
+    private int pageIndex = 1;
 
     @Min(value = 1, message = "条数最小值为1")
+    @Max(value = 100, message = "条数最大值为100")
     private int pageSize;
+
+    /**
+     * 游标（上一页返回的 nextCursor），传入时按游标续读，忽略 pageIndex
+     */
+    private String cursor;
+
+    /**
+     * 是否统计总记录数，不需要总数时可关闭以减少查询开销
+     */
+    private boolean searchCount = true;
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.asta.backend.entity.vo;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 行程内容去重效果返回数据类
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Data
+public class HistoryDedupReportVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 去重后保存的内容数量
+     */
+    private Long uniqueContents = 0L;
+
+    /**
+     * 引用去重内容的记录数量
+     */
+    private Long references = 0L;
+
+    /**
+     * 去重后实际保存的内容字节数
+     */
+    private Long storedBytes = 0L;
+
+    /**
+     * 不去重时每条记录各自保存内容所需的字节数
+     */
+    private Long logicalBytes = 0L;
+
+    /**
+     * 去重节省的字节数
+     */
+    private Long savedBytes = 0L;
+
+    /**
+     * 节省的比例（0-1）
+     */
+    private Double savedRatio = 0.0;
+}
@@ -0,0 +1,53 @@
+package com.asta.backend.entity.vo;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 批量删除历史记录任务返回数据类
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Data
+public class HistoryDeleteJobVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    /**
+     * 任务ID，同步完成的删除为空
+     */
+    private String jobId;
+
+    /**
+     * 用户ID
+     */
+    private Integer userId;
+
+    /**
+     * 任务状态：RUNNING、COMPLETED、FAILED
+     */
+    private String status;
+
+    /**
+     * 待删除的记录总数
+     */
+    private Long total;
+
+    /**
+     * 已删除的记录数量
+     */
+    private Long deleted;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+}
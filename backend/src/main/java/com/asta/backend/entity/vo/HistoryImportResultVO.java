@@ -0,0 +1,80 @@
+package com.asta.backend.entity.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入历史记录结果返回数据类
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Data
+public class HistoryImportResultVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 读取到的记录总数
+     */
+    private Long total;
+
+    /**
+     * 导入成功的记录数量
+     */
+    private Long imported;
+
+    /**
+     * 导入失败的记录数量
+     */
+    private Long failed;
+
+    /**
+     * 导入耗时（毫秒）
+     */
+    private Long elapsedMillis;
+
+    /**
+     * 平均每秒导入的记录数量
+     */
+    private Long recordsPerSecond;
+
+    /**
+     * 失败明细，最多返回前若干条
+     */
+    private List<Failure> failures = new ArrayList<>();
+
+    /**
+     * 单条记录的失败原因
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 记录在请求中的序号，从0开始
+         */
+        private Long index;
+
+        /**
+         * 记录ID，未指定时为空
+         */
+        private String id;
+
+        /**
+         * 失败原因
+         */
+        private String reason;
+    }
+}
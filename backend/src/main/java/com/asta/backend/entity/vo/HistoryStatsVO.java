@@ -0,0 +1,65 @@
+package com.asta.backend.entity.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 热门路线统计返回数据类
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Data
+public class HistoryStatsVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 统计窗口：day、week、month
+     */
+    private String window;
+
+    /**
+     * 热门目的地
+     */
+    private List<RankItem> destinations = new ArrayList<>();
+
+    /**
+     * 热门路线（出发地→目的地）
+     */
+    private List<RankItem> routes = new ArrayList<>();
+
+    /**
+     * 出行方式排行
+     */
+    private List<RankItem> travelModes = new ArrayList<>();
+
+    /**
+     * 排行项
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RankItem implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 名称
+         */
+        private String name;
+
+        /**
+         * 窗口内新增的行程数量
+         */
+        private Long count;
+    }
+}
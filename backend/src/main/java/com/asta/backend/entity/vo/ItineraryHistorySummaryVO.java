@@ -0,0 +1,69 @@
+package com.asta.backend.entity.vo;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 历史记录摘要返回数据类，用于列表接口，行程内容需通过详情接口获取
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Data
+public class ItineraryHistorySummaryVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 历史记录ID
+     */
+    private String id;
+
+    /**
+     * 创建时间
+     */
+    private String createdAt;
+
+    /**
+     * 行程标题
+     */
+    private String title;
+
+    /**
+     * 用户ID
+     */
+    private Integer userId;
+
+    /**
+     * 用户名
+     */
+    private String username;
+
+    /**
+     * 出发地
+     */
+    private String startPoint;
+
+    /**
+     * 目的地
+     */
+    private String endPoint;
+
+    /**
+     * 出行日期（格式：yyyy-MM-dd）
+     */
+    private String travelDate;
+
+    /**
+     * 出行方式：driving、walking、transit、cycling
+     */
+    private String travelMode;
+
+    /**
+     * 预计时长：half-day、one-day、two-days、three-days、week、custom
+     */
+    private String duration;
+}
@@ -46,4 +46,29 @@ public class ItineraryHistoryVO implements Serializable {
      * 用户名
      */
     private String username;
+
+    /**
+     * 出发地
+     */
+    private String startPoint;
+
+    /**
+     * 目的地
+     */
+    private String endPoint;
+
+    /**
+     * 出行日期（格式：yyyy-MM-dd）
+     */
+    private String travelDate;
+
+    /**
+     * 出行方式：driving、walking、transit、cycling
+     */
+    private String travelMode;
+
+    /**
+     * 预计时长：half-day、one-day、two-days、three-days、week、custom
+     */
+    private String duration;
 }
@@ -13,5 +13,7 @@ public class LoginVO {
 
     private String username;
 
+    private String role;
+
     private String token;
 }
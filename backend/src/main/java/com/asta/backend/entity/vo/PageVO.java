@@ -53,6 +53,11 @@ public class PageVO<T> implements Serializable {
      */
     private Boolean hasNext;
 
+    /**
+     * 下一页游标，没有下一页时为空
+     */
+    private String nextCursor;
+
     public PageVO() {}
 
     public PageVO(List<T> records, Long total, Long current, Long size) {
@@ -60,8 +65,19 @@ public class PageVO<T> implements Serializable {
         this.total = total;
         this.current = current;
         this.size = size;
-        this.pages = (total + size - 1) / size;
-        this.hasPrevious = current > 1;
-        this.hasNext = current < pages;
+        this.pages = total != null ? (total + size - 1) / size : null;
+        this.hasPrevious = current != null && current > 1;
+        this.hasNext = pages != null && current != null && current < pages;
+    }
+
+    public PageVO(List<T> records, Long total, Long current, Long size, String nextCursor) {
+        this.records = records;
+        this.total = total;
+        this.current = current;
+        this.size = size;
+        this.pages = total != null ? (total + size - 1) / size : null;
+        this.hasPrevious = current != null && current > 1;
+        this.hasNext = nextCursor != null;
+        this.nextCursor = nextCursor;
     }
 }
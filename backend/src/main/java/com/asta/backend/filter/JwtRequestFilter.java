@@ -1,11 +1,15 @@
 package com.asta.backend.filter;
 
+import com.asta.backend.auth.TokenRevocationList;
+import com.asta.backend.cache.UserDetailsCache;
 import com.asta.backend.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,8 +26,18 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final UserDetailsService userDetailsService;
 
+    private final UserDetailsCache userDetailsCache;
+
     private final JwtUtil jwtUtil;
 
+    private final TokenRevocationList revocationList;
+
+    /**
+     * 无状态认证：直接由 token 中的用户名及角色构造认证信息，不加载用户
+     */
+    @Value("${auth.stateless:false}")
+    private boolean stateless;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -32,26 +46,36 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         final String authorizationHeader = request.getHeader("Authorization");
 
         String username = null;
-        String jwtToken = null;
+        Claims claims = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             // 从请求 Authorization 中提取 Token 信息
-            jwtToken = authorizationHeader.substring(7); // 去除 "Bearer " 前缀
+            String jwtToken = authorizationHeader.substring(7); // 去除 "Bearer " 前缀
             try {
-                // 从 token 获取 username
-                username = jwtUtil.getUsernameFromToken(jwtToken);
+                // 一次解析并验证 token（签名及过期时间），从 claims 获取 username
+                claims = jwtUtil.verify(jwtToken);
+                username = claims.getSubject();
             } catch (Exception e) {
                 // Token 解析失败或过期等情况
                 logger.warn("JWT 解析失败或过期: " + e.getMessage());
             }
         }
 
+        if (username != null && revocationList.isRevoked(claims)) {
+            // 已登出或用户密码、角色变更后吊销的 token
+            logger.warn("JWT 已吊销，用户名: " + username);
+            username = null;
+        }
+
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) { // 确保当前请求没有被其他过滤器认证过
-            // 加载与令 token 关联的用户
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // 无状态认证时由 claims 构造用户，旧版 token 未携带角色时加载与 token 关联的用户，优先读取本地缓存
+            UserDetails userDetails = stateless ? jwtUtil.getUserDetailsFromClaims(claims) : null;
+            if (userDetails == null) {
+                userDetails = userDetailsCache.get(username, userDetailsService::loadUserByUsername);
+            }
 
-            // 校验 Token（用户名匹配且未过期）
-            if (jwtUtil.validateToken(jwtToken, userDetails)) {
+            // 校验 Token（用户名匹配且未过期），复用已验证的 claims
+            if (jwtUtil.validateClaims(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 usernamePasswordAuthenticationToken
@@ -0,0 +1,452 @@
+package com.asta.backend.maintenance;
+
+import com.asta.backend.archive.HistoryArchiveStore;
+import com.asta.backend.codec.HistoryRecordSerializer;
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.content.HistoryContentStore;
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.asta.backend.entity.po.ItineraryHistorySummary;
+import com.asta.backend.persist.HistoryDatabaseStore;
+import com.asta.backend.search.ItineraryFullTextIndex;
+import com.asta.backend.store.HistoryRedisStore;
+import com.asta.backend.utils.HistoryRecordUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 历史记录维护任务
+ * <p>
+ * 重建时间索引、摘要及二级索引，将冷数据淘汰出Redis，将较早记录的正文写入本地归档段，
+ * 以及本地全文索引的增量同步与按ID刷新。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HistoryMaintenance {
+
+    /**
+     * 重建索引时每批SCAN的键数量
+     */
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    /**
+     * 全文索引增量同步时回看的时间窗口，覆盖其他节点写入时间索引的延迟
+     */
+    private static final long FULLTEXT_SYNC_OVERLAP_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, byte[]> byteRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final HistoryRecordSerializer recordSerializer;
+    private final ItineraryFullTextIndex fullTextIndex;
+    private final HistoryContentStore contentStore;
+    private final HistoryDatabaseStore databaseStore;
+    private final HistoryArchiveStore archiveStore;
+    private final HistoryRedisStore redisStore;
+
+    /**
+     * 每批读取、处理的记录数量
+     */
+    @Value("${history.redis.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * Redis中保留的热数据时间窗口，更早且已落库的记录会被淘汰
+     */
+    @Value("${history.persist.hot-retention:90d}")
+    private Duration hotRetention;
+
+    /**
+     * 创建时间早于该时长的记录正文写入本地归档段
+     */
+    @Value("${history.archive.age:30d}")
+    private Duration archiveAge;
+
+    /**
+     * 单个归档段累计的正文大小上限（MB），达到后写出新段
+     */
+    @Value("${history.archive.segment-max-mb:64}")
+    private long segmentMaxMb;
+
+    /**
+     * 遍历全部历史记录键，重建时间索引、摘要及二级索引
+     *
+     * @return 索引的记录数量
+     */
+    public long rebuildIndex() {
+        // 使用游标SCAN遍历历史记录键，避免KEYS命令阻塞Redis
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(RedisConstant.ITINERARY_HISTORY_PREFIX + "*")
+                .count(SCAN_BATCH_SIZE)
+                .build();
+
+        long indexed = 0;
+        List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                if (RedisConstant.HISTORY_ID_COUNTER.equals(key)) {
+                    continue;
+                }
+                batch.add(key);
+                if (batch.size() >= SCAN_BATCH_SIZE) {
+                    indexed += indexBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            indexed += indexBatch(batch);
+        }
+
+        log.info("重建历史记录索引完成，索引数量: {}", indexed);
+        return indexed;
+    }
+
+    /**
+     * 将早于热数据水位且已落库的记录淘汰出Redis，并推进水位
+     *
+     * @return 淘汰的记录数量
+     */
+    public long evictCold() {
+        if (!databaseStore.isEnabled()) {
+            return 0L;
+        }
+
+        // 淘汰上一轮推进的水位之前的记录，此时各节点均已读取到该水位，不会再从Redis读取这部分数据
+        long hotSince = databaseStore.hotSince();
+        long evicted = 0;
+        while (hotSince != Long.MIN_VALUE) {
+            Set<String> ids = stringRedisTemplate.opsForZSet().rangeByScore(
+                    RedisConstant.HISTORY_TIME_INDEX, Double.NEGATIVE_INFINITY, hotSince - 1, 0, batchSize);
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+
+            // 只淘汰已落库的记录，尚在落库队列中的记录留待下一轮
+            Set<String> persisted = databaseStore.selectPersistedIds(ids);
+            if (!persisted.isEmpty()) {
+                redisStore.evict(redisStore.getSummariesByIds(new ArrayList<>(persisted)));
+                evicted += persisted.size();
+            }
+            if (persisted.size() < ids.size()) {
+                break;
+            }
+        }
+
+        databaseStore.advanceHotSince(System.currentTimeMillis() - hotRetention.toMillis());
+        if (evicted > 0) {
+            log.info("淘汰冷数据完成，淘汰数量: {}", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * 将创建时间早于归档时长的记录正文写入本地归档段，已落库的记录随后移出Redis正文
+     *
+     * @return 归档的记录数量
+     */
+    public long archiveBodies() {
+        if (!archiveStore.isEnabled()) {
+            return 0L;
+        }
+
+        // 每轮从热数据水位开始遍历：之后导入的较早记录、以及上一轮因未落库而保留正文的记录都会被重新检查
+        double min = redisStore.hotMin();
+        double max = System.currentTimeMillis() - archiveAge.toMillis();
+        long segmentMaxBytes = segmentMaxMb * 1024 * 1024;
+        Map<String, byte[]> pending = new LinkedHashMap<>();
+        long pendingBytes = 0;
+        long archived = 0;
+        try {
+            for (long offset = 0; ; offset += batchSize) {
+                // 正文移出Redis不影响时间索引，按偏移分页是稳定的
+                Set<String> ids = stringRedisTemplate.opsForZSet().rangeByScore(
+                        RedisConstant.HISTORY_TIME_INDEX, min, max, offset, batchSize);
+                if (ids == null || ids.isEmpty()) {
+                    break;
+                }
+                // 已归档但正文仍在Redis的记录：归档时尚未落库的，落库后移出正文；
+                // 归档后被覆盖写入的，写入新版本并保留正文，待其他节点重新归档后的下一轮再移出
+                List<String> retained = retainedBodies(ids.stream().filter(archiveStore::contains).toList());
+                Map<String, byte[]> changed = changedBodies(retained);
+                archiveStore.replace(changed);
+                unlinkPersistedBodies(retained.stream().filter(id -> !changed.containsKey(id)).toList());
+
+                List<String> keys = ids.stream()
+                        .filter(id -> !archiveStore.contains(id))
+                        .map(id -> RedisConstant.ITINERARY_HISTORY_PREFIX + id)
+                        .toList();
+                List<byte[]> values = keys.isEmpty() ? List.of() : byteRedisTemplate.opsForValue().multiGet(keys);
+                List<ItineraryHistoryItem> items = new ArrayList<>();
+                List<String> missing = new ArrayList<>();
+                for (int i = 0; values != null && i < values.size(); i++) {
+                    String id = keys.get(i).substring(RedisConstant.ITINERARY_HISTORY_PREFIX.length());
+                    if (values.get(i) == null) {
+                        missing.add(id);
+                        continue;
+                    }
+                    try {
+                        items.add(recordSerializer.deserialize(values.get(i)));
+                    } catch (IOException e) {
+                        log.warn("归档时反序列化历史记录失败，ID: {}", id);
+                    }
+                }
+                // 归档保存完整的行程内容，与Redis中的去重存储无关
+                items = new ArrayList<>(contentStore.resolve(items));
+                // 其他节点归档后已移出Redis的正文从数据库补齐，使各节点的本地归档保持完整
+                items.addAll(databaseStore.selectByIds(missing));
+                for (ItineraryHistoryItem item : items) {
+                    byte[] body = recordSerializer.serialize(item);
+                    pending.put(item.getId(), body);
+                    pendingBytes += body.length;
+                }
+                if (pendingBytes >= segmentMaxBytes) {
+                    archived += archiveSegment(pending);
+                    pending.clear();
+                    pendingBytes = 0;
+                }
+                if (ids.size() < batchSize) {
+                    break;
+                }
+            }
+            archived += archiveSegment(pending);
+        } catch (IOException e) {
+            log.error("写入历史记录归档失败，错误: {}", e.getMessage());
+        }
+
+        if (archived > 0) {
+            log.info("归档历史记录完成，归档数量: {}", archived);
+        }
+        return archived;
+    }
+
+    /**
+     * 将水位之后写入时间索引、但本地全文索引中没有的记录补入本地全文索引
+     *
+     * @return 新增的记录数量
+     */
+    public long syncFullTextIndex() {
+        long watermark = fullTextIndex.getWatermark();
+        double min = watermark == Long.MIN_VALUE
+                ? Double.NEGATIVE_INFINITY
+                : watermark - FULLTEXT_SYNC_OVERLAP_MILLIS;
+
+        long indexed = 0;
+        long maxScore = watermark;
+        for (long offset = 0; ; offset += batchSize) {
+            Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(RedisConstant.HISTORY_TIME_INDEX, min, Double.POSITIVE_INFINITY, offset, batchSize);
+            if (tuples == null || tuples.isEmpty()) {
+                break;
+            }
+
+            List<String> missing = new ArrayList<>();
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                if (tuple.getScore() != null) {
+                    maxScore = Math.max(maxScore, tuple.getScore().longValue());
+                }
+                if (!fullTextIndex.contains(tuple.getValue())) {
+                    missing.add(tuple.getValue());
+                }
+            }
+            for (ItineraryHistoryItem item : redisStore.getHistoryItemsByIds(missing)) {
+                fullTextIndex.index(item);
+                indexed++;
+            }
+
+            if (tuples.size() < batchSize) {
+                break;
+            }
+        }
+
+        fullTextIndex.setWatermark(maxScore);
+        if (indexed > 0) {
+            log.info("全文索引增量同步完成，新增数量: {}", indexed);
+        }
+        return indexed;
+    }
+
+    /**
+     * 按当前内容重新写入本地全文索引，已不存在的记录移出索引
+     */
+    public void refreshFullTextIndex(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<ItineraryHistoryItem> items = redisStore.getHistoryItemsByIds(new ArrayList<>(ids));
+        Set<String> found = items.stream().map(ItineraryHistoryItem::getId).collect(Collectors.toSet());
+        items.forEach(fullTextIndex::index);
+        ids.stream().filter(id -> !found.contains(id)).forEach(fullTextIndex::remove);
+    }
+
+    /**
+     * 将一批正文写为归档段，并从Redis移除其中已落库记录的正文
+     * <p>
+     * 摘要及索引仍保留在Redis；未落库的记录正文保留，保证其他节点在归档不可见时仍能从Redis或数据库读取。
+     * 移出正文的记录同时释放对去重内容的引用。
+     * </p>
+     *
+     * @return 归档的记录数量
+     */
+    private long archiveSegment(Map<String, byte[]> records) throws IOException {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        archiveStore.append(records);
+        unlinkPersistedBodies(records.keySet());
+        return records.size();
+    }
+
+    /**
+     * 从Redis移除其中已落库记录的正文，并释放对去重内容的引用
+     */
+    private void unlinkPersistedBodies(Collection<String> ids) {
+        if (!databaseStore.isEnabled() || ids.isEmpty()) {
+            return;
+        }
+        redisStore.unlinkBodies(databaseStore.selectPersistedIds(ids));
+    }
+
+    /**
+     * 返回Redis中的正文与本地归档版本不一致（归档后被覆盖写入）的记录
+     *
+     * @return 记录ID -> 按Redis中当前版本编码的完整正文
+     */
+    private Map<String, byte[]> changedBodies(List<String> ids) throws IOException {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        List<byte[]> values = byteRedisTemplate.opsForValue().multiGet(ids.stream()
+                .map(id -> RedisConstant.ITINERARY_HISTORY_PREFIX + id).toList());
+        List<ItineraryHistoryItem> current = new ArrayList<>();
+        for (int i = 0; values != null && i < values.size(); i++) {
+            if (values.get(i) != null) {
+                current.add(recordSerializer.deserialize(values.get(i)));
+            }
+        }
+        Map<String, byte[]> changed = new LinkedHashMap<>();
+        for (ItineraryHistoryItem item : contentStore.resolve(current)) {
+            byte[] archived = archiveStore.get(item.getId());
+            ItineraryHistoryItem previous = archived == null ? null : recordSerializer.deserialize(archived);
+            if (previous == null || !item.equals(previous.setContentHash(item.getContentHash()))) {
+                changed.put(item.getId(), recordSerializer.serialize(item));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 返回正文仍保留在Redis中的记录ID，未启用落库时正文不会移出，直接返回空
+     */
+    private List<String> retainedBodies(List<String> ids) {
+        if (!databaseStore.isEnabled() || ids.isEmpty()) {
+            return List.of();
+        }
+        List<Object> exists = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            ids.forEach(id -> stringConnection.exists(RedisConstant.ITINERARY_HISTORY_PREFIX + id));
+            return null;
+        });
+        List<String> retained = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (Boolean.TRUE.equals(exists.get(i))) {
+                retained.add(ids.get(i));
+            }
+        }
+        return retained;
+    }
+
+    /**
+     * 读取一批历史记录键写入索引及摘要，同时将内嵌行程内容的记录迁移为去重存储，将非当前编码格式的记录重写为当前格式
+     */
+    private long indexBatch(List<String> keys) {
+        List<byte[]> values = byteRedisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return 0;
+        }
+
+        Map<String, byte[]> migrated = new HashMap<>();
+        List<ItineraryHistoryItem> inlined = new ArrayList<>();
+        List<byte[]> inlinedBodies = new ArrayList<>();
+        List<ItineraryHistorySummary> items = new ArrayList<>(keys.size());
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        Map<Integer, Set<ZSetOperations.TypedTuple<String>>> userTuples = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            try {
+                ItineraryHistoryItem historyItem = recordSerializer.deserialize(value);
+                if (historyItem.getContentHash() == null && contentStore.assign(historyItem) != null) {
+                    inlined.add(historyItem);
+                    inlinedBodies.add(value);
+                } else if (!recordSerializer.isCurrentFormat(value)) {
+                    migrated.put(keys.get(i), recordSerializer.serialize(historyItem));
+                }
+                items.add(HistoryRecordUtil.toSummary(historyItem));
+                ZSetOperations.TypedTuple<String> tuple = new DefaultTypedTuple<>(historyItem.getId(),
+                        (double) HistoryRecordUtil.toEpochMilli(historyItem.getCreatedAt()));
+                tuples.add(tuple);
+                if (historyItem.getUserId() != null) {
+                    userTuples.computeIfAbsent(historyItem.getUserId(), k -> new HashSet<>()).add(tuple);
+                }
+            } catch (IOException e) {
+                log.warn("反序列化历史记录失败，key: {}", keys.get(i));
+            }
+        }
+
+        // 仅在键仍存在时重写（SET XX），避免与并发删除竞争导致记录复活
+        if (!migrated.isEmpty()) {
+            byteRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                migrated.forEach((key, value) -> connection.stringCommands().set(
+                        key.getBytes(StandardCharsets.UTF_8), value,
+                        Expiration.persistent(), RedisStringCommands.SetOption.ifPresent()));
+                return null;
+            });
+        }
+        try {
+            contentStore.migrate(inlined, inlinedBodies);
+        } catch (IOException e) {
+            log.warn("迁移行程内容去重存储失败，错误: {}", e.getMessage());
+        }
+
+        if (!tuples.isEmpty()) {
+            stringRedisTemplate.opsForZSet().add(RedisConstant.HISTORY_TIME_INDEX, tuples);
+        }
+        userTuples.forEach((userId, userSet) -> stringRedisTemplate.opsForZSet()
+                .add(RedisConstant.USER_TIME_INDEX_PREFIX + userId, userSet));
+        redisStore.writeSummaries(items);
+        redisStore.updateSecondaryIndex(items, true);
+
+        // 将已有记录加入落库队列，首次启用数据库持久层时回填历史数据
+        if (databaseStore.isEnabled() && !items.isEmpty()) {
+            stringRedisTemplate.opsForList().leftPushAll(RedisConstant.HISTORY_PERSIST_QUEUE,
+                    items.stream().map(item -> databaseStore.upsertEntry(item.getId())).toList());
+        }
+        return tuples.size();
+    }
+}
@@ -0,0 +1,48 @@
+package com.asta.backend.mapper;
+
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * <p>
+ *  历史行程记录 Mapper 接口
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+public interface ItineraryHistoryMapper extends BaseMapper<ItineraryHistoryItem> {
+
+    /**
+     * 多行插入历史记录，主键已存在时覆盖（落库队列重放时保持幂等）
+     * @param items 历史记录
+     * @return 影响行数
+     */
+    @Insert("""
+            <script>
+            INSERT INTO itinerary_history (id, user_id, username, title, created_at, generated_itinerary,
+                                           start_point, end_point, travel_date, travel_mode, duration)
+            VALUES
+            <foreach collection="items" item="item" separator=",">
+                (#{item.id}, #{item.userId}, #{item.username}, #{item.title}, #{item.createdAt}, #{item.generatedItinerary},
+                 #{item.startPoint}, #{item.endPoint}, #{item.travelDate}, #{item.travelMode}, #{item.duration})
+            </foreach>
+            ON DUPLICATE KEY UPDATE
+                user_id = VALUES(user_id),
+                username = VALUES(username),
+                title = VALUES(title),
+                created_at = VALUES(created_at),
+                generated_itinerary = VALUES(generated_itinerary),
+                start_point = VALUES(start_point),
+                end_point = VALUES(end_point),
+                travel_date = VALUES(travel_date),
+                travel_mode = VALUES(travel_mode),
+                duration = VALUES(duration)
+            </script>
+            """)
+    int upsertBatch(@Param("items") List<ItineraryHistoryItem> items);
+}
@@ -0,0 +1,609 @@
+package com.asta.backend.persist;
+
+import com.asta.backend.codec.HistoryRecordSerializer;
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.content.HistoryContentStore;
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.asta.backend.entity.po.ItineraryHistorySummary;
+import com.asta.backend.mapper.ItineraryHistoryMapper;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 历史记录数据库存储
+ * <p>
+ * Redis作为热数据层，MySQL的 itinerary_history 表为持久层。保存、删除脚本在同一次调用中向Redis落库队列
+ * 写入 "+ID"（写入）或 "-ID"（删除）条目，{@link #flush()} 按写入顺序批量回放到MySQL，
+ * 成功后才从队列移除，进程崩溃或数据库不可用时不会丢失。
+ * </p>
+ * <p>
+ * 创建时间早于热数据水位 {@link #hotSince()} 的已落库记录会从Redis淘汰，读取时回落到MySQL。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HistoryDatabaseStore {
+
+    private static final String UPSERT_PREFIX = "+";
+    private static final String DELETE_PREFIX = "-";
+
+    private static final Duration FLUSH_LOCK_TTL = Duration.ofSeconds(60);
+
+    private static final RedisScript<Long> LOCK_RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/lock_release.lua"), Long.class);
+
+    /**
+     * 单次 flush 最多处理的批次数，避免长时间占用锁
+     */
+    private static final int MAX_BATCHES_PER_FLUSH = 20;
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final ItineraryHistoryMapper historyMapper;
+    private final RedisTemplate<String, byte[]> byteRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final HistoryRecordSerializer recordSerializer;
+    private final HistoryContentStore contentStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${history.persist.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 每批从落库队列读取的条目数量
+     */
+    @Value("${history.persist.batch-size:500}")
+    private int flushBatchSize;
+
+    /**
+     * 单条多行INSERT语句包含的记录数量
+     */
+    @Value("${history.persist.insert-size:100}")
+    private int insertSize;
+
+    private final String lockToken = UUID.randomUUID().toString();
+
+    /**
+     * 热数据水位（毫秒，整秒对齐）：创建时间早于该值的记录从MySQL读取，Long.MIN_VALUE表示全部在Redis
+     */
+    private volatile long hotSince = Long.MIN_VALUE;
+
+    private Timer flushTimer;
+    private Counter upsertCounter;
+    private Counter deleteCounter;
+
+    @PostConstruct
+    public void init() {
+        flushTimer = Timer.builder("history.persist.flush")
+                .description("落库队列单批回放耗时")
+                .register(meterRegistry);
+        upsertCounter = Counter.builder("history.persist.records")
+                .tag("operation", "upsert")
+                .register(meterRegistry);
+        deleteCounter = Counter.builder("history.persist.records")
+                .tag("operation", "delete")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 是否启用MySQL持久层
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 保存记录时写入落库队列的条目，未启用时为空串
+     */
+    public String upsertEntry(String id) {
+        return enabled ? UPSERT_PREFIX + id : "";
+    }
+
+    /**
+     * 删除记录时写入落库队列的条目，未启用时为空串
+     */
+    public String deleteEntry(String id) {
+        return enabled ? DELETE_PREFIX + id : "";
+    }
+
+    /**
+     * 将落库队列中的条目批量回放到MySQL，同一时间只有一个节点执行
+     */
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(RedisConstant.HISTORY_PERSIST_LOCK, lockToken, FLUSH_LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            for (int i = 0; i < MAX_BATCHES_PER_FLUSH; i++) {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                int processed = flushBatch();
+                sample.stop(flushTimer);
+                if (processed < flushBatchSize) {
+                    break;
+                }
+            }
+        } finally {
+            // 锁可能已超时被其他节点获取，仅删除自己持有的锁
+            stringRedisTemplate.execute(LOCK_RELEASE_SCRIPT, List.of(RedisConstant.HISTORY_PERSIST_LOCK), lockToken);
+        }
+    }
+
+    /**
+     * 回放队列最旧的一批条目，处理成功后从队列右端裁剪
+     *
+     * @return 处理的条目数量
+     */
+    private int flushBatch() {
+        List<String> entries = stringRedisTemplate.opsForList()
+                .range(RedisConstant.HISTORY_PERSIST_QUEUE, -flushBatchSize, -1);
+        if (entries == null || entries.isEmpty()) {
+            return 0;
+        }
+
+        // 队列左端为最新条目，从右向左即为写入顺序；同一ID以最后一次操作为准
+        Map<String, Boolean> operations = new LinkedHashMap<>();
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            String entry = entries.get(i);
+            String id = entry.substring(1);
+            operations.remove(id);
+            operations.put(id, entry.startsWith(UPSERT_PREFIX));
+        }
+        List<String> upserts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        operations.forEach((id, upsert) -> (upsert ? upserts : deletes).add(id));
+
+        if (!upserts.isEmpty()) {
+            upsertRecords(upserts);
+        }
+        if (!deletes.isEmpty()) {
+            historyMapper.deleteByIds(deletes);
+            deleteCounter.increment(deletes.size());
+        }
+
+        // 新条目只会从左端写入，裁剪右端已处理的部分不影响并发写入
+        stringRedisTemplate.opsForList().trim(RedisConstant.HISTORY_PERSIST_QUEUE, 0, -(entries.size() + 1));
+        return entries.size();
+    }
+
+    /**
+     * 从Redis读取记录正文，补齐去重存储的行程内容后多行写入MySQL；正文或内容已不存在（已删除）的记录跳过
+     */
+    private void upsertRecords(List<String> ids) {
+        List<byte[]> values = byteRedisTemplate.opsForValue()
+                .multiGet(ids.stream().map(id -> RedisConstant.ITINERARY_HISTORY_PREFIX + id).toList());
+        if (values == null) {
+            return;
+        }
+        List<ItineraryHistoryItem> items = new ArrayList<>(ids.size());
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) == null) {
+                continue;
+            }
+            try {
+                items.add(recordSerializer.deserialize(values.get(i)));
+            } catch (IOException e) {
+                log.error("落库时反序列化历史记录失败，ID: {}", ids.get(i));
+            }
+        }
+        items = contentStore.resolve(items);
+
+        for (int from = 0; from < items.size(); from += insertSize) {
+            List<ItineraryHistoryItem> chunk = items.subList(from, Math.min(from + insertSize, items.size()));
+            try {
+                historyMapper.upsertBatch(chunk);
+            } catch (Exception e) {
+                log.warn("批量写入历史记录失败，改为逐条写入，错误: {}", e.getMessage());
+                upsertOneByOne(chunk);
+            }
+            upsertCounter.increment(chunk.size());
+        }
+    }
+
+    /**
+     * 逐条写入以隔离异常数据；全部失败时视为数据库不可用并抛出，保留队列等待重试
+     */
+    private void upsertOneByOne(List<ItineraryHistoryItem> items) {
+        RuntimeException lastError = null;
+        int failed = 0;
+        for (ItineraryHistoryItem item : items) {
+            try {
+                historyMapper.upsertBatch(List.of(item));
+            } catch (RuntimeException e) {
+                failed++;
+                lastError = e;
+                log.error("写入历史记录失败，已跳过，ID: {}, 错误: {}", item.getId(), e.getMessage());
+            }
+        }
+        if (lastError != null && failed == items.size()) {
+            throw lastError;
+        }
+    }
+
+    /**
+     * 当前热数据水位
+     */
+    public long hotSince() {
+        return enabled ? hotSince : Long.MIN_VALUE;
+    }
+
+    /**
+     * 推进热数据水位，只会向后移动
+     *
+     * @param millis 新水位（毫秒），会向下对齐到整秒
+     */
+    public void advanceHotSince(long millis) {
+        long aligned = millis - Math.floorMod(millis, 1000L);
+        if (aligned <= hotSince) {
+            return;
+        }
+        stringRedisTemplate.opsForValue().set(RedisConstant.HISTORY_HOT_SINCE, String.valueOf(aligned));
+        hotSince = aligned;
+        log.info("热数据水位推进至: {}", format(aligned));
+    }
+
+    /**
+     * 刷新热数据水位，使其他节点推进的水位生效
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${history.persist.refresh-interval:10000}")
+    public void refreshHotSince() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            String value = stringRedisTemplate.opsForValue().get(RedisConstant.HISTORY_HOT_SINCE);
+            if (value != null) {
+                hotSince = Math.max(hotSince, Long.parseLong(value));
+            }
+        } catch (Exception e) {
+            log.warn("刷新热数据水位失败，错误: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按ID读取完整记录
+     */
+    public ItineraryHistoryItem selectById(String id) {
+        return enabled ? historyMapper.selectById(id) : null;
+    }
+
+    /**
+     * 按ID批量读取完整记录，不保证顺序
+     */
+    public List<ItineraryHistoryItem> selectByIds(Collection<String> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return historyMapper.selectByIds(ids);
+    }
+
+    /**
+     * 按ID批量读取记录摘要，不保证顺序
+     */
+    public List<ItineraryHistorySummary> selectSummariesByIds(Collection<String> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return historyMapper.selectList(summaryWrapper().in(ItineraryHistoryItem::getId, ids)).stream()
+                .map(HistoryDatabaseStore::toSummary)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 返回已落库的ID
+     */
+    public Set<String> selectPersistedIds(Collection<String> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return historyMapper.selectList(Wrappers.<ItineraryHistoryItem>lambdaQuery()
+                        .select(ItineraryHistoryItem::getId)
+                        .in(ItineraryHistoryItem::getId, ids)).stream()
+                .map(ItineraryHistoryItem::getId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 分页读取热数据水位之前的记录摘要，按创建时间、ID倒序
+     *
+     * @param condition 查询条件
+     * @param offset    跳过的记录数
+     * @param limit     读取的记录数
+     * @param count     是否统计总数
+     * @return 分页结果，未启用时为空页
+     */
+    public IPage<ItineraryHistorySummary> selectColdSummaryPage(ColdQuery condition, long offset, long limit,
+                                                                boolean count) {
+        OffsetPage<ItineraryHistoryItem> page = new OffsetPage<>(offset, limit, count);
+        if (enabled && hotSince != Long.MIN_VALUE) {
+            historyMapper.selectPage(page, coldWrapper(condition));
+        }
+        return page.convert(HistoryDatabaseStore::toSummary);
+    }
+
+    /**
+     * 按游标读取热数据水位之前的完整记录，按创建时间、ID倒序
+     *
+     * @param condition 查询条件，游标为空时从最新的冷数据开始
+     * @param limit     读取的记录数
+     */
+    public List<ItineraryHistoryItem> selectColdItems(ColdQuery condition, long limit) {
+        if (!enabled || hotSince == Long.MIN_VALUE) {
+            return new ArrayList<>();
+        }
+        return historyMapper.selectList(applyColdConditions(Wrappers.lambdaQuery(), condition)
+                .orderByDesc(ItineraryHistoryItem::getCreatedAt)
+                .orderByDesc(ItineraryHistoryItem::getId)
+                .last("LIMIT " + limit));
+    }
+
+    /**
+     * 读取热数据水位之前符合条件的最新若干条记录摘要，按创建时间、ID倒序
+     *
+     * @param condition 查询条件
+     * @param limit     读取的记录数上限
+     */
+    public List<ItineraryHistorySummary> selectColdSummaries(ColdQuery condition, long limit) {
+        if (!enabled || hotSince == Long.MIN_VALUE || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return historyMapper.selectList(coldWrapper(condition).last("LIMIT " + limit)).stream()
+                .map(HistoryDatabaseStore::toSummary)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 统计热数据水位之前符合条件的记录数量（忽略游标条件）
+     */
+    public long countCold(ColdQuery condition) {
+        if (!enabled || hotSince == Long.MIN_VALUE) {
+            return 0;
+        }
+        ColdQuery withoutCursor = new ColdQuery(condition.userId(), condition.title(), condition.username(),
+                condition.minMillis(), condition.maxMillis(), null, null);
+        return historyMapper.selectCount(applyColdConditions(Wrappers.lambdaQuery(), withoutCursor));
+    }
+
+    /**
+     * 按路线条件读取热数据水位之前的记录摘要，按出行日期、ID倒序，无出行日期的记录排在最后
+     *
+     * @param condition 路线条件，带游标时只读取游标之后的记录
+     * @param limit     读取的记录数
+     */
+    public List<ItineraryHistorySummary> selectColdRouteSummaries(ColdRouteQuery condition, long limit) {
+        if (!enabled || hotSince == Long.MIN_VALUE) {
+            return new ArrayList<>();
+        }
+        return historyMapper.selectList(applyRouteConditions(summaryWrapper(), condition)
+                        .orderByDesc(ItineraryHistoryItem::getTravelDate)
+                        .orderByDesc(ItineraryHistoryItem::getId)
+                        .last("LIMIT " + limit)).stream()
+                .map(HistoryDatabaseStore::toSummary)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 删除单条记录
+     */
+    public boolean deleteById(String id) {
+        return enabled && historyMapper.deleteById(id) > 0;
+    }
+
+    /**
+     * 删除给定记录
+     *
+     * @return 其中确实存在于数据库中并被删除的记录ID
+     */
+    public Set<String> deleteByIds(Collection<String> ids) {
+        Set<String> existing = selectPersistedIds(ids);
+        if (!existing.isEmpty()) {
+            historyMapper.deleteByIds(existing);
+        }
+        return existing;
+    }
+
+    /**
+     * 读取用户在数据库中的一批记录ID
+     */
+    public List<String> selectIdsByUserId(Integer userId, int limit) {
+        if (!enabled) {
+            return new ArrayList<>();
+        }
+        return historyMapper.selectList(Wrappers.<ItineraryHistoryItem>lambdaQuery()
+                        .select(ItineraryHistoryItem::getId)
+                        .eq(ItineraryHistoryItem::getUserId, userId)
+                        .last("LIMIT " + limit)).stream()
+                .map(ItineraryHistoryItem::getId)
+                .toList();
+    }
+
+    /**
+     * 统计用户创建时间早于热数据水位的记录数量
+     */
+    public long countColdByUserId(Integer userId) {
+        if (!enabled || hotSince == Long.MIN_VALUE) {
+            return 0;
+        }
+        return historyMapper.selectCount(Wrappers.<ItineraryHistoryItem>lambdaQuery()
+                .eq(ItineraryHistoryItem::getUserId, userId)
+                .lt(ItineraryHistoryItem::getCreatedAt, format(hotSince)));
+    }
+
+    private LambdaQueryWrapper<ItineraryHistoryItem> summaryWrapper() {
+        return Wrappers.<ItineraryHistoryItem>lambdaQuery()
+                .select(ItineraryHistoryItem::getId, ItineraryHistoryItem::getTitle, ItineraryHistoryItem::getCreatedAt,
+                        ItineraryHistoryItem::getUserId, ItineraryHistoryItem::getUsername,
+                        ItineraryHistoryItem::getStartPoint, ItineraryHistoryItem::getEndPoint,
+                        ItineraryHistoryItem::getTravelDate, ItineraryHistoryItem::getTravelMode,
+                        ItineraryHistoryItem::getDuration);
+    }
+
+    private LambdaQueryWrapper<ItineraryHistoryItem> coldWrapper(ColdQuery condition) {
+        return applyColdConditions(summaryWrapper(), condition)
+                .orderByDesc(ItineraryHistoryItem::getCreatedAt)
+                .orderByDesc(ItineraryHistoryItem::getId);
+    }
+
+    private LambdaQueryWrapper<ItineraryHistoryItem> applyColdConditions(LambdaQueryWrapper<ItineraryHistoryItem> wrapper,
+                                                                         ColdQuery condition) {
+        wrapper.lt(ItineraryHistoryItem::getCreatedAt, format(hotSince))
+                .eq(condition.userId() != null, ItineraryHistoryItem::getUserId, condition.userId())
+                .like(StringUtils.hasText(condition.title()), ItineraryHistoryItem::getTitle,
+                        condition.title() == null ? null : condition.title().trim())
+                .like(StringUtils.hasText(condition.username()), ItineraryHistoryItem::getUsername,
+                        condition.username() == null ? null : condition.username().trim())
+                .ge(condition.minMillis() != null, ItineraryHistoryItem::getCreatedAt, format(condition.minMillis()))
+                .le(condition.maxMillis() != null, ItineraryHistoryItem::getCreatedAt, format(condition.maxMillis()));
+
+        // 游标之后的记录：创建时间更早，或创建时间相同且ID更小
+        if (condition.cursorMillis() != null) {
+            String cursorTime = format(condition.cursorMillis());
+            wrapper.and(w -> w.lt(ItineraryHistoryItem::getCreatedAt, cursorTime)
+                    .or(o -> o.eq(ItineraryHistoryItem::getCreatedAt, cursorTime)
+                            .lt(ItineraryHistoryItem::getId, condition.cursorId())));
+        }
+        return wrapper;
+    }
+
+    private LambdaQueryWrapper<ItineraryHistoryItem> applyRouteConditions(LambdaQueryWrapper<ItineraryHistoryItem> wrapper,
+                                                                          ColdRouteQuery condition) {
+        wrapper.lt(ItineraryHistoryItem::getCreatedAt, format(hotSince))
+                .eq(condition.userId() != null, ItineraryHistoryItem::getUserId, condition.userId())
+                .eq(condition.startPoint() != null, ItineraryHistoryItem::getStartPoint, condition.startPoint())
+                .eq(condition.endPoint() != null, ItineraryHistoryItem::getEndPoint, condition.endPoint())
+                .eq(condition.travelMode() != null, ItineraryHistoryItem::getTravelMode, condition.travelMode())
+                .ge(condition.travelDateFrom() != null, ItineraryHistoryItem::getTravelDate, condition.travelDateFrom())
+                .le(condition.travelDateTo() != null, ItineraryHistoryItem::getTravelDate, condition.travelDateTo());
+
+        // 游标之后的记录：出行日期更早，或日期相同且ID更小；无出行日期的记录排在最后
+        if (condition.cursorId() != null) {
+            LocalDate cursorDate = condition.cursorDate();
+            if (cursorDate == null) {
+                wrapper.isNull(ItineraryHistoryItem::getTravelDate).lt(ItineraryHistoryItem::getId, condition.cursorId());
+            } else {
+                wrapper.and(w -> w.lt(ItineraryHistoryItem::getTravelDate, cursorDate)
+                        .or(o -> o.eq(ItineraryHistoryItem::getTravelDate, cursorDate)
+                                .lt(ItineraryHistoryItem::getId, condition.cursorId()))
+                        .or(o -> o.isNull(ItineraryHistoryItem::getTravelDate)));
+            }
+        }
+        return wrapper;
+    }
+
+    private static ItineraryHistorySummary toSummary(ItineraryHistoryItem item) {
+        return new ItineraryHistorySummary()
+                .setId(item.getId())
+                .setCreatedAt(item.getCreatedAt())
+                .setTitle(item.getTitle())
+                .setUserId(item.getUserId())
+                .setUsername(item.getUsername())
+                .setStartPoint(item.getStartPoint())
+                .setEndPoint(item.getEndPoint())
+                .setTravelDate(item.getTravelDate())
+                .setTravelMode(item.getTravelMode())
+                .setDuration(item.getDuration());
+    }
+
+    private static String format(Long millis) {
+        if (millis == null) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()).format(FORMATTER);
+    }
+
+    /**
+     * 冷数据查询条件，为空的条件不生效
+     *
+     * @param userId       用户ID
+     * @param title        标题关键字
+     * @param username     用户名关键字
+     * @param minMillis    创建时间下限（含）
+     * @param maxMillis    创建时间上限（含）
+     * @param cursorMillis 游标位置的创建时间
+     * @param cursorId     游标位置的记录ID
+     */
+    public record ColdQuery(Integer userId, String title, String username, Long minMillis, Long maxMillis,
+                            Long cursorMillis, String cursorId) {
+
+        public static ColdQuery all() {
+            return new ColdQuery(null, null, null, null, null, null, null);
+        }
+
+        public static ColdQuery ofUser(Integer userId) {
+            return new ColdQuery(userId, null, null, null, null, null, null);
+        }
+
+        public static ColdQuery ofTitle(String title) {
+            return new ColdQuery(null, title, null, null, null, null, null);
+        }
+    }
+
+    /**
+     * 冷数据路线查询条件，为空的条件不生效；地点及出行方式已规范化
+     *
+     * @param userId         用户ID
+     * @param startPoint     出发地
+     * @param endPoint       目的地
+     * @param travelMode     出行方式
+     * @param travelDateFrom 出行日期下限（含）
+     * @param travelDateTo   出行日期上限（含）
+     * @param cursorDate     游标位置的出行日期，游标记录无出行日期时为空
+     * @param cursorId       游标位置的记录ID，为空时不使用游标
+     */
+    public record ColdRouteQuery(Integer userId, String startPoint, String endPoint, String travelMode,
+                                 LocalDate travelDateFrom, LocalDate travelDateTo,
+                                 LocalDate cursorDate, String cursorId) {
+    }
+
+    /**
+     * 支持任意偏移量的分页参数，热数据之后的剩余偏移量不一定是页大小的整数倍
+     */
+    private static class OffsetPage<T> extends Page<T> {
+
+        private final long offset;
+
+        OffsetPage(long offset, long size, boolean searchCount) {
+            super(1, size, searchCount);
+            this.offset = offset;
+        }
+
+        @Override
+        public long offset() {
+            return offset;
+        }
+    }
+}
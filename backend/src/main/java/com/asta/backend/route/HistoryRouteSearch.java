@@ -0,0 +1,291 @@
+package com.asta.backend.route;
+
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.entity.po.ItineraryHistorySummary;
+import com.asta.backend.entity.query.ItineraryHistoryQuery;
+import com.asta.backend.entity.vo.HistoryStatsVO;
+import com.asta.backend.entity.vo.ItineraryHistorySummaryVO;
+import com.asta.backend.entity.vo.PageVO;
+import com.asta.backend.persist.HistoryDatabaseStore;
+import com.asta.backend.persist.HistoryDatabaseStore.ColdRouteQuery;
+import com.asta.backend.stats.HistoryRouteStats;
+import com.asta.backend.store.HistoryRedisStore;
+import com.asta.backend.utils.HistoryRecordUtil;
+import com.asta.backend.utils.RouteIndexUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 历史记录路线查询及热门路线统计
+ * <p>
+ * 按出发地、目的地、出行方式及出行日期查询时使用路线索引，多个条件求交集；
+ * 存在已淘汰的冷数据时与数据库结果按出行日期合并。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Component
+@RequiredArgsConstructor
+public class HistoryRouteSearch {
+
+    /**
+     * 热门路线统计返回的最大排行数量
+     */
+    private static final int STATS_MAX_LIMIT = 100;
+
+    /**
+     * 路线查询结果的排序：出行日期、ID倒序，无出行日期的记录排在最后
+     */
+    private static final Comparator<ItineraryHistorySummary> ROUTE_ORDER = Comparator
+            .comparingDouble((ItineraryHistorySummary summary) -> RouteIndexUtil.score(summary.getTravelDate()))
+            .thenComparing(ItineraryHistorySummary::getId)
+            .reversed();
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final HistoryRouteStats routeStats;
+    private final HistoryDatabaseStore databaseStore;
+    private final HistoryRedisStore redisStore;
+
+    /**
+     * 每次读取路线索引的条目数量上限
+     */
+    @Value("${history.redis.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * 按路线条件分页查询，按出行日期倒序
+     */
+    public PageVO<ItineraryHistorySummaryVO> search(ItineraryHistoryQuery query) {
+        LocalDate dateFrom = RouteIndexUtil.parseTravelDate(query.getTravelDateFrom());
+        LocalDate dateTo = RouteIndexUtil.parseTravelDate(query.getTravelDateTo());
+        List<String> keys = RouteIndexUtil.queryKeys(query.getStartPoint(), query.getEndPoint(), query.getTravelMode(),
+                dateFrom != null || dateTo != null);
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("请至少指定出发地、目的地、出行方式或出行日期之一");
+        }
+        if (query.getUserId() != null) {
+            keys.add(RedisConstant.USER_TIME_INDEX_PREFIX + query.getUserId());
+        }
+
+        int pageSize = query.getPageSize();
+        RouteCursor cursor = StringUtils.hasText(query.getCursor()) ? RouteCursor.decode(query.getCursor()) : null;
+        long skip = cursor == null ? (long) (query.getPageIndex() - 1) * pageSize : 0;
+
+        // 热数据与数据库中的冷数据按出行日期交错，存在冷数据时偏移量只能作用于合并结果，深分页应使用游标
+        boolean hasColdRange = redisStore.hasColdRange(Double.NEGATIVE_INFINITY);
+        long mergeSkip = hasColdRange ? skip : 0;
+        long count = mergeSkip + pageSize + 1;
+
+        // 多个条件时求交集，其余索引权重为0，结果score仍为出行日期
+        String indexKey = keys.size() == 1 ? keys.get(0) : redisStore.intersectIndex(keys);
+        try {
+            // 多取一条用于判断是否有下一页
+            List<ItineraryHistorySummary> candidates = readRouteIndex(indexKey, query, dateFrom, dateTo,
+                    cursor, hasColdRange ? 0 : skip, count);
+            if (hasColdRange) {
+                ColdRouteQuery coldQuery = new ColdRouteQuery(query.getUserId(),
+                        RouteIndexUtil.normalizePlace(query.getStartPoint()), RouteIndexUtil.normalizePlace(query.getEndPoint()),
+                        RouteIndexUtil.normalizeMode(query.getTravelMode()), dateFrom, dateTo,
+                        cursor == null ? null : cursor.date(), cursor == null ? null : cursor.id());
+                candidates.addAll(databaseStore.selectColdRouteSummaries(coldQuery, count));
+                // 合并后按出行日期、ID倒序，与索引及数据库的排序一致
+                candidates.sort(ROUTE_ORDER);
+            }
+            List<ItineraryHistorySummary> items = candidates.stream().skip(mergeSkip).limit(pageSize + 1L).toList();
+
+            String nextCursor = null;
+            if (items.size() > pageSize) {
+                items = items.subList(0, pageSize);
+                nextCursor = RouteCursor.of(items.get(pageSize - 1)).encode();
+            }
+            // 索引中可能残留已淘汰或覆盖写入前的条目，无法按索引精确计数，路线查询不统计总数
+            List<ItineraryHistorySummaryVO> pageData = items.stream()
+                    .map(HistoryRecordUtil::toSummaryVO).collect(Collectors.toList());
+            Long current = cursor == null ? (long) query.getPageIndex() : null;
+            return new PageVO<>(pageData, null, current, (long) pageSize, nextCursor);
+        } finally {
+            if (keys.size() > 1) {
+                stringRedisTemplate.delete(indexKey);
+            }
+        }
+    }
+
+    /**
+     * 统计时间窗口内的热门目的地、路线及出行方式
+     *
+     * @param window 时间窗口，为空时为 week
+     * @param limit  每项排行数量，为空或非正数时为10，不超过 {@link #STATS_MAX_LIMIT}
+     */
+    public HistoryStatsVO stats(String window, Integer limit) {
+        HistoryRouteStats.Window statsWindow = HistoryRouteStats.Window.of(StringUtils.hasText(window) ? window : "week");
+        int k = limit == null || limit <= 0 ? 10 : Math.min(limit, STATS_MAX_LIMIT);
+
+        HistoryStatsVO vo = new HistoryStatsVO();
+        vo.setWindow(statsWindow.name().toLowerCase(Locale.ROOT));
+        routeStats.top(HistoryRouteStats.DIMENSION_DESTINATION, statsWindow, k)
+                .forEach((name, count) -> vo.getDestinations().add(new HistoryStatsVO.RankItem(name, count)));
+        routeStats.top(HistoryRouteStats.DIMENSION_ROUTE, statsWindow, k)
+                .forEach((name, count) -> vo.getRoutes().add(new HistoryStatsVO.RankItem(name, count)));
+        routeStats.top(HistoryRouteStats.DIMENSION_MODE, statsWindow, k)
+                .forEach((name, count) -> vo.getTravelModes().add(new HistoryStatsVO.RankItem(name, count)));
+        return vo;
+    }
+
+    /**
+     * 按出行日期、ID倒序从路线索引读取满足条件的热数据记录摘要
+     * <p>
+     * 按排名区间读取：带游标时从游标记录的排名之后开始，否则跳过日期上限之后的条目及偏移量，
+     * 每页只读取页大小附近的条目，与翻页深度无关。游标记录已被删除时退化为从游标日期开始读取并跳过同日期的已读条目。
+     * 已落在热数据水位之前的记录由数据库部分返回，覆盖写入残留的旧索引通过摘要校验过滤。
+     * </p>
+     *
+     * @param skip  跳过的索引条目数量
+     * @param count 需要的记录数量
+     */
+    private List<ItineraryHistorySummary> readRouteIndex(String indexKey, ItineraryHistoryQuery query,
+                                                         LocalDate dateFrom, LocalDate dateTo, RouteCursor cursor,
+                                                         long skip, long count) {
+        ZSetOperations<String, String> zSet = stringRedisTemplate.opsForZSet();
+        // 索引score为出行日期的纪元日，日期范围直接转换为score区间
+        double min = dateFrom == null ? Double.NEGATIVE_INFINITY : dateFrom.toEpochDay();
+        double max = dateTo == null ? Double.POSITIVE_INFINITY : dateTo.toEpochDay();
+
+        long start;
+        RouteCursor tieFilter = null;
+        if (cursor != null) {
+            Long rank = zSet.reverseRank(indexKey, cursor.id());
+            Double score = zSet.score(indexKey, cursor.id());
+            if (rank != null && score != null && score == cursor.score()) {
+                start = rank + 1;
+            } else {
+                start = countAbove(indexKey, cursor.score());
+                tieFilter = cursor;
+            }
+        } else {
+            start = countAbove(indexKey, max) + skip;
+        }
+
+        long hotSince = databaseStore.hotSince();
+        int chunkSize = (int) Math.min(count, batchSize);
+        List<ItineraryHistorySummary> result = new ArrayList<>();
+        while (result.size() < count) {
+            Set<ZSetOperations.TypedTuple<String>> tuples = zSet.reverseRangeWithScores(indexKey, start, start + chunkSize - 1);
+            if (tuples == null || tuples.isEmpty()) {
+                break;
+            }
+            start += tuples.size();
+
+            List<String> ids = new ArrayList<>(tuples.size());
+            boolean belowMin = false;
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                double score = tuple.getScore() == null ? Double.NEGATIVE_INFINITY : tuple.getScore();
+                if (score < min) {
+                    belowMin = true;
+                    break;
+                }
+                if (tieFilter == null || tieFilter.isBefore(score, tuple.getValue())) {
+                    ids.add(tuple.getValue());
+                }
+            }
+            for (ItineraryHistorySummary summary : redisStore.getSummariesByIds(ids)) {
+                if (matchesRoute(summary, query, dateFrom, dateTo)
+                        && (hotSince == Long.MIN_VALUE || HistoryRecordUtil.toEpochMilli(summary.getCreatedAt()) >= hotSince)) {
+                    result.add(summary);
+                    if (result.size() >= count) {
+                        break;
+                    }
+                }
+            }
+            if (belowMin || tuples.size() < chunkSize) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 路线索引中出行日期晚于给定score的条目数量，即按倒序排列时该score之前的条目数量
+     */
+    private long countAbove(String indexKey, double score) {
+        if (score == Double.POSITIVE_INFINITY) {
+            return 0;
+        }
+        Long count = stringRedisTemplate.opsForZSet().count(indexKey, Math.nextUp(score), Double.POSITIVE_INFINITY);
+        return count == null ? 0L : count;
+    }
+
+    /**
+     * 校验候选记录是否满足路线条件
+     */
+    private static boolean matchesRoute(ItineraryHistorySummary summary, ItineraryHistoryQuery query,
+                                        LocalDate dateFrom, LocalDate dateTo) {
+        String startPoint = RouteIndexUtil.normalizePlace(query.getStartPoint());
+        String endPoint = RouteIndexUtil.normalizePlace(query.getEndPoint());
+        String travelMode = RouteIndexUtil.normalizeMode(query.getTravelMode());
+        if (startPoint != null && !startPoint.equals(summary.getStartPoint())) {
+            return false;
+        }
+        if (endPoint != null && !endPoint.equals(summary.getEndPoint())) {
+            return false;
+        }
+        if (travelMode != null && !travelMode.equals(summary.getTravelMode())) {
+            return false;
+        }
+        if (query.getUserId() != null && !query.getUserId().equals(summary.getUserId())) {
+            return false;
+        }
+        if (dateFrom != null || dateTo != null) {
+            double score = RouteIndexUtil.score(summary.getTravelDate());
+            return (dateFrom == null || score >= dateFrom.toEpochDay()) && (dateTo == null || score <= dateTo.toEpochDay());
+        }
+        return true;
+    }
+
+    /**
+     * 路线查询游标：上一页最后一条记录的出行日期score及ID，排序规则与时间索引游标相同
+     */
+    private record RouteCursor(double score, String id) {
+
+        static RouteCursor of(ItineraryHistorySummary summary) {
+            return new RouteCursor(RouteIndexUtil.score(summary.getTravelDate()), summary.getId());
+        }
+
+        String encode() {
+            String raw = (Double.isInfinite(score) ? "-inf" : String.valueOf((long) score)) + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static RouteCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(':');
+                String score = raw.substring(0, separator);
+                return new RouteCursor("-inf".equals(score) ? Double.NEGATIVE_INFINITY : Long.parseLong(score),
+                        raw.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("无效的分页游标: " + cursor);
+            }
+        }
+
+        /**
+         * 游标位置的出行日期，无出行日期时为空
+         */
+        LocalDate date() {
+            return Double.isInfinite(score) ? null : LocalDate.ofEpochDay((long) score);
+        }
+
+        boolean isBefore(double tupleScore, String member) {
+            return tupleScore < score || (tupleScore == score && member.compareTo(id) < 0);
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package com.asta.backend.search;
+
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.asta.backend.utils.NGramUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 行程内容全文索引（进程内，BM25排序）
+ * <p>
+ * 倒排表按文档编号递增追加，以变长整数差值编码存储以节省堆内存；
+ * 删除只做标记，删除比例超过阈值后整体压缩；记录内容变更时标记删除旧文档并追加新文档。
+ * 索引定期快照到本地磁盘，重启后加载快照并从水位线之后增量同步即可。
+ * </p>
+ * <p>
+ * 内存占用约为每个文档 150 字节的ID及元数据，加上倒排表中每个不同词项 2~3 字节；
+ * 行程正文约 2KB 时每个文档合计约 3KB，默认上限 20000 个文档约占 60MB 堆内存。
+ * 文档数量超过 history.fulltext.max-docs 时按索引先后淘汰最早的文档，检索只覆盖最近的记录。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+public class ItineraryFullTextIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    /**
+     * 记录没有关联用户时的占位用户ID
+     */
+    private static final int NO_USER = Integer.MIN_VALUE;
+
+    /**
+     * 快照文件标识及版本
+     */
+    private static final int FILE_MAGIC = 0x46545832;
+
+    /**
+     * 删除文档数量超过总数该比例时触发压缩
+     */
+    private static final double COMPACT_RATIO = 0.2;
+    private static final int COMPACT_MIN_DELETED = 64;
+
+    @Value("${history.fulltext.path:data/fulltext.idx}")
+    private String indexPath;
+
+    @Value("${history.fulltext.max-docs:20000}")
+    private int maxDocs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    /**
+     * 文档编号 -> 历史记录ID，已删除的文档为null
+     */
+    private final List<String> docIds = new ArrayList<>();
+    private final Map<String, Integer> docNos = new HashMap<>();
+    private int[] docLengths = new int[1024];
+    private int[] docUserIds = new int[1024];
+
+    /**
+     * 文档内容指纹，内容未变化的重复写入不重建文档
+     */
+    private long[] docFingerprints = new long[1024];
+    private final Map<String, Postings> postings = new HashMap<>();
+    private long totalLength;
+    private int liveDocs;
+    private int deletedDocs;
+
+    /**
+     * 淘汰扫描的起始文档编号，之前的文档均已删除
+     */
+    private int evictFrom;
+
+    /**
+     * 已同步到的时间索引score，用于增量同步
+     */
+    private long watermark = Long.MIN_VALUE;
+
+    /**
+     * 将历史记录加入索引；记录已存在且内容有变化（覆盖写入）时替换原文档
+     * @param item 历史记录
+     */
+    public void index(ItineraryHistoryItem item) {
+        String text = Objects.toString(item.getTitle(), "") + "\n" + Objects.toString(item.getGeneratedItinerary(), "");
+        int userId = item.getUserId() != null ? item.getUserId() : NO_USER;
+        long fingerprint = fingerprint(text, userId);
+
+        lock.readLock().lock();
+        try {
+            Integer docNo = docNos.get(item.getId());
+            if (docNo != null && docFingerprints[docNo] == fingerprint) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<String> tokens = NGramUtil.fullTextTokens(text);
+        Map<String, Integer> termFreqs = new HashMap<>();
+        tokens.forEach(token -> termFreqs.merge(token, 1, Integer::sum));
+
+        lock.writeLock().lock();
+        try {
+            Integer previousDocNo = docNos.get(item.getId());
+            if (previousDocNo != null) {
+                if (docFingerprints[previousDocNo] == fingerprint) {
+                    return;
+                }
+                // 旧文档标记删除，其倒排项在压缩时清除
+                removeDoc(item.getId());
+            }
+            int docNo = docIds.size();
+            docIds.add(item.getId());
+            docNos.put(item.getId(), docNo);
+            ensureCapacity(docNo + 1);
+            docLengths[docNo] = tokens.size();
+            docUserIds[docNo] = userId;
+            docFingerprints[docNo] = fingerprint;
+            totalLength += tokens.size();
+            liveDocs++;
+            termFreqs.forEach((term, freq) -> postings.computeIfAbsent(term, k -> new Postings()).add(docNo, freq));
+            dirty.set(true);
+            evictOverflow();
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从索引中移除历史记录
+     * @param id 历史记录ID
+     */
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            if (removeDoc(id)) {
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 当前索引的文档数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 是否已索引该记录
+     */
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return docNos.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按BM25相关度检索
+     * @param keyword 检索关键字
+     * @param userId  用户ID，为空时全局检索
+     * @param limit   返回数量上限
+     * @return 按相关度降序排列的历史记录ID
+     */
+    public List<String> search(String keyword, Integer userId, int limit) {
+        Set<String> terms = new LinkedHashSet<>(NGramUtil.fullTextTokens(keyword));
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) {
+                return new ArrayList<>();
+            }
+            float avgLength = (float) totalLength / liveDocs;
+            Map<Integer, Float> scores = new HashMap<>();
+            for (String term : terms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                // 文档频率包含尚未压缩的已删除文档，仅轻微影响idf
+                int df = termPostings.size;
+                float idf = (float) Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+                termPostings.forEach((docNo, freq) -> {
+                    if (docIds.get(docNo) == null || (userId != null && docUserIds[docNo] != userId)) {
+                        return;
+                    }
+                    float norm = K1 * (1 - B + B * docLengths[docNo] / avgLength);
+                    scores.merge(docNo, idf * freq * (K1 + 1) / (freq + norm), Float::sum);
+                });
+            }
+
+            // 小顶堆保留得分最高的 limit 个文档
+            PriorityQueue<Map.Entry<Integer, Float>> topK = new PriorityQueue<>(Map.Entry.comparingByValue());
+            for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+                topK.offer(entry);
+                if (topK.size() > limit) {
+                    topK.poll();
+                }
+            }
+            LinkedList<String> result = new LinkedList<>();
+            while (!topK.isEmpty()) {
+                result.addFirst(docIds.get(topK.poll().getKey()));
+            }
+            return new ArrayList<>(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(long watermark) {
+        if (this.watermark != watermark) {
+            this.watermark = watermark;
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * 启动时加载磁盘快照，快照损坏时丢弃并等待从Redis全量同步
+     */
+    @PostConstruct
+    public void load() {
+        Path path = Paths.get(indexPath);
+        if (!Files.exists(path)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("快照文件格式不匹配");
+            }
+            watermark = in.readLong();
+            int docCount = in.readInt();
+            ensureCapacity(docCount);
+            for (int docNo = 0; docNo < docCount; docNo++) {
+                if (in.readBoolean()) {
+                    String id = in.readUTF();
+                    docIds.add(id);
+                    docNos.put(id, docNo);
+                    docUserIds[docNo] = in.readInt();
+                    docLengths[docNo] = in.readInt();
+                    docFingerprints[docNo] = in.readLong();
+                    totalLength += docLengths[docNo];
+                    liveDocs++;
+                } else {
+                    docIds.add(null);
+                    deletedDocs++;
+                }
+            }
+            int termCount = in.readInt();
+            for (int i = 0; i < termCount; i++) {
+                String term = in.readUTF();
+                Postings termPostings = new Postings();
+                termPostings.size = in.readInt();
+                termPostings.lastDoc = in.readInt();
+                termPostings.length = in.readInt();
+                termPostings.data = in.readNBytes(termPostings.length);
+                postings.put(term, termPostings);
+            }
+            log.info("加载全文索引快照成功，文档数量: {}，词项数量: {}", liveDocs, termCount);
+        } catch (IOException | RuntimeException e) {
+            log.warn("加载全文索引快照失败，将从Redis重新同步，错误: {}", e.getMessage());
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 定期将有变更的索引写入磁盘快照（先写临时文件再原子替换）
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${history.fulltext.flush-interval:60000}")
+    public void flush() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        Path path = Paths.get(indexPath).toAbsolutePath();
+        lock.readLock().lock();
+        try {
+            Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeLong(watermark);
+                out.writeInt(docIds.size());
+                for (int docNo = 0; docNo < docIds.size(); docNo++) {
+                    String id = docIds.get(docNo);
+                    out.writeBoolean(id != null);
+                    if (id != null) {
+                        out.writeUTF(id);
+                        out.writeInt(docUserIds[docNo]);
+                        out.writeInt(docLengths[docNo]);
+                        out.writeLong(docFingerprints[docNo]);
+                    }
+                }
+                out.writeInt(postings.size());
+                for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                    Postings termPostings = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(termPostings.size);
+                    out.writeInt(termPostings.lastDoc);
+                    out.writeInt(termPostings.length);
+                    out.write(termPostings.data, 0, termPostings.length);
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            log.error("写入全文索引快照失败，错误: {}", e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 标记删除文档（需持有写锁）
+     * @return 文档是否存在
+     */
+    private boolean removeDoc(String id) {
+        Integer docNo = docNos.remove(id);
+        if (docNo == null) {
+            return false;
+        }
+        docIds.set(docNo, null);
+        totalLength -= docLengths[docNo];
+        liveDocs--;
+        deletedDocs++;
+        dirty.set(true);
+        return true;
+    }
+
+    /**
+     * 文档数量超过上限时按文档编号从小到大（最早索引）淘汰（需持有写锁）
+     */
+    private void evictOverflow() {
+        while (liveDocs > maxDocs && evictFrom < docIds.size()) {
+            String id = docIds.get(evictFrom++);
+            if (id != null) {
+                removeDoc(id);
+            }
+        }
+    }
+
+    /**
+     * 删除比例超过阈值时压缩（需持有写锁）
+     */
+    private void compactIfNeeded() {
+        if (deletedDocs >= COMPACT_MIN_DELETED && deletedDocs > docIds.size() * COMPACT_RATIO) {
+            compact();
+        }
+    }
+
+    /**
+     * 去除已删除文档并重新编号（需持有写锁）
+     */
+    private void compact() {
+        int[] mapping = new int[docIds.size()];
+        List<String> liveIds = new ArrayList<>(liveDocs);
+        int[] lengths = new int[Math.max(liveDocs, 1024)];
+        int[] userIds = new int[Math.max(liveDocs, 1024)];
+        long[] fingerprints = new long[Math.max(liveDocs, 1024)];
+        for (int docNo = 0; docNo < docIds.size(); docNo++) {
+            String id = docIds.get(docNo);
+            if (id == null) {
+                mapping[docNo] = -1;
+                continue;
+            }
+            int newDocNo = liveIds.size();
+            mapping[docNo] = newDocNo;
+            liveIds.add(id);
+            lengths[newDocNo] = docLengths[docNo];
+            userIds[newDocNo] = docUserIds[docNo];
+            fingerprints[newDocNo] = docFingerprints[docNo];
+            docNos.put(id, newDocNo);
+        }
+
+        Iterator<Map.Entry<String, Postings>> iterator = postings.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Postings> entry = iterator.next();
+            Postings compacted = new Postings();
+            entry.getValue().forEach((docNo, freq) -> {
+                if (mapping[docNo] >= 0) {
+                    compacted.add(mapping[docNo], freq);
+                }
+            });
+            if (compacted.size == 0) {
+                iterator.remove();
+            } else {
+                entry.setValue(compacted);
+            }
+        }
+
+        docIds.clear();
+        docIds.addAll(liveIds);
+        docLengths = lengths;
+        docUserIds = userIds;
+        docFingerprints = fingerprints;
+        deletedDocs = 0;
+        evictFrom = 0;
+        log.info("压缩全文索引完成，文档数量: {}，词项数量: {}", liveDocs, postings.size());
+    }
+
+    /**
+     * 清空索引（需持有写锁）
+     */
+    private void clear() {
+        docIds.clear();
+        docNos.clear();
+        postings.clear();
+        totalLength = 0;
+        liveDocs = 0;
+        deletedDocs = 0;
+        evictFrom = 0;
+        watermark = Long.MIN_VALUE;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > docLengths.length) {
+            int newCapacity = Math.max(capacity, docLengths.length * 2);
+            docLengths = Arrays.copyOf(docLengths, newCapacity);
+            docUserIds = Arrays.copyOf(docUserIds, newCapacity);
+            docFingerprints = Arrays.copyOf(docFingerprints, newCapacity);
+        }
+    }
+
+    /**
+     * 文档内容及所属用户的 FNV-1a 64位指纹
+     */
+    private static long fingerprint(String text, int userId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= userId;
+        hash *= 0x100000001b3L;
+        return hash;
+    }
+
+    @FunctionalInterface
+    private interface PostingConsumer {
+        void accept(int docNo, int freq);
+    }
+
+    /**
+     * 单个词项的倒排表：文档编号差值与词频依次以变长整数编码
+     */
+    private static final class Postings {
+
+        private byte[] data = new byte[16];
+        private int length;
+        private int size;
+        private int lastDoc = -1;
+
+        void add(int docNo, int freq) {
+            writeVarInt(docNo - lastDoc);
+            writeVarInt(freq);
+            lastDoc = docNo;
+            size++;
+        }
+
+        void forEach(PostingConsumer consumer) {
+            int pos = 0;
+            int docNo = -1;
+            for (int n = 0; n < size; n++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                int freq = 0;
+                shift = 0;
+                do {
+                    b = data[pos++];
+                    freq |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                docNo += delta;
+                consumer.accept(docNo, freq);
+            }
+        }
+
+        private void writeVarInt(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+}
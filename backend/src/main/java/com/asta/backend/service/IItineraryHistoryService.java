@@ -2,9 +2,18 @@ package com.asta.backend.service;
 
 import com.asta.backend.entity.po.ItineraryHistoryItem;
 import com.asta.backend.entity.query.ItineraryHistoryQuery;
+import com.asta.backend.entity.vo.HistoryDedupReportVO;
+import com.asta.backend.entity.vo.HistoryDeleteJobVO;
+import com.asta.backend.entity.vo.HistoryImportResultVO;
+import com.asta.backend.entity.vo.HistoryStatsVO;
+import com.asta.backend.entity.vo.ItineraryHistorySummaryVO;
 import com.asta.backend.entity.vo.ItineraryHistoryVO;
 import com.asta.backend.entity.vo.PageVO;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -23,6 +32,14 @@ public interface IItineraryHistoryService {
      */
     ItineraryHistoryVO saveHistory(ItineraryHistoryItem historyItem);
 
+    /**
+     * 批量导入历史记录，支持NDJSON（每行一条记录）或JSON数组，逐条校验后按批通过管道写入
+     *
+     * @param in 请求体输入流
+     * @return 导入结果，包含失败明细及导入速率
+     */
+    HistoryImportResultVO importHistory(InputStream in) throws IOException;
+
     /**
      * 根据ID删除历史记录
      *
@@ -39,6 +56,22 @@ public interface IItineraryHistoryService {
      */
     Long deleteHistoryByUserId(Integer userId);
 
+    /**
+     * 删除用户的所有历史记录，记录数超过阈值时转为后台任务
+     *
+     * @param userId 用户ID
+     * @return 删除结果，同步完成时状态为 COMPLETED，转为后台任务时返回任务ID
+     */
+    HistoryDeleteJobVO submitDeleteHistoryByUserId(Integer userId);
+
+    /**
+     * 查询后台删除任务进度
+     *
+     * @param jobId 任务ID
+     * @return 任务进度，任务不存在或已过期时为空
+     */
+    HistoryDeleteJobVO getDeleteJob(String jobId);
+
     /**
      * 根据ID查询历史记录
      *
@@ -51,30 +84,116 @@ public interface IItineraryHistoryService {
      * 根据用户ID查询历史记录列表
      *
      * @param userId 用户ID
-     * @return 历史记录列表
+     * @return 历史记录摘要列表，最新优先，最多 history.list.max-size 条
      */
-    List<ItineraryHistoryVO> getHistoryByUserId(Integer userId);
+    List<ItineraryHistorySummaryVO> getHistoryByUserId(Integer userId);
 
     /**
      * 分页查询历史记录
+     * <p>
+     * 需要统计总数时，总数为满足全部条件的记录数量；带标题、用户名条件时需校验候选记录，开销随候选数量增长。
+     * </p>
      *
      * @param query 查询参数
-     * @return 分页结果
+     * @return 分页结果（记录摘要）
      */
-    PageVO<ItineraryHistoryVO> getHistoryPage(ItineraryHistoryQuery query);
+    PageVO<ItineraryHistorySummaryVO> getHistoryPage(ItineraryHistoryQuery query);
 
     /**
      * 查询所有历史记录
      *
-     * @return 所有历史记录列表
+     * @return 所有历史记录摘要列表，最新优先，最多 history.list.max-size 条
      */
-    List<ItineraryHistoryVO> getAllHistory();
+    List<ItineraryHistorySummaryVO> getAllHistory();
+
+    /**
+     * 以NDJSON格式（每行一条记录）按创建时间倒序导出历史记录，逐批写出，内存占用与数据量无关
+     *
+     * @param userId  用户ID，为空时导出全部记录
+     * @param afterId 续传时上次收到的最后一条记录ID，为空时从头导出
+     * @param out     输出流，由调用方关闭
+     * @return 导出的记录数量
+     */
+    long exportHistory(Integer userId, String afterId, OutputStream out) throws IOException;
+
+    /**
+     * 按路线条件（出发地、目的地、出行方式、出行日期范围）分页查询历史记录，按出行日期倒序
+     * <p>
+     * 不统计总数（total 为空），通过 hasNext 判断是否有下一页；翻页应传入上一页返回的 nextCursor，
+     * 每页开销与翻页深度无关。
+     * </p>
+     *
+     * @param query 查询参数，至少包含一个路线条件，可附加用户ID
+     * @return 分页结果（记录摘要）
+     */
+    PageVO<ItineraryHistorySummaryVO> getHistoryByRoute(ItineraryHistoryQuery query);
+
+    /**
+     * 统计窗口内的热门目的地、路线及出行方式
+     *
+     * @param window 统计窗口：day、week、month，为空时为week
+     * @param limit  每项返回的排行数量，为空时为10
+     * @return 热门路线统计
+     */
+    HistoryStatsVO getRouteStats(String window, Integer limit);
+
+    /**
+     * 统计Redis中行程内容去重存储的内容数量、引用数量及节省的内存
+     *
+     * @return 去重效果统计
+     */
+    HistoryDedupReportVO getDedupReport();
 
     /**
      * 根据标题模糊查询历史记录
      *
      * @param title 标题关键字
-     * @return 匹配的历史记录列表
+     * @return 匹配的历史记录摘要列表，最新优先，最多 history.list.max-size 条
+     */
+    List<ItineraryHistorySummaryVO> getHistoryByTitle(String title);
+
+    /**
+     * 按行程内容全文检索历史记录
+     *
+     * @param keyword 检索关键字
+     * @param userId  用户ID，为空时全局检索
+     * @param limit   返回数量上限
+     * @return 按相关度降序排列的历史记录摘要列表
+     */
+    List<ItineraryHistorySummaryVO> searchFullText(String keyword, Integer userId, Integer limit);
+
+    /**
+     * 将时间索引中尚未进入本地全文索引的记录增量同步到全文索引
+     *
+     * @return 新增索引的记录数量
+     */
+    Long syncFullTextIndex();
+
+    /**
+     * 按记录当前内容刷新本地全文索引：已删除的记录移出索引，被覆盖写入的记录重建文档
+     *
+     * @param ids 历史记录ID列表
+     */
+    void refreshFullTextIndex(Collection<String> ids);
+
+    /**
+     * 通过SCAN遍历已有历史记录，重建时间索引、标题及用户名倒排索引和记录摘要
+     *
+     * @return 写入索引的记录数量
+     */
+    Long rebuildHistoryIndex();
+
+    /**
+     * 将创建时间早于热数据水位且已落库的记录从Redis淘汰，并推进热数据水位
+     *
+     * @return 淘汰的记录数量
+     */
+    Long evictColdHistory();
+
+    /**
+     * 将创建时间超过归档时长的记录正文写入本节点的归档段，并从Redis移除已落库记录的正文
+     *
+     * @return 归档的记录数量
      */
-    List<ItineraryHistoryVO> getHistoryByTitle(String title);
+    Long archiveHistoryBodies();
 }
@@ -29,4 +29,10 @@ public interface IUserService extends IService<User> {
      * @return 如果用户已存在，则注册失败，返回false
      */
     boolean register(RegisterQuery query);
+
+    /**
+     * 用户登出，吊销当前token
+     * @param token 用户token，无效或已过期时忽略
+     */
+    void logout(String token);
 }
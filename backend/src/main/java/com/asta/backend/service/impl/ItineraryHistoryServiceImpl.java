@@ -1,26 +1,57 @@
 package com.asta.backend.service.impl;
 
+import com.asta.backend.archive.HistoryArchiveStore;
+import com.asta.backend.cache.HistoryNearCache;
 import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.content.HistoryContentStore;
 import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.asta.backend.entity.po.ItineraryHistorySummary;
 import com.asta.backend.entity.query.ItineraryHistoryQuery;
+import com.asta.backend.entity.vo.HistoryDedupReportVO;
+import com.asta.backend.entity.vo.HistoryDeleteJobVO;
+import com.asta.backend.entity.vo.HistoryImportResultVO;
+import com.asta.backend.entity.vo.HistoryStatsVO;
+import com.asta.backend.entity.vo.ItineraryHistorySummaryVO;
 import com.asta.backend.entity.vo.ItineraryHistoryVO;
 import com.asta.backend.entity.vo.PageVO;
+import com.asta.backend.maintenance.HistoryMaintenance;
+import com.asta.backend.persist.HistoryDatabaseStore;
+import com.asta.backend.persist.HistoryDatabaseStore.ColdQuery;
+import com.asta.backend.route.HistoryRouteSearch;
+import com.asta.backend.search.ItineraryFullTextIndex;
 import com.asta.backend.service.IItineraryHistoryService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.asta.backend.stats.HistoryRouteStats;
+import com.asta.backend.store.HistoryCursor;
+import com.asta.backend.store.HistoryRedisStore;
+import com.asta.backend.transfer.HistoryTransfer;
+import com.asta.backend.utils.HistoryIdGenerator;
+import com.asta.backend.utils.HistoryRecordUtil;
+import com.asta.backend.utils.NGramUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 /**
  * 历史记录服务实现类
+ * <p>
+ * 负责单条读写、用户删除及列表、分页、文本查询的编排；Redis中的记录及索引读写见 {@link HistoryRedisStore}，
+ * 导入导出见 {@link HistoryTransfer}，路线查询及统计见 {@link HistoryRouteSearch}，
+ * 索引重建、冷数据淘汰、正文归档及全文索引同步见 {@link HistoryMaintenance}。
+ * </p>
  *
  * @author asta
  * @since 2025-07-04
@@ -30,66 +61,106 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ItineraryHistoryServiceImpl implements IItineraryHistoryService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ItineraryFullTextIndex fullTextIndex;
+    private final HistoryIdGenerator historyIdGenerator;
+    private final ThreadPoolTaskExecutor historyJobExecutor;
+    private final HistoryNearCache historyNearCache;
+    private final HistoryDatabaseStore databaseStore;
+    private final HistoryArchiveStore archiveStore;
+    private final HistoryRouteStats routeStats;
+    private final HistoryContentStore contentStore;
+    private final HistoryRedisStore redisStore;
+    private final HistoryTransfer transfer;
+    private final HistoryRouteSearch routeSearch;
+    private final HistoryMaintenance maintenance;
 
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    /**
+     * 后台删除任务进度的保留时间
+     */
+    private static final Duration DELETE_JOB_TTL = Duration.ofDays(1);
+
+    /**
+     * 批量读取、删除历史记录时每批的记录数量
+     */
+    @Value("${history.redis.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * 不分页的列表查询（全部、按用户、按标题）返回的记录数上限
+     */
+    @Value("${history.list.max-size:1000}")
+    private int listMaxSize;
+
+    /**
+     * 用户记录数超过该值时转为后台任务删除
+     */
+    @Value("${history.delete.async-threshold:1000}")
+    private long asyncDeleteThreshold;
 
     @Override
     public ItineraryHistoryVO saveHistory(ItineraryHistoryItem historyItem) {
         try {
-            // 生成唯一ID
-            if (!StringUtils.hasText(historyItem.getId())) {
-                historyItem.setId(generateHistoryId());
+            // 生成唯一ID；调用方指定ID时可能覆盖已有记录
+            boolean overwrite = StringUtils.hasText(historyItem.getId());
+            if (!overwrite) {
+                historyItem.setId(historyIdGenerator.nextId());
             }
 
             // 设置创建时间
             if (!StringUtils.hasText(historyItem.getCreatedAt())) {
-                historyItem.setCreatedAt(LocalDateTime.now().format(FORMATTER));
+                historyItem.setCreatedAt(LocalDateTime.now().format(HistoryRecordUtil.FORMATTER));
             }
-
-            // 保存到Redis
-            String key = RedisConstant.ITINERARY_HISTORY_PREFIX + historyItem.getId();
-            String jsonValue = objectMapper.writeValueAsString(historyItem);
-            redisTemplate.opsForValue().set(key, jsonValue);
-
-            // 添加到用户历史记录列表
-            if (historyItem.getUserId() != null) {
-                String userListKey = RedisConstant.USER_HISTORY_LIST_PREFIX + historyItem.getUserId();
-                redisTemplate.opsForList().leftPush(userListKey, historyItem.getId());
+            HistoryRecordUtil.normalizeRouteFields(historyItem);
+            contentStore.assign(historyItem);
+            List<ItineraryHistorySummary> previous = redisStore.save(historyItem, overwrite);
+
+            // 写入本地全文索引，覆盖写入时失效各节点的详情缓存
+            fullTextIndex.index(historyItem);
+            if (overwrite) {
+                historyNearCache.invalidate(List.of(historyItem.getId()));
             }
+            routeStats.record(previous, -1);
+            routeStats.record(List.of(HistoryRecordUtil.toSummary(historyItem)), 1);
 
             log.info("保存历史记录成功，ID: {}", historyItem.getId());
-            return convertToVO(historyItem);
+            return HistoryRecordUtil.toVO(historyItem);
 
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             log.error("保存历史记录失败，序列化错误: {}", e.getMessage());
             throw new RuntimeException("保存历史记录失败", e);
         }
     }
 
+    @Override
+    public HistoryImportResultVO importHistory(InputStream in) throws IOException {
+        return transfer.importHistory(in);
+    }
+
     @Override
     public Boolean deleteHistoryById(String id) {
         try {
-            String key = RedisConstant.ITINERARY_HISTORY_PREFIX + id;
-            
-            // 先获取历史记录以获取用户ID
-            ItineraryHistoryItem historyItem = getHistoryItemById(id);
-            if (historyItem == null) {
+            // 先获取记录摘要以获取用户ID及索引字段
+            List<ItineraryHistorySummary> summaries = redisStore.getSummariesByIds(List.of(id));
+            if (summaries.isEmpty()) {
                 return false;
             }
-
-            // 从Redis删除
-            Boolean deleted = redisTemplate.delete(key);
-
-            // 从用户历史记录列表中删除
-            if (historyItem.getUserId() != null) {
-                String userListKey = RedisConstant.USER_HISTORY_LIST_PREFIX + historyItem.getUserId();
-                redisTemplate.opsForList().remove(userListKey, 1, id);
+            long deleted = redisStore.delete(summaries.get(0));
+
+            // 立即从数据库删除，避免落库前回落读取到已删除的记录；队列中的删除条目保证与并发落库的先后顺序
+            boolean deletedFromDatabase = databaseStore.deleteById(id);
+            // 摘要或正文在Redis中被删除、或数据库中的记录被删除，说明本次删除了该记录；
+            // 正文已归档移出Redis的记录按摘要判断，并发重复删除时只有一方扣减路线统计
+            boolean removed = deleted > 0 || deletedFromDatabase;
+            if (removed) {
+                routeStats.record(summaries, -1);
             }
+            fullTextIndex.remove(id);
+            historyNearCache.invalidate(List.of(id));
+            archiveStore.delete(List.of(id));
 
             log.info("删除历史记录成功，ID: {}", id);
-            return deleted;
+            return removed;
 
         } catch (Exception e) {
             log.error("删除历史记录失败，ID: {}, 错误: {}", id, e.getMessage());
@@ -100,27 +171,7 @@ public class ItineraryHistoryServiceImpl implements IItineraryHistoryService {
     @Override
     public Long deleteHistoryByUserId(Integer userId) {
         try {
-            String userListKey = RedisConstant.USER_HISTORY_LIST_PREFIX + userId;
-            
-            // 获取用户所有历史记录ID
-            List<Object> historyIds = redisTemplate.opsForList().range(userListKey, 0, -1);
-            if (historyIds == null || historyIds.isEmpty()) {
-                return 0L;
-            }
-
-            long deletedCount = 0;
-            // 删除每个历史记录
-            for (Object idObj : historyIds) {
-                String id = idObj.toString();
-                String key = RedisConstant.ITINERARY_HISTORY_PREFIX + id;
-                if (redisTemplate.delete(key)) {
-                    deletedCount++;
-                }
-            }
-
-            // 删除用户历史记录列表
-            redisTemplate.delete(userListKey);
-
+            long deletedCount = deleteUserHistoryInBatches(userId, null);
             log.info("删除用户历史记录成功，用户ID: {}, 删除数量: {}", userId, deletedCount);
             return deletedCount;
 
@@ -131,31 +182,150 @@ public class ItineraryHistoryServiceImpl implements IItineraryHistoryService {
     }
 
     @Override
-    public ItineraryHistoryVO getHistoryById(String id) {
-        ItineraryHistoryItem historyItem = getHistoryItemById(id);
-        return historyItem != null ? convertToVO(historyItem) : null;
+    public HistoryDeleteJobVO submitDeleteHistoryByUserId(Integer userId) {
+        // 记录总数直接取用户时间索引的基数及数据库中冷数据的计数，无需遍历记录
+        Long hotTotal = stringRedisTemplate.opsForZSet().zCard(RedisConstant.USER_TIME_INDEX_PREFIX + userId);
+
+        HistoryDeleteJobVO job = new HistoryDeleteJobVO();
+        job.setUserId(userId);
+        job.setTotal((hotTotal == null ? 0L : hotTotal) + databaseStore.countColdByUserId(userId));
+        if (job.getTotal() <= asyncDeleteThreshold) {
+            job.setDeleted(deleteHistoryByUserId(userId));
+            job.setStatus(HistoryDeleteJobVO.STATUS_COMPLETED);
+            return job;
+        }
+
+        // 记录较多时转为后台任务，进度写入Redis供任意节点查询
+        String jobId = UUID.randomUUID().toString().replace("-", "");
+        String jobKey = RedisConstant.HISTORY_DELETE_JOB_PREFIX + jobId;
+        Map<String, String> fields = new HashMap<>();
+        fields.put("userId", String.valueOf(userId));
+        fields.put("status", HistoryDeleteJobVO.STATUS_RUNNING);
+        fields.put("total", String.valueOf(job.getTotal()));
+        fields.put("deleted", "0");
+        stringRedisTemplate.opsForHash().putAll(jobKey, fields);
+        stringRedisTemplate.expire(jobKey, DELETE_JOB_TTL);
+
+        historyJobExecutor.execute(() -> runDeleteJob(jobKey, userId));
+        log.info("提交用户历史记录删除任务，用户ID: {}, 任务ID: {}, 记录数量: {}", userId, jobId, job.getTotal());
+
+        job.setJobId(jobId);
+        job.setStatus(HistoryDeleteJobVO.STATUS_RUNNING);
+        job.setDeleted(0L);
+        return job;
     }
 
     @Override
-    public List<ItineraryHistoryVO> getHistoryByUserId(Integer userId) {
+    public HistoryDeleteJobVO getDeleteJob(String jobId) {
+        Map<Object, Object> fields = stringRedisTemplate.opsForHash()
+                .entries(RedisConstant.HISTORY_DELETE_JOB_PREFIX + jobId);
+        if (fields.isEmpty()) {
+            return null;
+        }
+        HistoryDeleteJobVO job = new HistoryDeleteJobVO();
+        job.setJobId(jobId);
+        job.setUserId(Integer.valueOf((String) fields.get("userId")));
+        job.setStatus((String) fields.get("status"));
+        job.setTotal(Long.valueOf((String) fields.get("total")));
+        job.setDeleted(Long.valueOf((String) fields.get("deleted")));
+        job.setMessage((String) fields.get("message"));
+        return job;
+    }
+
+    /**
+     * 执行后台删除任务，每批完成后更新进度
+     */
+    private void runDeleteJob(String jobKey, Integer userId) {
         try {
-            String userListKey = RedisConstant.USER_HISTORY_LIST_PREFIX + userId;
-            List<Object> historyIds = redisTemplate.opsForList().range(userListKey, 0, -1);
-            
-            if (historyIds == null || historyIds.isEmpty()) {
-                return new ArrayList<>();
-            }
+            long deletedCount = deleteUserHistoryInBatches(userId, deleted ->
+                    stringRedisTemplate.opsForHash().put(jobKey, "deleted", String.valueOf(deleted)));
+            stringRedisTemplate.opsForHash().put(jobKey, "status", HistoryDeleteJobVO.STATUS_COMPLETED);
+            log.info("用户历史记录删除任务完成，用户ID: {}, 删除数量: {}", userId, deletedCount);
+        } catch (Exception e) {
+            log.error("用户历史记录删除任务失败，用户ID: {}, 错误: {}", userId, e.getMessage());
+            stringRedisTemplate.opsForHash().put(jobKey, "status", HistoryDeleteJobVO.STATUS_FAILED);
+            stringRedisTemplate.opsForHash().put(jobKey, "message", String.valueOf(e.getMessage()));
+        }
+    }
 
-            List<ItineraryHistoryVO> result = new ArrayList<>();
-            for (Object idObj : historyIds) {
-                String id = idObj.toString();
-                ItineraryHistoryItem historyItem = getHistoryItemById(id);
-                if (historyItem != null) {
-                    result.add(convertToVO(historyItem));
+    /**
+     * 按用户时间索引分批删除用户的全部历史记录
+     * <p>
+     * 每批记录的正文、摘要通过UNLINK交由Redis后台释放内存，时间索引及倒排索引的清理在同一管道中提交，
+     * 同时删除数据库中的同一批记录；最后整体UNLINK用户历史列表及用户时间索引，再分批删除只存在于数据库中的记录。
+     * </p>
+     *
+     * @param progress 每批完成后回调累计删除数量，可为空
+     * @return 删除的记录数量，同时存在于Redis及数据库中的记录只计一次
+     */
+    private long deleteUserHistoryInBatches(Integer userId, LongConsumer progress) {
+        String userIndexKey = RedisConstant.USER_TIME_INDEX_PREFIX + userId;
+        long deletedCount = 0;
+        while (true) {
+            // 已删除的ID会从用户时间索引移除，因此每批都从头读取
+            Set<String> ids = stringRedisTemplate.opsForZSet().range(userIndexKey, 0, batchSize - 1);
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            List<String> idList = new ArrayList<>(ids);
+            List<ItineraryHistorySummary> summaries = redisStore.getSummariesByIds(idList);
+            List<Boolean> deletedFromRedis = redisStore.deleteBatch(userId, idList, summaries);
+            // 正文已归档移出Redis的记录按摘要计数，只在数据库中的记录按数据库删除结果计数
+            Set<String> deletedFromDatabase = databaseStore.deleteByIds(idList);
+            for (int i = 0; i < idList.size(); i++) {
+                if (deletedFromRedis.get(i) || deletedFromDatabase.contains(idList.get(i))) {
+                    deletedCount++;
                 }
             }
+            routeStats.record(summaries, -1);
+            idList.forEach(fullTextIndex::remove);
+            historyNearCache.invalidate(idList);
+            archiveStore.delete(idList);
 
-            return result;
+            if (progress != null) {
+                progress.accept(deletedCount);
+            }
+        }
+
+        redisStore.deleteUserIndexes(userId);
+
+
+        // 已淘汰出Redis的冷数据只存在于数据库中，分批删除，失效各节点的详情缓存，并标记各节点的归档正文已删除；
+        // Redis中的记录已在上面连同数据库一并删除，剩余的记录不会重复计数
+        while (true) {
+            List<String> coldIds = databaseStore.selectIdsByUserId(userId, batchSize);
+            if (coldIds.isEmpty()) {
+                break;
+            }
+            deletedCount += databaseStore.deleteByIds(coldIds).size();
+            historyNearCache.invalidate(coldIds);
+            archiveStore.delete(coldIds);
+            if (progress != null) {
+                progress.accept(deletedCount);
+            }
+        }
+        return deletedCount;
+    }
+
+    @Override
+    public ItineraryHistoryVO getHistoryById(String id) {
+        ItineraryHistoryItem historyItem = redisStore.getHistoryItemById(id);
+        return historyItem != null ? HistoryRecordUtil.toVO(historyItem) : null;
+    }
+
+    @Override
+    public List<ItineraryHistorySummaryVO> getHistoryByUserId(Integer userId) {
+        try {
+            // 热数据按用户时间索引倒序读取，其后为数据库中的冷数据，合计不超过列表上限
+            Set<String> historyIds = stringRedisTemplate.opsForZSet().reverseRangeByScore(
+                    RedisConstant.USER_TIME_INDEX_PREFIX + userId, redisStore.hotMin(), Double.POSITIVE_INFINITY, 0, listMaxSize);
+            List<ItineraryHistorySummary> summaries = historyIds == null
+                    ? new ArrayList<>() : redisStore.getSummariesByIds(new ArrayList<>(historyIds));
+            summaries.addAll(databaseStore.selectColdSummaries(ColdQuery.ofUser(userId), listMaxSize - summaries.size()));
+
+            return summaries.stream()
+                    .map(HistoryRecordUtil::toSummaryVO)
+                    .collect(Collectors.toList());
 
         } catch (Exception e) {
             log.error("查询用户历史记录失败，用户ID: {}, 错误: {}", userId, e.getMessage());
@@ -164,154 +334,332 @@ public class ItineraryHistoryServiceImpl implements IItineraryHistoryService {
     }
 
     @Override
-    public PageVO<ItineraryHistoryVO> getHistoryPage(ItineraryHistoryQuery query) {
+    public PageVO<ItineraryHistorySummaryVO> getHistoryPage(ItineraryHistoryQuery query) {
         try {
-            List<ItineraryHistoryVO> allHistory;
-            
-            if (query.getUserId() != null) {
-                // 按用户查询
-                allHistory = getHistoryByUserId(query.getUserId());
-            } else {
-                // 查询所有
-                allHistory = getAllHistory();
+            // 按用户查询时使用用户时间索引，否则使用全局时间索引
+            String timeIndexKey = query.getUserId() != null
+                    ? RedisConstant.USER_TIME_INDEX_PREFIX + query.getUserId()
+                    : RedisConstant.HISTORY_TIME_INDEX;
+
+            // 时间范围过滤直接转换为索引的score区间
+            double min = StringUtils.hasText(query.getStartTime())
+                    ? HistoryRecordUtil.parseQueryTime(query.getStartTime()) : Double.NEGATIVE_INFINITY;
+            double max = StringUtils.hasText(query.getEndTime())
+                    ? HistoryRecordUtil.parseQueryTime(query.getEndTime()) : Double.POSITIVE_INFINITY;
+
+            boolean textConditions = hasTextConditions(query);
+
+            // 有文本条件时先将时间索引与倒排索引求交集，得到按时间排序的候选集合
+            String indexKey = textConditions
+                    ? redisStore.intersectTextIndex(timeIndexKey, query.getTitle(), query.getUsername())
+                    : timeIndexKey;
+            try {
+                return readHistoryPage(query, indexKey, min, max, textConditions);
+            } finally {
+                if (textConditions) {
+                    stringRedisTemplate.delete(indexKey);
+                }
             }
 
-            // 过滤条件
-            List<ItineraryHistoryVO> filteredHistory = allHistory.stream()
-                    .filter(item -> filterByConditions(item, query))
-                    .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt())) // 按创建时间倒序
-                    .collect(Collectors.toList());
-
-            // 分页处理
-            int pageIndex = query.getPageIndex();
-            int pageSize = query.getPageSize();
-            long total = filteredHistory.size();
-
-            int startIndex = (pageIndex - 1) * pageSize;
-            int endIndex = Math.min(startIndex + pageSize, filteredHistory.size());
-            
-            List<ItineraryHistoryVO> pageData = startIndex < filteredHistory.size() 
-                    ? filteredHistory.subList(startIndex, endIndex) 
-                    : new ArrayList<>();
-
-            return new PageVO<>(pageData, total, (long) pageIndex, (long) pageSize);
-
         } catch (Exception e) {
             log.error("分页查询历史记录失败，错误: {}", e.getMessage());
             return new PageVO<>(new ArrayList<>(), 0L, (long) query.getPageIndex(), (long) query.getPageSize());
         }
     }
 
-    @Override
-    public List<ItineraryHistoryVO> getAllHistory() {
-        try {
-            Set<String> keys = redisTemplate.keys(RedisConstant.ITINERARY_HISTORY_PREFIX + "*");
-            if (keys.isEmpty()) {
-                return new ArrayList<>();
+    /**
+     * 按时间倒序从索引中读取一页记录
+     *
+     * @param query          查询参数
+     * @param indexKey       时间索引或文本检索得到的候选集合
+     * @param min            创建时间下限
+     * @param max            创建时间上限
+     * @param textConditions 是否需要校验标题、用户名条件（双字交集可能存在误命中）
+     */
+    private PageVO<ItineraryHistorySummaryVO> readHistoryPage(ItineraryHistoryQuery query, String indexKey,
+                                                              double min, double max, boolean textConditions) {
+        int pageSize = query.getPageSize();
+
+        // 游标模式从游标位置续读；偏移量模式跳过前面的页
+        HistoryCursor cursor = StringUtils.hasText(query.getCursor()) ? HistoryCursor.decode(query.getCursor()) : null;
+        long skip = cursor == null ? (long) (query.getPageIndex() - 1) * pageSize : 0;
+        double readMax = cursor == null ? max : Math.min(max, cursor.score());
+
+        // 早于热数据水位的记录已从Redis淘汰，Redis只负责水位之后的部分
+        double hotMin = Math.max(min, redisStore.hotMin());
+
+        // 无文本条件时偏移量直接交给Redis，有文本条件时偏移量作用于匹配结果
+        long indexOffset = textConditions ? 0 : skip;
+        long matchSkip = textConditions ? skip : 0;
+        int chunkSize = textConditions ? batchSize : pageSize + 1;
+
+        // 多读取一条用于判断是否存在下一页
+        List<ItineraryHistorySummary> items = new ArrayList<>(pageSize + 1);
+        boolean hotExhausted = false;
+        while (items.size() <= pageSize) {
+            Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet()
+                    .reverseRangeByScoreWithScores(indexKey, hotMin, readMax, indexOffset, chunkSize);
+            if (tuples == null || tuples.isEmpty()) {
+                hotExhausted = true;
+                break;
             }
+            indexOffset += tuples.size();
 
-            List<ItineraryHistoryVO> result = new ArrayList<>();
-            for (String key : keys) {
-                Object value = redisTemplate.opsForValue().get(key);
-                if (value != null) {
-                    try {
-                        ItineraryHistoryItem historyItem = objectMapper.readValue(value.toString(), ItineraryHistoryItem.class);
-                        result.add(convertToVO(historyItem));
-                    } catch (JsonProcessingException e) {
-                        log.warn("反序列化历史记录失败，key: {}", key);
-                    }
+            List<String> ids = new ArrayList<>(tuples.size());
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                if (cursor == null || cursor.isBefore(tuple)) {
+                    ids.add(tuple.getValue());
                 }
             }
 
-            return result.stream()
-                    .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                    .collect(Collectors.toList());
+            for (ItineraryHistorySummary item : redisStore.getSummariesByIds(ids)) {
+                if (textConditions && !filterByConditions(item, query)) {
+                    continue;
+                }
+                if (matchSkip > 0) {
+                    matchSkip--;
+                    continue;
+                }
+                items.add(item);
+                if (items.size() > pageSize) {
+                    break;
+                }
+            }
+
+            if (tuples.size() < chunkSize) {
+                hotExhausted = true;
+                break;
+            }
+        }
+
+        // 热数据不足一页时，剩余部分由数据库分页读取
+        boolean hasColdRange = redisStore.hasColdRange(min);
+        if (items.size() <= pageSize && hotExhausted && hasColdRange) {
+            long coldSkip = matchSkip;
+            if (!textConditions && items.isEmpty() && skip > 0) {
+                Long hotCount = stringRedisTemplate.opsForZSet().count(indexKey, hotMin, readMax);
+                coldSkip = Math.max(0, skip - (hotCount == null ? 0 : hotCount));
+            }
+            ColdQuery coldQuery = coldQuery(query, min, max, cursor);
+            items.addAll(databaseStore.selectColdSummaryPage(coldQuery, coldSkip, pageSize + 1L - items.size(), false)
+                    .getRecords());
+        }
+
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            ItineraryHistorySummary last = items.get(pageSize - 1);
+            nextCursor = new HistoryCursor(HistoryRecordUtil.toEpochMilli(last.getCreatedAt()), last.getId()).encode();
+        }
+
+        // 总数统计可选，统计范围为完整查询条件而非游标之后的部分
+        Long total = null;
+        if (query.isSearchCount()) {
+            total = textConditions && !isExactTextQuery(query)
+                    ? countTextMatches(query, indexKey, hotMin, max)
+                    : zCount(indexKey, hotMin, max);
+            if (hasColdRange) {
+                total += databaseStore.countCold(coldQuery(query, min, max, null));
+            }
+        }
+
+        List<ItineraryHistorySummaryVO> pageData = items.stream().map(HistoryRecordUtil::toSummaryVO).collect(Collectors.toList());
+        Long current = cursor == null ? (long) query.getPageIndex() : null;
+        return new PageVO<>(pageData, total, current, (long) pageSize, nextCursor);
+    }
+
+    /**
+     * 统计候选集合中真正满足标题、用户名条件的记录数量
+     * <p>
+     * 双字交集得到的候选可能误命中，逐批读取摘要校验后计数，与分页结果的过滤条件一致；
+     * 开销与候选集合大小成正比，调用方不需要总数时可关闭 searchCount。
+     * </p>
+     */
+    private long countTextMatches(ItineraryHistoryQuery query, String candidateKey, double min, double max) {
+        long matched = 0;
+        for (long offset = 0; ; offset += batchSize) {
+            Set<String> ids = stringRedisTemplate.opsForZSet().rangeByScore(candidateKey, min, max, offset, batchSize);
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            matched += redisStore.getSummariesByIds(new ArrayList<>(ids)).stream()
+                    .filter(item -> filterByConditions(item, query))
+                    .count();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 文本条件均不超过两个字时，候选集合即为精确结果，可直接计数
+     */
+    private static boolean isExactTextQuery(ItineraryHistoryQuery query) {
+        return NGramUtil.isExactQuery(query.getTitle()) && NGramUtil.isExactQuery(query.getUsername());
+    }
+
+    private long zCount(String key, double min, double max) {
+        Long count = stringRedisTemplate.opsForZSet().count(key, min, max);
+        return count == null ? 0L : count;
+    }
+
+    @Override
+    public List<ItineraryHistorySummaryVO> getAllHistory() {
+        try {
+            // 时间索引已按创建时间排序，倒序读取即为最新优先，其后为数据库中的冷数据，合计不超过列表上限
+            List<ItineraryHistorySummaryVO> result = toVOList(stringRedisTemplate.opsForZSet()
+                    .reverseRangeByScore(RedisConstant.HISTORY_TIME_INDEX, redisStore.hotMin(), Double.POSITIVE_INFINITY, 0, listMaxSize));
+            databaseStore.selectColdSummaries(ColdQuery.all(), listMaxSize - result.size()).forEach(
+                    summary -> result.add(HistoryRecordUtil.toSummaryVO(summary)));
+            return result;
 
         } catch (Exception e) {
             log.error("查询所有历史记录失败，错误: {}", e.getMessage());
             return new ArrayList<>();
         }
     }
+    @Override
+    public long exportHistory(Integer userId, String afterId, OutputStream out) throws IOException {
+        return transfer.exportHistory(userId, afterId, out);
+    }
+
+    @Override
+    public PageVO<ItineraryHistorySummaryVO> getHistoryByRoute(ItineraryHistoryQuery query) {
+        return routeSearch.search(query);
+    }
+
+
+    @Override
+    public HistoryDedupReportVO getDedupReport() {
+        HistoryDedupReportVO report = contentStore.report();
+        log.info("统计行程内容去重效果，内容数量: {}，引用数量: {}，节省: {} 字节", report.getUniqueContents(),
+                report.getReferences(), report.getSavedBytes());
+        return report;
+    }
+
+    @Override
+    public HistoryStatsVO getRouteStats(String window, Integer limit) {
+        return routeSearch.stats(window, limit);
+    }
+
 
     @Override
-    public List<ItineraryHistoryVO> getHistoryByTitle(String title) {
+    public List<ItineraryHistorySummaryVO> getHistoryByTitle(String title) {
         if (!StringUtils.hasText(title)) {
             return new ArrayList<>();
         }
 
-        return getAllHistory().stream()
-                .filter(item -> item.getTitle() != null && item.getTitle().toLowerCase().contains(title.toLowerCase()))
-                .collect(Collectors.toList());
+        String candidateKey = redisStore.intersectTextIndex(RedisConstant.HISTORY_TIME_INDEX, title, null);
+        try {
+            Set<String> ids = stringRedisTemplate.opsForZSet()
+                    .reverseRangeByScore(candidateKey, redisStore.hotMin(), Double.POSITIVE_INFINITY, 0, listMaxSize);
+            String keyword = title.trim().toLowerCase();
+            List<ItineraryHistorySummary> summaries = ids == null || ids.isEmpty()
+                    ? new ArrayList<>()
+                    : redisStore.getSummariesByIds(new ArrayList<>(ids)).stream()
+                    .filter(item -> item.getTitle() != null && item.getTitle().toLowerCase().contains(keyword))
+                    .collect(Collectors.toList());
+            summaries.addAll(databaseStore.selectColdSummaries(ColdQuery.ofTitle(title), listMaxSize - summaries.size()));
+            return summaries.stream()
+                    .map(HistoryRecordUtil::toSummaryVO)
+                    .collect(Collectors.toList());
+        } finally {
+            stringRedisTemplate.delete(candidateKey);
+        }
+    }
+
+    @Override
+    public List<ItineraryHistorySummaryVO> searchFullText(String keyword, Integer userId, Integer limit) {
+        if (!StringUtils.hasText(keyword)) {
+            return new ArrayList<>();
+        }
+
+        List<String> ids = fullTextIndex.search(keyword, userId, limit);
+        List<ItineraryHistorySummary> items = redisStore.getSummariesByIds(ids);
+
+        // 漏收失效消息时，其他节点删除的记录在此处惰性移出本地索引
+        if (items.size() < ids.size()) {
+            Set<String> found = items.stream().map(ItineraryHistorySummary::getId).collect(Collectors.toSet());
+            ids.stream().filter(id -> !found.contains(id)).forEach(fullTextIndex::remove);
+        }
+
+        return items.stream().map(HistoryRecordUtil::toSummaryVO).collect(Collectors.toList());
     }
 
+    @Override
+    public void refreshFullTextIndex(Collection<String> ids) {
+        maintenance.refreshFullTextIndex(ids);
+    }
+
+    @Override
+    public Long syncFullTextIndex() {
+        return maintenance.syncFullTextIndex();
+    }
+
+    @Override
+    public Long rebuildHistoryIndex() {
+        return maintenance.rebuildIndex();
+    }
+
+    @Override
+    public Long evictColdHistory() {
+        return maintenance.evictCold();
+    }
+
+    @Override
+    public Long archiveHistoryBodies() {
+        return maintenance.archiveBodies();
+    }
+
+
     /**
-     * 根据ID获取历史记录实体
+     * 按索引顺序读取历史记录摘要并转换为VO
      */
-    private ItineraryHistoryItem getHistoryItemById(String id) {
-        try {
-            String key = RedisConstant.ITINERARY_HISTORY_PREFIX + id;
-            Object value = redisTemplate.opsForValue().get(key);
-            
-            if (value != null) {
-                return objectMapper.readValue(value.toString(), ItineraryHistoryItem.class);
-            }
-            return null;
-
-        } catch (JsonProcessingException e) {
-            log.error("反序列化历史记录失败，ID: {}, 错误: {}", id, e.getMessage());
-            return null;
+    private List<ItineraryHistorySummaryVO> toVOList(Set<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
         }
+        return redisStore.getSummariesByIds(new ArrayList<>(ids)).stream()
+                .map(HistoryRecordUtil::toSummaryVO)
+                .collect(Collectors.toList());
     }
 
     /**
-     * 生成历史记录ID
+     * 将分页查询条件转换为冷数据查询条件
      */
-    private String generateHistoryId() {
-        Long counter = redisTemplate.opsForValue().increment(RedisConstant.HISTORY_ID_COUNTER);
-        return "HIST_" + System.currentTimeMillis() + "_" + counter;
+    private static ColdQuery coldQuery(ItineraryHistoryQuery query, double min, double max, HistoryCursor cursor) {
+        return new ColdQuery(query.getUserId(), query.getTitle(), query.getUsername(),
+                Double.isInfinite(min) ? null : (long) min,
+                Double.isInfinite(max) ? null : (long) max,
+                cursor == null ? null : (long) cursor.score(),
+                cursor == null ? null : cursor.id());
     }
 
     /**
-     * 转换为VO对象
+     * 是否包含需要读取记录后匹配的文本条件
      */
-    private ItineraryHistoryVO convertToVO(ItineraryHistoryItem item) {
-        ItineraryHistoryVO vo = new ItineraryHistoryVO();
-        vo.setId(item.getId());
-        vo.setGeneratedItinerary(item.getGeneratedItinerary());
-        vo.setCreatedAt(item.getCreatedAt());
-        vo.setTitle(item.getTitle());
-        vo.setUserId(item.getUserId());
-        vo.setUsername(item.getUsername());
-        return vo;
+    private boolean hasTextConditions(ItineraryHistoryQuery query) {
+        return StringUtils.hasText(query.getTitle()) || StringUtils.hasText(query.getUsername());
     }
 
     /**
-     * 根据查询条件过滤
+     * 根据标题、用户名条件校验候选记录（时间范围已由索引完成）
      */
-    private boolean filterByConditions(ItineraryHistoryVO item, ItineraryHistoryQuery query) {
+    private boolean filterByConditions(ItineraryHistorySummary item, ItineraryHistoryQuery query) {
         // 标题过滤
-        if (StringUtils.hasText(query.getTitle()) && 
-            (item.getTitle() == null || !item.getTitle().toLowerCase().contains(query.getTitle().toLowerCase()))) {
+        if (StringUtils.hasText(query.getTitle()) &&
+            (item.getTitle() == null || !item.getTitle().toLowerCase().contains(query.getTitle().trim().toLowerCase()))) {
             return false;
         }
 
         // 用户名过滤
-        if (StringUtils.hasText(query.getUsername()) && 
-            (item.getUsername() == null || !item.getUsername().toLowerCase().contains(query.getUsername().toLowerCase()))) {
-            return false;
-        }
-
-        // 时间范围过滤
-        if (StringUtils.hasText(query.getStartTime()) && 
-            item.getCreatedAt().compareTo(query.getStartTime()) < 0) {
-            return false;
-        }
-
-        if (StringUtils.hasText(query.getEndTime()) &&
-            item.getCreatedAt().compareTo(query.getEndTime()) > 0) {
+        if (StringUtils.hasText(query.getUsername()) &&
+            (item.getUsername() == null || !item.getUsername().toLowerCase().contains(query.getUsername().trim().toLowerCase()))) {
             return false;
         }
 
         return true;
     }
+
 }
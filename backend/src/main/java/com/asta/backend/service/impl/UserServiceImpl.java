@@ -1,5 +1,8 @@
 package com.asta.backend.service.impl;
 
+import com.asta.backend.auth.LoginUser;
+import com.asta.backend.auth.TokenRevocationList;
+import com.asta.backend.cache.UserDetailsCache;
 import com.asta.backend.entity.po.User;
 import com.asta.backend.entity.query.LoginQuery;
 import com.asta.backend.entity.query.RegisterQuery;
@@ -9,15 +12,18 @@ import com.asta.backend.service.IUserService;
 import com.asta.backend.utils.JwtUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+
 /**
  * <p>
  *  服务实现类
@@ -35,6 +41,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     private final UserMapper mapper;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenRevocationList revocationList;
 
     @Override
     public LoginVO login(LoginQuery query) {
@@ -47,21 +55,17 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
                 )
         );
 
-        // 2. 认证成功，从 Authentication 对象中获取 UserDetails
-        final UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-
-        // 3. 根据用户名查询完整的用户信息以获取用户ID
-        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("username", userDetails.getUsername());
-        User user = mapper.selectOne(queryWrapper);
+        // 2. 认证成功，主体为认证时查询到的用户，携带用户ID及角色
+        final LoginUser loginUser = (LoginUser) authentication.getPrincipal();
 
-        // 4. 生成JWT
-        final String token = jwtUtil.generateToken(userDetails);
+        // 3. 生成JWT，携带用户ID及角色供无状态认证使用
+        final String token = jwtUtil.generateToken(loginUser, loginUser.getUserId());
 
-        // 5. 封装返回结果
+        // 4. 封装返回结果
         LoginVO loginVO = new LoginVO();
-        loginVO.setUserId(user.getUserId());
-        loginVO.setUsername(userDetails.getUsername());
+        loginVO.setUserId(loginUser.getUserId());
+        loginVO.setUsername(loginUser.getUsername());
+        loginVO.setRole(loginUser.getRole());
         loginVO.setToken(token);
 
         return loginVO;
@@ -70,11 +74,13 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     @Override
     public boolean register(RegisterQuery query) {
 
-        // 1. 检查用户是否已经存在
+        // 1. 检查用户名或邮箱是否已被使用，只查询主键
         QueryWrapper<User> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("username", query.getUsername())
+        queryWrapper.select("user_id")
+                    .eq("username", query.getUsername())
                     .or()
-                    .eq("email", query.getEmail());
+                    .eq("email", query.getEmail())
+                    .last("LIMIT 1");
         User existingUser = mapper.selectOne(queryWrapper);
 
         // 2. 如果用户已存在，返回false
@@ -96,4 +102,67 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
 
         return result > 0;
     }
+
+    @Override
+    public void logout(String token) {
+        try {
+            Claims claims = jwtUtil.verify(token);
+            if (claims.getId() != null) {
+                revocationList.revokeToken(claims.getId(), claims.getExpiration());
+            }
+        } catch (JwtException | IllegalArgumentException e) {
+            // token 无效或已过期，无需吊销
+        }
+    }
+
+    /**
+     * 更新用户信息，角色、密码等变更后失效各节点的用户信息缓存，并吊销此前签发的token
+     */
+    @Override
+    public boolean updateById(User entity) {
+        // 更新内容可能不含用户名或修改了用户名，失效更新前的用户名
+        String username = selectUsername(entity.getUserId());
+        boolean updated = super.updateById(entity);
+        if (updated) {
+            invalidateUserDetails(username);
+            if (entity.getUsername() != null && !entity.getUsername().equals(username)) {
+                invalidateUserDetails(entity.getUsername());
+            }
+            // 无状态认证的token携带角色，密码、角色变更后需重新登录
+            if (username != null && (entity.getPassword() != null || entity.getRole() != null)) {
+                revocationList.revokeUser(username);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * 删除用户，同时失效各节点的用户信息缓存并吊销已签发的token
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        String username = selectUsername(id);
+        boolean removed = super.removeById(id);
+        if (removed && username != null) {
+            invalidateUserDetails(username);
+            revocationList.revokeUser(username);
+        }
+        return removed;
+    }
+
+    private String selectUsername(Serializable userId) {
+        if (userId == null) {
+            return null;
+        }
+        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("username").eq("user_id", userId);
+        User user = mapper.selectOne(queryWrapper);
+        return user == null ? null : user.getUsername();
+    }
+
+    private void invalidateUserDetails(String username) {
+        if (username != null) {
+            userDetailsCache.invalidate(username);
+        }
+    }
 }
@@ -0,0 +1,240 @@
+package com.asta.backend.stats;
+
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.entity.po.ItineraryHistorySummary;
+import com.asta.backend.utils.RouteIndexUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 路线热度统计
+ * <p>
+ * 按记录创建日期分桶，每天每个维度（目的地、出发地-目的地、出行方式）一个ZSET计数；
+ * 保存、删除时只在本地累加增量，定期通过管道批量ZINCRBY写入Redis。
+ * 查询窗口（天、周、月）时合并对应的日计数并短时缓存，Top-K读取为 O(log N + K)，与历史记录总量无关。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HistoryRouteStats {
+
+    public static final String DIMENSION_DESTINATION = "destination";
+    public static final String DIMENSION_ROUTE = "route";
+    public static final String DIMENSION_MODE = "mode";
+
+    private static final DateTimeFormatter CREATED_AT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter BUCKET_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+
+    /**
+     * 出发地-目的地在统计中的展示分隔符
+     */
+    private static final String ROUTE_SEPARATOR = "→";
+
+    /**
+     * 日计数的保留时间，需覆盖最长的统计窗口
+     */
+    private static final Duration DAY_BUCKET_TTL = Duration.ofDays(35);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 窗口汇总结果的缓存时间
+     */
+    @Value("${history.stats.window-cache-ttl:60s}")
+    private Duration windowCacheTtl;
+
+    /**
+     * 日计数键 -> (成员 -> 待写入的增量)
+     */
+    private volatile Map<String, Map<String, LongAdder>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 累加增量时持有读锁，写入Redis前替换待写入集合时持有写锁，保证增量不会丢失
+     */
+    private final ReadWriteLock pendingLock = new ReentrantReadWriteLock();
+
+    /**
+     * 统计窗口
+     */
+    public enum Window {
+        DAY(1), WEEK(7), MONTH(30);
+
+        private final int days;
+
+        Window(int days) {
+            this.days = days;
+        }
+
+        public static Window of(String name) {
+            try {
+                return Window.valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("不支持的统计窗口: " + name + "，可选 day、week、month");
+            }
+        }
+    }
+
+    /**
+     * 记录新增或删除的行程，只累加本地增量
+     *
+     * @param summaries 记录摘要
+     * @param delta     新增为1，删除为-1
+     */
+    public void record(Collection<ItineraryHistorySummary> summaries, long delta) {
+        for (ItineraryHistorySummary summary : summaries) {
+            LocalDate day = createdDay(summary.getCreatedAt());
+            if (day == null || day.isBefore(LocalDate.now().minusDays(DAY_BUCKET_TTL.toDays()))) {
+                continue;
+            }
+            String bucket = day.format(BUCKET_FORMATTER);
+            String origin = RouteIndexUtil.normalizePlace(summary.getStartPoint());
+            String destination = RouteIndexUtil.normalizePlace(summary.getEndPoint());
+            String mode = RouteIndexUtil.normalizeMode(summary.getTravelMode());
+            if (destination != null) {
+                add(DIMENSION_DESTINATION, bucket, destination, delta);
+            }
+            if (origin != null && destination != null) {
+                add(DIMENSION_ROUTE, bucket, origin + ROUTE_SEPARATOR + destination, delta);
+            }
+            if (mode != null) {
+                add(DIMENSION_MODE, bucket, mode, delta);
+            }
+        }
+    }
+
+    /**
+     * 读取窗口内计数最高的K项，按计数倒序
+     *
+     * @return 成员 -> 计数
+     */
+    public LinkedHashMap<String, Long> top(String dimension, Window window, int k) {
+        String windowKey = RedisConstant.ROUTE_STATS_WINDOW_PREFIX + dimension + ":" + window.name().toLowerCase(Locale.ROOT);
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(windowKey))) {
+            List<String> dayKeys = new ArrayList<>(window.days);
+            LocalDate today = LocalDate.now();
+            for (int i = 0; i < window.days; i++) {
+                dayKeys.add(dayKey(dimension, today.minusDays(i).format(BUCKET_FORMATTER)));
+            }
+            // 合并结果写入临时键后改名，避免并发查询读到合并到一半的结果
+            String tmpKey = windowKey + ":" + UUID.randomUUID();
+            stringRedisTemplate.opsForZSet().unionAndStore(dayKeys.get(0), dayKeys.subList(1, dayKeys.size()), tmpKey);
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(tmpKey))) {
+                stringRedisTemplate.expire(tmpKey, windowCacheTtl);
+                stringRedisTemplate.rename(tmpKey, windowKey);
+            }
+        }
+
+        LinkedHashMap<String, Long> result = new LinkedHashMap<>();
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                stringRedisTemplate.opsForZSet().reverseRangeByScoreWithScores(windowKey, 1, Double.POSITIVE_INFINITY, 0, k);
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                result.put(tuple.getValue(), tuple.getScore() == null ? 0L : tuple.getScore().longValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将本地累积的增量批量写入日计数，并清除计数已降为0的成员
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${history.stats.flush-interval:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, LongAdder>> drained;
+        pendingLock.writeLock().lock();
+        try {
+            drained = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            pendingLock.writeLock().unlock();
+        }
+
+        Map<String, Map<String, Long>> batch = new HashMap<>();
+        drained.forEach((key, counters) -> {
+            Map<String, Long> increments = new HashMap<>();
+            counters.forEach((member, adder) -> {
+                long value = adder.sum();
+                if (value != 0) {
+                    increments.put(member, value);
+                }
+            });
+            if (!increments.isEmpty()) {
+                batch.put(key, increments);
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                batch.forEach((key, increments) -> {
+                    increments.forEach((member, value) -> stringConnection.zIncrBy(key, value, member));
+                    if (increments.values().stream().anyMatch(value -> value < 0)) {
+                        stringConnection.zRemRangeByScore(key, Double.NEGATIVE_INFINITY, 0);
+                    }
+                    stringConnection.expire(key, DAY_BUCKET_TTL.getSeconds());
+                });
+                return null;
+            });
+        } catch (Exception e) {
+            // 写入失败时放回本地，下次重试
+            log.error("写入路线热度统计失败，错误: {}", e.getMessage());
+            batch.forEach((key, increments) -> increments.forEach((member, value) -> addTo(key, member, value)));
+        }
+    }
+
+    private void add(String dimension, String bucket, String member, long delta) {
+        addTo(dayKey(dimension, bucket), member, delta);
+    }
+
+    private void addTo(String key, String member, long delta) {
+        pendingLock.readLock().lock();
+        try {
+            pending.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(member, m -> new LongAdder())
+                    .add(delta);
+        } finally {
+            pendingLock.readLock().unlock();
+        }
+    }
+
+    private static String dayKey(String dimension, String bucket) {
+        return RedisConstant.ROUTE_STATS_DAY_PREFIX + dimension + ":" + bucket;
+    }
+
+    private static LocalDate createdDay(String createdAt) {
+        try {
+            return LocalDateTime.parse(createdAt, CREATED_AT_FORMATTER).toLocalDate();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
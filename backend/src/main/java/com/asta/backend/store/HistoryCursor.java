@@ -0,0 +1,39 @@
+package com.asta.backend.store;
+
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 时间索引游标：上一页（批）最后一条记录的创建时间及ID
+ * <p>
+ * 时间索引按 score 倒序、同 score 时按 member 字典序倒序排列，
+ * 因此下一页为 score 更小，或 score 相同且ID更小的记录。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+public record HistoryCursor(double score, String id) {
+
+    public String encode() {
+        String raw = (long) score + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static HistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new HistoryCursor(Long.parseLong(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+    }
+
+    public boolean isBefore(ZSetOperations.TypedTuple<String> tuple) {
+        double tupleScore = tuple.getScore() == null ? 0 : tuple.getScore();
+        return tupleScore < score || (tupleScore == score && tuple.getValue().compareTo(id) < 0);
+    }
+}
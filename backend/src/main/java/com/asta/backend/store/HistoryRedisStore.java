@@ -0,0 +1,685 @@
+package com.asta.backend.store;
+
+import com.asta.backend.archive.HistoryArchiveStore;
+import com.asta.backend.cache.HistoryNearCache;
+import com.asta.backend.codec.HistoryRecordSerializer;
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.content.HistoryContentStore;
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.asta.backend.entity.po.ItineraryHistorySummary;
+import com.asta.backend.persist.HistoryDatabaseStore;
+import com.asta.backend.utils.HistoryRecordUtil;
+import com.asta.backend.utils.NGramUtil;
+import com.asta.backend.utils.RouteIndexUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 历史记录Redis存储
+ * <p>
+ * 记录正文、摘要、用户历史列表、时间索引、路线索引及标题、用户名倒排索引的读写。
+ * 单条保存、删除通过脚本原子完成；批量导入在一个管道中逐条执行同一脚本。
+ * 正文已移出Redis的记录依次回落到本地归档及数据库读取。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HistoryRedisStore {
+
+    /**
+     * 文本检索临时交集键的过期时间，防止异常中断时残留
+     */
+    private static final Duration TEXT_QUERY_TTL = Duration.ofSeconds(60);
+
+    /**
+     * 保存、删除时记录的内容归属被并发修改后的最大重试次数
+     */
+    private static final int CONTENT_CONFLICT_RETRIES = 3;
+
+    /**
+     * 原子写入记录正文、摘要及全部索引的脚本
+     */
+    private static final RedisScript<Long> SAVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/history_save.lua"), Long.class);
+
+    /**
+     * 原子删除记录正文、摘要及全部索引的脚本
+     */
+    private static final RedisScript<Long> DELETE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/history_delete.lua"), Long.class);
+
+    private static final RedisSerializer<Long> SCRIPT_RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, byte[]> byteRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final HistoryRecordSerializer recordSerializer;
+    private final ObjectMapper objectMapper;
+    private final HistoryNearCache historyNearCache;
+    private final HistoryContentStore contentStore;
+    private final HistoryDatabaseStore databaseStore;
+    private final HistoryArchiveStore archiveStore;
+
+    /**
+     * 批量读取历史记录时单次MGET的键数量
+     */
+    @Value("${history.redis.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * 保存一条记录
+     * <p>
+     * 正文、摘要、内容引用、用户历史列表、时间索引、路线索引及标题、用户名倒排索引通过脚本一次原子写入；
+     * 覆盖写入时同一脚本内移除原记录不再适用的索引项。
+     * </p>
+     *
+     * @param item      已分配ID、创建时间及内容摘要的记录
+     * @param overwrite 调用方是否指定了ID（可能覆盖已有记录）
+     * @return 被覆盖的原记录摘要，没有时为空
+     */
+    public List<ItineraryHistorySummary> save(ItineraryHistoryItem item, boolean overwrite) throws IOException {
+        ItineraryHistorySummary summary = HistoryRecordUtil.toSummary(item);
+        for (int attempt = 1; ; attempt++) {
+            List<ItineraryHistorySummary> previous = overwrite ? getSummariesByIds(List.of(item.getId())) : List.of();
+            String previousHash = overwrite ? contentStore.ownerHash(item.getId()) : null;
+            StaleIndex stale = StaleIndex.of(previous.isEmpty() ? null : previous.get(0), summary);
+            Long result = byteRedisTemplate.execute(SAVE_SCRIPT, RedisSerializer.byteArray(), SCRIPT_RESULT_SERIALIZER,
+                    saveKeys(summary, item.getContentHash(), previousHash, stale),
+                    (Object[]) saveArgs(item, summary, previousHash, stale));
+            if (result == null || result >= 0) {
+                return previous;
+            }
+            // 读取原内容摘要后记录被并发覆盖写入，重新读取后重试
+            if (attempt >= CONTENT_CONFLICT_RETRIES) {
+                throw new IllegalStateException("保存历史记录失败，记录正在被并发修改，ID: " + item.getId());
+            }
+        }
+    }
+
+    /**
+     * 加载写入脚本并返回SHA，管道中只能通过EVALSHA执行
+     */
+    public String loadSaveScript() {
+        return byteRedisTemplate.execute((RedisCallback<String>) connection ->
+                connection.scriptingCommands().scriptLoad(utf8(SAVE_SCRIPT.getScriptAsString())));
+    }
+
+    /**
+     * 在一个管道中对整批记录执行写入脚本，每条记录仍原子写入正文、摘要、用户历史列表及全部索引
+     *
+     * @param saveSha      {@link #loadSaveScript()} 返回的脚本SHA
+     * @param batch        已分配ID、创建时间及内容摘要的记录
+     * @param overwriteIds 其中调用方指定ID、可能覆盖已有记录的ID
+     */
+    public BatchSaveResult saveBatch(String saveSha, List<ItineraryHistoryItem> batch, Set<String> overwriteIds)
+            throws IOException {
+        // 调用方指定ID的记录可能覆盖已有记录，按读取到的原内容摘要释放引用
+        Map<String, String> previousHashes = contentStore.ownerHashes(overwriteIds);
+        // 调用方指定ID的记录可能覆盖已有记录，写入脚本同时移除原记录不再适用的索引项
+        List<ItineraryHistorySummary> previous = getSummariesByIds(batch.stream()
+                .map(ItineraryHistoryItem::getId).filter(overwriteIds::contains).toList());
+        Map<String, ItineraryHistorySummary> previousById = previous.stream()
+                .collect(Collectors.toMap(ItineraryHistorySummary::getId, summary -> summary, (a, b) -> a));
+        List<byte[][]> commands = new ArrayList<>(batch.size());
+        List<Integer> keyCounts = new ArrayList<>(batch.size());
+        for (ItineraryHistoryItem item : batch) {
+            ItineraryHistorySummary summary = HistoryRecordUtil.toSummary(item);
+            String previousHash = previousHashes.get(item.getId());
+            StaleIndex stale = StaleIndex.of(previousById.get(item.getId()), summary);
+            List<String> keys = saveKeys(summary, item.getContentHash(), previousHash, stale);
+            byte[][] args = saveArgs(item, summary, previousHash, stale);
+            byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+            for (int i = 0; i < keys.size(); i++) {
+                keysAndArgs[i] = utf8(keys.get(i));
+            }
+            System.arraycopy(args, 0, keysAndArgs, keys.size(), args.length);
+            commands.add(keysAndArgs);
+            keyCounts.add(keys.size());
+        }
+
+        List<Object> results = byteRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < commands.size(); i++) {
+                connection.scriptingCommands().evalSha(saveSha, ReturnType.INTEGER, keyCounts.get(i), commands.get(i));
+            }
+            return null;
+        });
+
+        // 读取原内容摘要后被并发修改的记录未写入
+        Set<Integer> conflicted = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (results.get(i) instanceof Long code && code < 0) {
+                conflicted.add(i);
+            }
+        }
+        return new BatchSaveResult(conflicted, previous);
+    }
+
+    /**
+     * 删除一条记录
+     * <p>
+     * 正文、摘要、内容引用、用户历史列表、时间索引及倒排索引通过脚本一次原子删除，同时写入落库队列的删除条目。
+     * </p>
+     *
+     * @return 删除的正文及摘要键数量，记录不在Redis中时为0
+     */
+    public long delete(ItineraryHistorySummary summary) {
+        String id = summary.getId();
+        Long deleted = null;
+        for (int attempt = 1; attempt <= CONTENT_CONFLICT_RETRIES; attempt++) {
+            String contentHash = contentStore.ownerHash(id);
+            deleted = byteRedisTemplate.execute(DELETE_SCRIPT, RedisSerializer.byteArray(), SCRIPT_RESULT_SERIALIZER,
+                    recordKeys(summary, contentHash, contentHash), utf8(id), userListMember(summary),
+                    utf8(databaseStore.deleteEntry(id)), utf8(String.valueOf(RouteIndexUtil.indexKeys(summary).size())),
+                    utf8(contentHash == null ? "" : contentHash));
+            // 读取内容摘要后记录被并发覆盖写入时重新读取后重试
+            if (deleted == null || deleted >= 0) {
+                break;
+            }
+        }
+        if (deleted != null && deleted < 0) {
+            throw new IllegalStateException("记录正在被并发修改");
+        }
+        return deleted == null ? 0 : deleted;
+    }
+
+    /**
+     * 删除用户的一批记录
+     * <p>
+     * 正文、摘要通过UNLINK交由Redis后台释放内存，时间索引及倒排索引的清理在同一管道中提交，
+     * 并写入落库队列的删除条目。
+     * </p>
+     *
+     * @return 与ID顺序对应，该记录的正文或摘要是否存在于Redis
+     */
+    public List<Boolean> deleteBatch(Integer userId, List<String> ids, List<ItineraryHistorySummary> summaries) {
+        String userIndexKey = RedisConstant.USER_TIME_INDEX_PREFIX + userId;
+        Map<String, String> contentHashes = contentStore.ownerHashes(ids);
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            String[] members = ids.toArray(String[]::new);
+            // 逐条UNLINK以得到每条记录是否存在于Redis
+            ids.forEach(id -> stringConnection.unlink(
+                    RedisConstant.ITINERARY_HISTORY_PREFIX + id, RedisConstant.ITINERARY_SUMMARY_PREFIX + id));
+            stringConnection.zRem(RedisConstant.HISTORY_TIME_INDEX, members);
+            stringConnection.zRem(userIndexKey, members);
+            writeRouteIndex(stringConnection, summaries, false);
+            writeTextIndex(stringConnection, summaries, false);
+            if (databaseStore.isEnabled()) {
+                stringConnection.lPush(RedisConstant.HISTORY_PERSIST_QUEUE, ids.stream()
+                        .map(databaseStore::deleteEntry).toArray(String[]::new));
+            }
+            return null;
+        });
+        contentStore.release(contentHashes);
+
+        List<Boolean> removed = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            removed.add((Long) results.get(i) > 0);
+        }
+        return removed;
+    }
+
+    /**
+     * 整体UNLINK用户历史列表及用户时间索引
+     */
+    public void deleteUserIndexes(Integer userId) {
+        stringRedisTemplate.unlink(List.of(RedisConstant.USER_HISTORY_LIST_PREFIX + userId,
+                RedisConstant.USER_TIME_INDEX_PREFIX + userId));
+    }
+
+    /**
+     * 从Redis移除记录正文、摘要、内容引用、时间索引、用户历史列表及倒排索引，数据库中的记录保留
+     */
+    public void evict(List<ItineraryHistorySummary> summaries) {
+        Map<String, String> contentHashes = contentStore.ownerHashes(
+                summaries.stream().map(ItineraryHistorySummary::getId).toList());
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (ItineraryHistorySummary summary : summaries) {
+                String id = summary.getId();
+                stringConnection.unlink(RedisConstant.ITINERARY_HISTORY_PREFIX + id,
+                        RedisConstant.ITINERARY_SUMMARY_PREFIX + id);
+                stringConnection.zRem(RedisConstant.HISTORY_TIME_INDEX, id);
+                if (summary.getUserId() != null) {
+                    stringConnection.zRem(RedisConstant.USER_TIME_INDEX_PREFIX + summary.getUserId(), id);
+                    stringConnection.listCommands().lRem(
+                            utf8(RedisConstant.USER_HISTORY_LIST_PREFIX + summary.getUserId()), 1, userListMember(summary));
+                }
+            }
+            writeRouteIndex(stringConnection, summaries, false);
+            writeTextIndex(stringConnection, summaries, false);
+            return null;
+        });
+        contentStore.release(contentHashes);
+    }
+
+    /**
+     * 从Redis移除记录正文并释放对去重内容的引用，摘要及索引保留
+     */
+    public void unlinkBodies(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<String, String> contentHashes = contentStore.ownerHashes(ids);
+        byteRedisTemplate.unlink(ids.stream().map(id -> RedisConstant.ITINERARY_HISTORY_PREFIX + id).toList());
+        contentStore.release(contentHashes);
+    }
+
+    /**
+     * 按给定ID顺序批量获取历史记录摘要，不存在的记录会被跳过
+     * <p>
+     * 摘要缺失（如摘要引入前写入的记录）时回退读取正文生成摘要并回写。
+     * </p>
+     */
+    public List<ItineraryHistorySummary> getSummariesByIds(List<String> ids) {
+        List<ItineraryHistorySummary> result = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(chunk.stream()
+                    .map(id -> RedisConstant.ITINERARY_SUMMARY_PREFIX + id)
+                    .toList());
+            if (values == null) {
+                continue;
+            }
+
+            Map<String, ItineraryHistorySummary> found = new HashMap<>();
+            List<String> missing = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                String value = values.get(i);
+                if (value == null) {
+                    missing.add(chunk.get(i));
+                    continue;
+                }
+                try {
+                    found.put(chunk.get(i), objectMapper.readValue(value, ItineraryHistorySummary.class));
+                } catch (JsonProcessingException e) {
+                    log.warn("反序列化历史记录摘要失败，ID: {}", chunk.get(i));
+                    missing.add(chunk.get(i));
+                }
+            }
+
+            if (!missing.isEmpty()) {
+                List<ItineraryHistorySummary> rebuilt = getHistoryItemsByIds(missing).stream()
+                        .map(HistoryRecordUtil::toSummary)
+                        .toList();
+                rebuilt.forEach(summary -> found.put(summary.getId(), summary));
+                writeSummaries(rebuilt);
+
+                // 仍未找到的记录可能已淘汰出Redis，从数据库读取
+                List<String> cold = missing.stream().filter(id -> !found.containsKey(id)).toList();
+                databaseStore.selectSummariesByIds(cold).forEach(summary -> found.put(summary.getId(), summary));
+            }
+
+            for (String id : chunk) {
+                ItineraryHistorySummary summary = found.get(id);
+                if (summary != null) {
+                    result.add(summary);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 通过管道批量写入历史记录摘要
+     */
+    public void writeSummaries(List<ItineraryHistorySummary> summaries) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        Map<String, String> values = new HashMap<>();
+        for (ItineraryHistorySummary summary : summaries) {
+            try {
+                values.put(RedisConstant.ITINERARY_SUMMARY_PREFIX + summary.getId(),
+                        objectMapper.writeValueAsString(summary));
+            } catch (JsonProcessingException e) {
+                log.warn("序列化历史记录摘要失败，ID: {}", summary.getId());
+            }
+        }
+        stringRedisTemplate.opsForValue().multiSet(values);
+    }
+
+    /**
+     * 按给定ID顺序批量获取历史记录实体，不存在的记录会被跳过
+     * <p>
+     * 每 batchSize 个键合并为一次MGET，避免逐条GET带来的网络往返；去重存储的行程内容最后通过一次管道补齐。
+     * </p>
+     */
+    public List<ItineraryHistoryItem> getHistoryItemsByIds(List<String> ids) {
+        List<ItineraryHistoryItem> result = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<String> keys = ids.subList(from, Math.min(from + batchSize, ids.size())).stream()
+                    .map(id -> RedisConstant.ITINERARY_HISTORY_PREFIX + id)
+                    .toList();
+            List<byte[]> values = byteRedisTemplate.opsForValue().multiGet(keys);
+            if (values == null) {
+                continue;
+            }
+
+            for (int i = 0; i < values.size(); i++) {
+                byte[] value = values.get(i);
+                if (value == null) {
+                    // 正文已移出Redis时读取本地归档
+                    value = archiveStore.get(keys.get(i).substring(RedisConstant.ITINERARY_HISTORY_PREFIX.length()));
+                }
+                if (value == null) {
+                    continue;
+                }
+                try {
+                    result.add(recordSerializer.deserialize(value));
+                } catch (IOException e) {
+                    log.warn("反序列化历史记录失败，key: {}", keys.get(i));
+                }
+            }
+        }
+        return contentStore.resolve(result);
+    }
+
+    /**
+     * 根据ID获取历史记录实体，优先读取本地缓存
+     */
+    public ItineraryHistoryItem getHistoryItemById(String id) {
+        return historyNearCache.get(id, this::loadHistoryItem);
+    }
+
+    /**
+     * 从Redis读取并解码历史记录实体并补齐去重存储的行程内容，正文已移出Redis的记录依次读取本地归档及数据库
+     */
+    private ItineraryHistoryItem loadHistoryItem(String id) {
+        try {
+            String key = RedisConstant.ITINERARY_HISTORY_PREFIX + id;
+            byte[] value = byteRedisTemplate.opsForValue().get(key);
+            if (value == null) {
+                value = archiveStore.get(id);
+            }
+
+            if (value != null) {
+                return contentStore.resolve(recordSerializer.deserialize(value));
+            }
+            return databaseStore.selectById(id);
+
+        } catch (IOException e) {
+            log.error("反序列化历史记录失败，ID: {}, 错误: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 批量写入或删除路线索引及标题、用户名的n-gram倒排索引，通过管道一次提交
+     *
+     * @param items 历史记录摘要
+     * @param add   true为写入，false为删除
+     */
+    public void updateSecondaryIndex(List<ItineraryHistorySummary> items, boolean add) {
+        if (items.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            writeRouteIndex((StringRedisConnection) connection, items, add);
+            writeTextIndex((StringRedisConnection) connection, items, add);
+            return null;
+        });
+    }
+
+    /**
+     * 将时间索引与标题、用户名的gram集合求交集，结果写入临时ZSET
+     * <p>
+     * 倒排集合权重为0，结果的score即为创建时间，可直接按时间范围分页读取。
+     * 调用方使用完毕后需删除返回的临时键。
+     * </p>
+     *
+     * @return 临时候选集合键
+     */
+    public String intersectTextIndex(String timeIndexKey, String title, String username) {
+        List<String> keys = new ArrayList<>();
+        keys.add(timeIndexKey);
+        NGramUtil.queryGrams(title).forEach(gram -> keys.add(RedisConstant.TITLE_GRAM_INDEX_PREFIX + gram));
+        NGramUtil.queryGrams(username).forEach(gram -> keys.add(RedisConstant.USERNAME_GRAM_INDEX_PREFIX + gram));
+        return intersectIndex(keys);
+    }
+
+    /**
+     * 将多个索引求交集写入临时ZSET，结果score取第一个索引的score
+     * <p>
+     * 调用方使用完毕后需删除返回的临时键。
+     * </p>
+     *
+     * @return 临时候选集合键
+     */
+    public String intersectIndex(List<String> keys) {
+        double[] weights = new double[keys.size()];
+        weights[0] = 1;
+
+        String candidateKey = RedisConstant.TEXT_QUERY_TMP_PREFIX + UUID.randomUUID();
+        stringRedisTemplate.opsForZSet().intersectAndStore(
+                keys.get(0), keys.subList(1, keys.size()), candidateKey, Aggregate.SUM, Weights.of(weights));
+        stringRedisTemplate.expire(candidateKey, TEXT_QUERY_TTL);
+        return candidateKey;
+    }
+
+    /**
+     * Redis中热数据的创建时间下限，未发生淘汰时为负无穷
+     */
+    public double hotMin() {
+        long hotSince = databaseStore.hotSince();
+        return hotSince == Long.MIN_VALUE ? Double.NEGATIVE_INFINITY : hotSince;
+    }
+
+    /**
+     * 查询的时间范围是否覆盖已淘汰到数据库的冷数据
+     */
+    public boolean hasColdRange(double min) {
+        long hotSince = databaseStore.hotSince();
+        return hotSince != Long.MIN_VALUE && min < hotSince;
+    }
+
+    /**
+     * 在已开启的管道中写入或删除标题、用户名的n-gram倒排索引
+     */
+    private static void writeTextIndex(StringRedisConnection connection, List<ItineraryHistorySummary> items,
+                                       boolean add) {
+        for (ItineraryHistorySummary item : items) {
+            for (String gram : NGramUtil.indexGrams(item.getTitle())) {
+                String key = RedisConstant.TITLE_GRAM_INDEX_PREFIX + gram;
+                if (add) {
+                    connection.sAdd(key, item.getId());
+                } else {
+                    connection.sRem(key, item.getId());
+                }
+            }
+            for (String gram : NGramUtil.indexGrams(item.getUsername())) {
+                String key = RedisConstant.USERNAME_GRAM_INDEX_PREFIX + gram;
+                if (add) {
+                    connection.sAdd(key, item.getId());
+                } else {
+                    connection.sRem(key, item.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * 在已开启的管道中写入或删除路线索引
+     */
+    private static void writeRouteIndex(StringRedisConnection connection, List<ItineraryHistorySummary> items,
+                                        boolean add) {
+        for (ItineraryHistorySummary item : items) {
+            double score = RouteIndexUtil.score(item.getTravelDate());
+            for (String key : RouteIndexUtil.indexKeys(item)) {
+                if (add) {
+                    connection.zAdd(key, score, item.getId());
+                } else {
+                    connection.zRem(key, item.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * 按保存、删除脚本约定的顺序列出一条记录涉及的全部键：
+     * 正文、摘要、全局时间索引、落库队列、内容归属分片、新内容及原内容，有用户时为用户历史列表及用户时间索引，
+     * 其后为路线索引，最后为标题、用户名的gram集合
+     *
+     * @param contentHash  记录写入后引用的内容摘要，可为空
+     * @param previousHash 记录当前引用的内容摘要，可为空
+     */
+    private static List<String> recordKeys(ItineraryHistorySummary summary, String contentHash, String previousHash) {
+        List<String> keys = new ArrayList<>();
+        keys.add(RedisConstant.ITINERARY_HISTORY_PREFIX + summary.getId());
+        keys.add(RedisConstant.ITINERARY_SUMMARY_PREFIX + summary.getId());
+        keys.add(RedisConstant.HISTORY_TIME_INDEX);
+        keys.add(RedisConstant.HISTORY_PERSIST_QUEUE);
+        keys.add(HistoryContentStore.ownerKey(summary.getId()));
+        keys.add(HistoryContentStore.contentKey(contentHash));
+        keys.add(HistoryContentStore.contentKey(previousHash != null ? previousHash : contentHash));
+        if (summary.getUserId() != null) {
+            keys.add(RedisConstant.USER_HISTORY_LIST_PREFIX + summary.getUserId());
+            keys.add(RedisConstant.USER_TIME_INDEX_PREFIX + summary.getUserId());
+        }
+        keys.addAll(RouteIndexUtil.indexKeys(summary));
+        keys.addAll(gramKeys(summary));
+        return keys;
+    }
+
+    /**
+     * 记录所在的标题、用户名gram集合键
+     */
+    private static List<String> gramKeys(ItineraryHistorySummary summary) {
+        List<String> keys = new ArrayList<>();
+        NGramUtil.indexGrams(summary.getTitle()).forEach(gram -> keys.add(RedisConstant.TITLE_GRAM_INDEX_PREFIX + gram));
+        NGramUtil.indexGrams(summary.getUsername()).forEach(gram -> keys.add(RedisConstant.USERNAME_GRAM_INDEX_PREFIX + gram));
+        return keys;
+    }
+
+    /**
+     * 保存脚本的键：{@link #recordKeys} 之后依次为原用户历史列表（用户变化时）、需移除的ZSET索引及gram集合
+     */
+    private static List<String> saveKeys(ItineraryHistorySummary summary, String contentHash, String previousHash,
+                                         StaleIndex stale) {
+        List<String> keys = recordKeys(summary, contentHash, previousHash);
+        if (stale.userListKey() != null) {
+            keys.add(stale.userListKey());
+        }
+        keys.addAll(stale.zsetKeys());
+        keys.addAll(stale.setKeys());
+        return keys;
+    }
+
+    /**
+     * 保存脚本的参数，顺序见 history_save.lua
+     */
+    private byte[][] saveArgs(ItineraryHistoryItem item, ItineraryHistorySummary summary, String previousHash,
+                              StaleIndex stale) throws IOException {
+        String contentHash = item.getContentHash();
+        return new byte[][]{
+                utf8(item.getId()),
+                contentStore.encodeBody(item),
+                utf8(objectMapper.writeValueAsString(summary)),
+                utf8(String.valueOf(HistoryRecordUtil.toEpochMilli(item.getCreatedAt()))),
+                userListMember(summary),
+                utf8(databaseStore.upsertEntry(item.getId())),
+                utf8(String.valueOf(RouteIndexUtil.indexKeys(summary).size())),
+                utf8(routeScoreArg(summary.getTravelDate())),
+                utf8(contentHash == null ? "" : contentHash),
+                contentHash == null ? new byte[0] : contentStore.encodeContent(item),
+                utf8(previousHash == null ? "" : previousHash),
+                stale.previous() ? utf8("1") : new byte[0],
+                stale.userListKey() != null ? userListMember(stale.summary()) : new byte[0],
+                utf8(String.valueOf(stale.zsetKeys().size())),
+                utf8(String.valueOf(stale.setKeys().size()))
+        };
+    }
+
+    /**
+     * 出行日期score的Redis参数形式，无日期时为 -inf
+     */
+    private static String routeScoreArg(String travelDate) {
+        double score = RouteIndexUtil.score(travelDate);
+        return Double.isInfinite(score) ? "-inf" : String.valueOf((long) score);
+    }
+
+    /**
+     * 用户历史列表成员需与 redisTemplate 的值序列化结果一致，以便列表读取及LREM匹配；无用户时为空
+     */
+    @SuppressWarnings("unchecked")
+    private byte[] userListMember(ItineraryHistorySummary summary) {
+        if (summary.getUserId() == null) {
+            return new byte[0];
+        }
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(summary.getId());
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 批量写入的结果
+     *
+     * @param conflicted 读取原内容摘要后被并发修改、未写入的记录在批次中的下标
+     * @param previous   批次中调用方指定ID、写入前已存在的原记录摘要
+     */
+    public record BatchSaveResult(Set<Integer> conflicted, List<ItineraryHistorySummary> previous) {
+    }
+
+    /**
+     * 覆盖写入时原记录所在、但新记录不再属于的索引项
+     *
+     * @param summary     原记录摘要，不是覆盖写入时为空
+     * @param userListKey 用户变化时原用户的历史列表键
+     * @param zsetKeys    需移除的路线索引及原用户时间索引
+     * @param setKeys     需移除的标题、用户名gram集合
+     */
+    private record StaleIndex(ItineraryHistorySummary summary, String userListKey,
+                              List<String> zsetKeys, List<String> setKeys) {
+
+        private static final StaleIndex NONE = new StaleIndex(null, null, List.of(), List.of());
+
+        static StaleIndex of(ItineraryHistorySummary previous, ItineraryHistorySummary current) {
+            if (previous == null) {
+                return NONE;
+            }
+            String userListKey = null;
+            List<String> zsetKeys = new ArrayList<>();
+            if (previous.getUserId() != null && !previous.getUserId().equals(current.getUserId())) {
+                userListKey = RedisConstant.USER_HISTORY_LIST_PREFIX + previous.getUserId();
+                zsetKeys.add(RedisConstant.USER_TIME_INDEX_PREFIX + previous.getUserId());
+            }
+            List<String> currentRouteKeys = RouteIndexUtil.indexKeys(current);
+            RouteIndexUtil.indexKeys(previous).stream().filter(key -> !currentRouteKeys.contains(key)).forEach(zsetKeys::add);
+
+            Set<String> currentGramKeys = new HashSet<>(gramKeys(current));
+            List<String> setKeys = gramKeys(previous).stream().filter(key -> !currentGramKeys.contains(key)).toList();
+            return new StaleIndex(previous, userListKey, zsetKeys, setKeys);
+        }
+
+        boolean previous() {
+            return summary != null;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.asta.backend.task;
+
+import com.asta.backend.codec.CompressionDictionaryStore;
+import com.asta.backend.codec.DictionaryTrainer;
+import com.asta.backend.codec.HistoryRecordSerializer;
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.content.HistoryContentStore;
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 压缩字典训练任务
+ * <p>
+ * 启动时若尚无字典则训练一次，之后按 history.compression.train-cron 定期用最新记录重新训练并发布新版本。
+ * 训练前通过Redis锁保证同一时间只有一个节点训练。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CompressionDictionaryTrainTask {
+
+    /**
+     * 少于该数量的样本不训练字典
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * deflate 窗口大小，超出部分的字典无效
+     */
+    private static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    private static final Duration TRAIN_LOCK_TTL = Duration.ofMinutes(30);
+
+    private final RedisTemplate<String, byte[]> byteRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final HistoryContentStore contentStore;
+    private final HistoryRecordSerializer recordSerializer;
+    private final CompressionDictionaryStore dictionaryStore;
+
+    @Value("${history.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${history.compression.sample-size:500}")
+    private int sampleSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void trainIfAbsent() {
+        if (!compressionEnabled) {
+            return;
+        }
+        dictionaryStore.refresh();
+        if (dictionaryStore.currentVersion() == 0) {
+            train();
+        }
+    }
+
+    @Scheduled(cron = "${history.compression.train-cron:0 0 4 * * MON}")
+    public void train() {
+        if (!compressionEnabled) {
+            return;
+        }
+        try {
+            Boolean locked = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(RedisConstant.COMPRESSION_DICT_TRAIN_LOCK, "1", TRAIN_LOCK_TTL);
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+
+            List<byte[]> samples = collectSamples();
+            if (samples.size() < MIN_SAMPLES) {
+                log.info("历史记录样本不足，暂不训练压缩字典，样本数量: {}", samples.size());
+                return;
+            }
+
+            byte[] dictionary = DictionaryTrainer.train(samples, MAX_DICTIONARY_SIZE);
+            if (dictionary.length == 0) {
+                log.info("样本中没有可复用的片段，跳过压缩字典训练");
+                return;
+            }
+            dictionaryStore.publish(dictionary);
+
+        } catch (Exception e) {
+            log.error("训练压缩字典失败，错误: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 以最新的历史记录作为样本，统一转换为当前编码格式的未压缩字节
+     */
+    private List<byte[]> collectSamples() {
+        Set<String> ids = stringRedisTemplate.opsForZSet()
+                .reverseRange(RedisConstant.HISTORY_TIME_INDEX, 0, sampleSize - 1);
+        List<byte[]> samples = new ArrayList<>();
+        if (ids == null || ids.isEmpty()) {
+            return samples;
+        }
+
+        List<String> keys = ids.stream().map(id -> RedisConstant.ITINERARY_HISTORY_PREFIX + id).toList();
+        List<byte[]> values = byteRedisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return samples;
+        }
+        List<ItineraryHistoryItem> items = new ArrayList<>(values.size());
+        for (byte[] value : values) {
+            if (value == null) {
+                continue;
+            }
+            try {
+                items.add(recordSerializer.deserialize(value));
+            } catch (IOException e) {
+                log.warn("读取压缩字典样本失败，错误: {}", e.getMessage());
+            }
+        }
+        // 正文只含内容摘要的记录补齐行程内容，样本覆盖实际被压缩的内容
+        for (ItineraryHistoryItem item : contentStore.resolve(items)) {
+            try {
+                samples.add(recordSerializer.encodeUncompressed(item));
+            } catch (IOException e) {
+                log.warn("读取压缩字典样本失败，错误: {}", e.getMessage());
+            }
+        }
+        return samples;
+    }
+}
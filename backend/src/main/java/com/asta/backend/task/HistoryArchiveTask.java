@@ -0,0 +1,48 @@
+package com.asta.backend.task;
+
+import com.asta.backend.archive.HistoryArchiveStore;
+import com.asta.backend.service.IItineraryHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 历史记录归档任务
+ * <p>
+ * 归档段位于节点本地，因此每个节点都执行：定期将超过归档时长的记录正文写入新段，
+ * 按 history.archive.compact-cron 重写已删除记录较多的段。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HistoryArchiveTask {
+
+    private final HistoryArchiveStore archiveStore;
+    private final IItineraryHistoryService historyService;
+
+    @Scheduled(fixedDelayString = "${history.archive.interval:3600000}", initialDelayString = "${history.archive.interval:3600000}")
+    public void archive() {
+        if (!archiveStore.isEnabled()) {
+            return;
+        }
+        try {
+            historyService.archiveHistoryBodies();
+        } catch (Exception e) {
+            log.error("归档历史记录失败，错误: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${history.archive.compact-cron:0 15 4 * * *}")
+    public void compact() {
+        try {
+            archiveStore.compact();
+        } catch (Exception e) {
+            log.error("重写归档段失败，错误: {}", e.getMessage());
+        }
+    }
+}
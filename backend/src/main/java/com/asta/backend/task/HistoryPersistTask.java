@@ -0,0 +1,63 @@
+package com.asta.backend.task;
+
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.persist.HistoryDatabaseStore;
+import com.asta.backend.service.IItineraryHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 历史记录落库及热数据淘汰任务
+ * <p>
+ * 定期将Redis落库队列批量写入MySQL；按 history.persist.evict-cron 将超出热数据窗口且已落库的记录从Redis淘汰。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HistoryPersistTask {
+
+    private static final Duration EVICT_LOCK_TTL = Duration.ofMinutes(30);
+
+    private final HistoryDatabaseStore databaseStore;
+    private final IItineraryHistoryService historyService;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Scheduled(fixedDelayString = "${history.persist.flush-interval:1000}")
+    public void flush() {
+        try {
+            databaseStore.flush();
+        } catch (Exception e) {
+            log.error("历史记录落库失败，错误: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${history.persist.evict-cron:0 30 * * * *}")
+    public void evict() {
+        if (!databaseStore.isEnabled()) {
+            return;
+        }
+        try {
+            Boolean locked = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(RedisConstant.HISTORY_EVICT_LOCK, "1", EVICT_LOCK_TTL);
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+            try {
+                historyService.evictColdHistory();
+            } finally {
+                stringRedisTemplate.delete(RedisConstant.HISTORY_EVICT_LOCK);
+            }
+        } catch (Exception e) {
+            log.error("淘汰冷数据失败，错误: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.asta.backend.task;
+
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.service.IItineraryHistoryService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 全文索引同步任务
+ * <p>
+ * 全文索引保存在各节点本地，定期从全局时间索引拉取其他节点写入的新记录；
+ * 首次启动且没有磁盘快照时即为一次全量构建。
+ * 同时订阅历史记录失效消息，其他节点删除或覆盖写入的记录立即移出或重建，不必等到检索时才发现。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItineraryFullTextSyncTask implements MessageListener {
+
+    /**
+     * 失效消息中多个ID的分隔符，与 {@link com.asta.backend.cache.HistoryNearCache} 一致
+     */
+    private static final String ID_SEPARATOR = ",";
+
+    private final IItineraryHistoryService historyService;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisConstant.HISTORY_INVALIDATION_CHANNEL));
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${history.fulltext.sync-interval:10000}")
+    public void sync() {
+        try {
+            historyService.syncFullTextIndex();
+        } catch (Exception e) {
+            log.error("同步全文索引失败，错误: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            historyService.refreshFullTextIndex(List.of(body.split(ID_SEPARATOR)));
+        } catch (Exception e) {
+            log.warn("刷新全文索引失败，等待检索时惰性清理，错误: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.asta.backend.task;
+
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.service.IItineraryHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 历史记录索引初始化任务
+ * <p>
+ * 启动时若索引版本落后于 {@link #INDEX_VERSION}（包括索引不存在）则通过SCAN回填一次；
+ * 也可以通过 --history.index.rebuild=true 启动参数强制重建。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItineraryHistoryIndexInitializer implements ApplicationRunner {
+
+    /**
+     * 当前索引结构版本，新增索引类型或存储格式变化时递增
+     */
+    public static final int INDEX_VERSION = 8;
+
+    private final IItineraryHistoryService historyService;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${history.index.rebuild:false}")
+    private boolean forceRebuild;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(RedisConstant.HISTORY_INDEX_VERSION);
+            if (!forceRebuild && String.valueOf(INDEX_VERSION).equals(version)) {
+                return;
+            }
+            log.info("开始回填历史记录索引，当前版本: {}，目标版本: {}", version, INDEX_VERSION);
+            historyService.rebuildHistoryIndex();
+            stringRedisTemplate.opsForValue().set(RedisConstant.HISTORY_INDEX_VERSION, String.valueOf(INDEX_VERSION));
+        } catch (Exception e) {
+            log.error("回填历史记录索引失败，错误: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.asta.backend.transfer;
+
+import com.asta.backend.cache.HistoryNearCache;
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.content.HistoryContentStore;
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.asta.backend.entity.po.ItineraryHistorySummary;
+import com.asta.backend.entity.vo.HistoryImportResultVO;
+import com.asta.backend.entity.vo.ItineraryHistoryVO;
+import com.asta.backend.persist.HistoryDatabaseStore;
+import com.asta.backend.persist.HistoryDatabaseStore.ColdQuery;
+import com.asta.backend.search.ItineraryFullTextIndex;
+import com.asta.backend.stats.HistoryRouteStats;
+import com.asta.backend.store.HistoryCursor;
+import com.asta.backend.store.HistoryRedisStore;
+import com.asta.backend.utils.HistoryIdGenerator;
+import com.asta.backend.utils.HistoryRecordUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 历史记录批量导入、导出
+ * <p>
+ * 导入支持JSON数组及NDJSON，有效记录攒满一批后通过一次管道写入；
+ * 导出按时间索引游标流式写出NDJSON，热数据之后从数据库续读冷数据。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HistoryTransfer {
+
+    /**
+     * 批量导入结果中返回的失败明细数量上限
+     */
+    private static final int IMPORT_MAX_FAILURES = 100;
+
+    /**
+     * 导入记录的标题长度上限
+     */
+    private static final int IMPORT_MAX_TITLE_LENGTH = 200;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final HistoryIdGenerator historyIdGenerator;
+    private final ItineraryFullTextIndex fullTextIndex;
+    private final HistoryNearCache historyNearCache;
+    private final HistoryRouteStats routeStats;
+    private final HistoryContentStore contentStore;
+    private final HistoryDatabaseStore databaseStore;
+    private final HistoryRedisStore redisStore;
+
+    /**
+     * 每批写入、读取的记录数量
+     */
+    @Value("${history.redis.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * 批量导入历史记录，单条记录校验或写入失败不影响其他记录
+     */
+    public HistoryImportResultVO importHistory(InputStream in) throws IOException {
+        long startNanos = System.nanoTime();
+        HistoryImportResultVO result = new HistoryImportResultVO();
+        long[] counters = new long[3];
+        List<ItineraryHistoryItem> batch = new ArrayList<>(batchSize);
+        List<Long> batchIndexes = new ArrayList<>(batchSize);
+        Set<String> overwriteIds = new HashSet<>();
+        String saveSha = redisStore.loadSaveScript();
+
+        // 有效记录攒满一批后通过一次管道提交
+        Consumer<ItineraryHistoryItem> collector = item -> {
+            long index = counters[0]++;
+            boolean overwrite = item != null && StringUtils.hasText(item.getId());
+            String error = validateImportItem(item);
+            if (error != null) {
+                addImportFailure(result, counters, index, item == null ? null : item.getId(), error);
+                return;
+            }
+            batch.add(item);
+            batchIndexes.add(index);
+            if (overwrite) {
+                overwriteIds.add(item.getId());
+            }
+            if (batch.size() >= batchSize) {
+                writeImportBatch(saveSha, batch, batchIndexes, overwriteIds, result, counters);
+            }
+        };
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        reader.mark(1);
+        int first = reader.read();
+        while (first != -1 && Character.isWhitespace(first)) {
+            reader.mark(1);
+            first = reader.read();
+        }
+        if (first != -1) {
+            reader.reset();
+        }
+
+        ObjectReader itemReader = objectMapper.readerFor(ItineraryHistoryItem.class);
+        if (first == '[') {
+            // JSON数组：逐个元素读取，类型不匹配的元素跳过，语法错误时无法继续定位后续元素
+            try (MappingIterator<ItineraryHistoryItem> iterator = itemReader.readValues(reader)) {
+                while (true) {
+                    try {
+                        if (!iterator.hasNextValue()) {
+                            break;
+                        }
+                        collector.accept(iterator.nextValue());
+                    } catch (JsonParseException e) {
+                        addImportFailure(result, counters, counters[0]++, null, "JSON格式错误，已停止读取: " + e.getOriginalMessage());
+                        break;
+                    } catch (JsonMappingException e) {
+                        addImportFailure(result, counters, counters[0]++, null, "字段格式错误: " + e.getOriginalMessage());
+                    }
+                }
+            }
+        } else {
+            // NDJSON：每行一条记录，单行解析失败不影响其他行
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                ItineraryHistoryItem item;
+                try {
+                    item = itemReader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    addImportFailure(result, counters, counters[0]++, null, "JSON格式错误: " + e.getOriginalMessage());
+                    continue;
+                }
+                collector.accept(item);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeImportBatch(saveSha, batch, batchIndexes, overwriteIds, result, counters);
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        result.setTotal(counters[0]);
+        result.setImported(counters[1]);
+        result.setFailed(counters[2]);
+        result.setElapsedMillis(elapsedMillis);
+        result.setRecordsPerSecond(counters[1] * 1000 / elapsedMillis);
+        log.info("批量导入历史记录完成，总数: {}，成功: {}，失败: {}，耗时: {}ms，速率: {}条/秒",
+                counters[0], counters[1], counters[2], elapsedMillis, result.getRecordsPerSecond());
+        return result;
+    }
+
+    /**
+     * 以NDJSON流式导出历史记录，按创建时间倒序
+     *
+     * @param userId  用户ID，为空时导出全部
+     * @param afterId 续传时上次收到的最后一条记录ID，可为空
+     * @return 导出的记录数量
+     */
+    public long exportHistory(Integer userId, String afterId, OutputStream out) throws IOException {
+        String indexKey = userId != null
+                ? RedisConstant.USER_TIME_INDEX_PREFIX + userId
+                : RedisConstant.HISTORY_TIME_INDEX;
+
+        // 续传时从上次收到的最后一条记录之后继续
+        HistoryCursor cursor = null;
+        if (StringUtils.hasText(afterId)) {
+            List<ItineraryHistorySummary> found = redisStore.getSummariesByIds(List.of(afterId));
+            if (found.isEmpty()) {
+                throw new IllegalArgumentException("续传位置的记录不存在: " + afterId);
+            }
+            cursor = new HistoryCursor(HistoryRecordUtil.toEpochMilli(found.get(0).getCreatedAt()), afterId);
+        }
+
+        ObjectWriter writer = objectMapper.writerFor(ItineraryHistoryVO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long exported = 0;
+
+        // 热数据按 (score, ID) 游标倒序读取时间索引，每批只在内存中保留 batchSize 条记录
+        double hotMin = redisStore.hotMin();
+        long ties = 0;
+        while (cursor == null || cursor.score() >= hotMin) {
+            // 与游标同分的记录会被重新读到，多读取相应数量保证每批都有进展
+            long count = batchSize + ties;
+            Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet().reverseRangeByScoreWithScores(
+                    indexKey, hotMin, cursor == null ? Double.POSITIVE_INFINITY : cursor.score(), 0, count);
+            if (tuples == null || tuples.isEmpty()) {
+                break;
+            }
+
+            List<String> ids = new ArrayList<>(tuples.size());
+            ZSetOperations.TypedTuple<String> last = null;
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                if (cursor == null || cursor.isBefore(tuple)) {
+                    ids.add(tuple.getValue());
+                }
+                last = tuple;
+            }
+            double lastScore = last.getScore() == null ? 0 : last.getScore();
+            ties = tuples.stream().filter(tuple -> tuple.getScore() != null && tuple.getScore() == lastScore).count();
+            cursor = new HistoryCursor(lastScore, last.getValue());
+
+            exported += writeExportBatch(writer, exportItems(ids), out);
+            if (tuples.size() < count) {
+                break;
+            }
+        }
+
+        // 早于热数据水位的记录按游标从数据库分批读取
+        if (redisStore.hasColdRange(Double.NEGATIVE_INFINITY)) {
+            while (true) {
+                ColdQuery coldQuery = new ColdQuery(userId, null, null, null, null,
+                        cursor == null ? null : (long) cursor.score(), cursor == null ? null : cursor.id());
+                List<ItineraryHistoryItem> items = databaseStore.selectColdItems(coldQuery, batchSize);
+                if (items.isEmpty()) {
+                    break;
+                }
+                exported += writeExportBatch(writer, items, out);
+                ItineraryHistoryItem last = items.get(items.size() - 1);
+                cursor = new HistoryCursor(HistoryRecordUtil.toEpochMilli(last.getCreatedAt()), last.getId());
+                if (items.size() < batchSize) {
+                    break;
+                }
+            }
+        }
+
+        log.info("导出历史记录完成，用户ID: {}，导出数量: {}", userId, exported);
+        return exported;
+    }
+
+    /**
+     * 校验导入记录，通过时补全ID及创建时间
+     *
+     * @return 失败原因，校验通过时为null
+     */
+    private String validateImportItem(ItineraryHistoryItem item) {
+        if (item == null) {
+            return "记录为空";
+        }
+        if (!StringUtils.hasText(item.getGeneratedItinerary())) {
+            return "行程内容不能为空";
+        }
+        if (!StringUtils.hasText(item.getTitle())) {
+            return "行程标题不能为空";
+        }
+        if (item.getTitle().length() > IMPORT_MAX_TITLE_LENGTH) {
+            return "行程标题长度不能超过" + IMPORT_MAX_TITLE_LENGTH;
+        }
+        if (StringUtils.hasText(item.getCreatedAt())) {
+            try {
+                LocalDateTime.parse(item.getCreatedAt(), HistoryRecordUtil.FORMATTER);
+            } catch (DateTimeParseException e) {
+                return "创建时间格式错误，应为 yyyy-MM-dd HH:mm:ss";
+            }
+        } else {
+            item.setCreatedAt(LocalDateTime.now().format(HistoryRecordUtil.FORMATTER));
+        }
+        try {
+            HistoryRecordUtil.normalizeRouteFields(item);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        contentStore.assign(item);
+        if (!StringUtils.hasText(item.getId())) {
+            item.setId(historyIdGenerator.nextId());
+        }
+        return null;
+    }
+
+    /**
+     * 写入一批导入记录，被并发修改或写入失败的记录计为失败
+     */
+    private void writeImportBatch(String saveSha, List<ItineraryHistoryItem> batch, List<Long> batchIndexes,
+                                  Set<String> overwriteIds, HistoryImportResultVO result, long[] counters) {
+        try {
+            HistoryRedisStore.BatchSaveResult saved = redisStore.saveBatch(saveSha, batch, overwriteIds);
+
+            // 读取原内容摘要后被并发修改的记录未写入，计为失败
+            List<ItineraryHistoryItem> written = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (saved.conflicted().contains(i)) {
+                    addImportFailure(result, counters, batchIndexes.get(i), batch.get(i).getId(), "记录正在被并发修改");
+                } else {
+                    written.add(batch.get(i));
+                }
+            }
+            Set<String> writtenIds = written.stream().map(ItineraryHistoryItem::getId).collect(Collectors.toSet());
+            List<ItineraryHistorySummary> replaced = saved.previous().stream()
+                    .filter(summary -> writtenIds.contains(summary.getId())).toList();
+
+            written.forEach(fullTextIndex::index);
+            List<ItineraryHistorySummary> summaries = written.stream().map(HistoryRecordUtil::toSummary).toList();
+            routeStats.record(replaced, -1);
+            routeStats.record(summaries, 1);
+            // 导入可能覆盖已有记录，失效各节点的详情缓存
+            historyNearCache.invalidate(List.copyOf(writtenIds));
+            counters[1] += written.size();
+        } catch (Exception e) {
+            log.error("批量导入历史记录失败，批次大小: {}，错误: {}", batch.size(), e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                addImportFailure(result, counters, batchIndexes.get(i), batch.get(i).getId(), "写入失败: " + e.getMessage());
+            }
+        } finally {
+            batch.clear();
+            batchIndexes.clear();
+            overwriteIds.clear();
+        }
+    }
+
+    private static void addImportFailure(HistoryImportResultVO result, long[] counters, long index, String id,
+                                         String reason) {
+        counters[2]++;
+        if (result.getFailures().size() < IMPORT_MAX_FAILURES) {
+            result.getFailures().add(new HistoryImportResultVO.Failure(index, id, reason));
+        }
+    }
+
+    /**
+     * 按ID顺序读取待导出的记录，Redis及本地归档中没有正文的记录从数据库读取
+     */
+    private List<ItineraryHistoryItem> exportItems(List<String> ids) {
+        List<ItineraryHistoryItem> items = redisStore.getHistoryItemsByIds(ids);
+        if (items.size() == ids.size()) {
+            return items;
+        }
+        Map<String, ItineraryHistoryItem> found = new HashMap<>(ids.size() * 2);
+        items.forEach(item -> found.put(item.getId(), item));
+        List<String> missing = ids.stream().filter(id -> !found.containsKey(id)).toList();
+        databaseStore.selectByIds(missing).forEach(item -> found.put(item.getId(), item));
+        return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * 每条记录写为一行JSON，每批写完后刷出，避免响应在内存中累积
+     */
+    private long writeExportBatch(ObjectWriter writer, List<ItineraryHistoryItem> items, OutputStream out)
+            throws IOException {
+        for (ItineraryHistoryItem item : items) {
+            writer.writeValue(out, HistoryRecordUtil.toVO(item));
+            out.write('\n');
+        }
+        out.flush();
+        return items.size();
+    }
+}
@@ -0,0 +1,223 @@
+package com.asta.backend.utils;
+
+import com.asta.backend.constant.RedisConstant;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 历史记录ID生成器
+ * <p>
+ * 采用类Snowflake结构在本地生成ID，格式为 HIST_{毫秒时间戳}_{4位节点号}{4位序列号}，
+ * 与原 HIST_{毫秒时间戳}_{计数} 格式兼容且同样按时间有序，保存时无需访问Redis。
+ * </p>
+ * <p>
+ * 节点号在启动时通过Redis租约分配并定期续约，也可通过 history.id.node-id 固定指定；
+ * 时钟回拨时沿用上次的时间戳继续递增序列，保证同一节点生成的ID单调不重复。
+ * </p>
+ * <p>
+ * 租约未分配、已丢失，或续约失败至租约到期前的安全余量内时，节点号可能已被其他实例抢占，
+ * 此时 {@link #nextId()} 直接失败而不使用未持有租约的节点号，直至重新分配成功。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HistoryIdGenerator {
+
+    private static final String PREFIX = "HIST_";
+
+    private static final int MAX_NODE_ID = 1023;
+
+    private static final int MAX_SEQUENCE = 4095;
+
+    /**
+     * 回拨超过该毫秒数时输出告警
+     */
+    private static final long SKEW_WARN_MILLIS = 1000;
+
+    private static final Duration NODE_LEASE_TTL = Duration.ofSeconds(60);
+
+    /**
+     * 租约到期前预留的余量，抵消续约命令往返及本地与Redis计时的误差
+     */
+    private static final Duration NODE_LEASE_MARGIN = Duration.ofSeconds(5);
+
+    private static final RedisScript<Long> RENEW_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/id_node_renew.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 固定节点号，小于0时通过Redis租约自动分配
+     */
+    @Value("${history.id.node-id:-1}")
+    private int configuredNodeId;
+
+    /**
+     * 本实例持有租约的标识
+     */
+    private final String leaseToken = UUID.randomUUID().toString();
+
+    private volatile int nodeId;
+
+    private volatile boolean leased;
+
+    /**
+     * 租约可用的截止时间（{@link System#nanoTime()}），按发出抢占或续约命令前的时间计算
+     */
+    private volatile long leaseDeadline;
+
+    private long lastTimestamp = -1L;
+
+    private int sequence;
+
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId >= 0) {
+            if (configuredNodeId > MAX_NODE_ID) {
+                throw new IllegalArgumentException("history.id.node-id 取值范围为 0-" + MAX_NODE_ID);
+            }
+            nodeId = configuredNodeId;
+            log.info("使用配置的历史记录ID节点号: {}", nodeId);
+            return;
+        }
+        claimNodeId();
+    }
+
+    /**
+     * 生成下一个历史记录ID
+     */
+    public String nextId() {
+        long timestamp;
+        int seq;
+        int node;
+        synchronized (this) {
+            node = leasedNodeId();
+            long now = System.currentTimeMillis();
+            if (now < lastTimestamp) {
+                if (lastTimestamp - now > SKEW_WARN_MILLIS) {
+                    log.warn("检测到系统时钟回拨 {} 毫秒，沿用上次时间戳生成ID", lastTimestamp - now);
+                }
+                now = lastTimestamp;
+            }
+            if (now == lastTimestamp) {
+                if (sequence >= MAX_SEQUENCE) {
+                    // 当前毫秒序列号用尽，借用下一毫秒
+                    now = lastTimestamp + 1;
+                    sequence = 0;
+                } else {
+                    sequence++;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = now;
+            timestamp = now;
+            seq = sequence;
+        }
+
+        StringBuilder id = new StringBuilder(PREFIX.length() + 22);
+        id.append(PREFIX).append(timestamp).append('_');
+        appendPadded(id, node);
+        appendPadded(id, seq);
+        return id.toString();
+    }
+
+    /**
+     * 返回当前可用的节点号，租约不可用时抛出异常
+     */
+    private int leasedNodeId() {
+        if (configuredNodeId >= 0) {
+            return nodeId;
+        }
+        if (!leased || System.nanoTime() - leaseDeadline >= 0) {
+            throw new IllegalStateException("历史记录ID节点号租约不可用，暂时无法生成ID");
+        }
+        return nodeId;
+    }
+
+    /**
+     * 续约节点号租约；租约丢失（如Redis数据被清空或长时间不可达）时重新分配
+     */
+    @Scheduled(fixedDelay = 20000, initialDelay = 20000)
+    public void renewLease() {
+        if (configuredNodeId >= 0) {
+            return;
+        }
+        try {
+            if (!leased) {
+                claimNodeId();
+                return;
+            }
+            long start = System.nanoTime();
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT,
+                    List.of(RedisConstant.HISTORY_ID_NODE_PREFIX + nodeId),
+                    leaseToken, String.valueOf(NODE_LEASE_TTL.toMillis()));
+            if (renewed != null && renewed > 0) {
+                leaseDeadline = deadline(start);
+            } else {
+                log.warn("历史记录ID节点号 {} 的租约已丢失，重新分配", nodeId);
+                leased = false;
+                claimNodeId();
+            }
+        } catch (Exception e) {
+            log.error("续约历史记录ID节点号失败，错误: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 轮询节点号，抢占第一个空闲的租约；Redis不可用时保持未分配，由续约任务重试
+     */
+    private synchronized void claimNodeId() {
+        try {
+            for (int attempt = 0; attempt <= MAX_NODE_ID; attempt++) {
+                Long next = stringRedisTemplate.opsForValue().increment(RedisConstant.HISTORY_ID_NODE_COUNTER);
+                int candidate = (int) (Math.floorMod(next == null ? attempt : next, MAX_NODE_ID + 1L));
+                long start = System.nanoTime();
+                Boolean claimed = stringRedisTemplate.opsForValue().setIfAbsent(
+                        RedisConstant.HISTORY_ID_NODE_PREFIX + candidate, leaseToken, NODE_LEASE_TTL);
+                if (Boolean.TRUE.equals(claimed)) {
+                    nodeId = candidate;
+                    leaseDeadline = deadline(start);
+                    leased = true;
+                    log.info("分配历史记录ID节点号: {}", nodeId);
+                    return;
+                }
+            }
+            log.error("历史记录ID节点号已全部被占用");
+        } catch (Exception e) {
+            log.error("分配历史记录ID节点号失败，错误: {}", e.getMessage());
+        }
+    }
+
+    private static long deadline(long start) {
+        return start + NODE_LEASE_TTL.minus(NODE_LEASE_MARGIN).toNanos();
+    }
+
+    private static void appendPadded(StringBuilder builder, int value) {
+        if (value < 1000) {
+            builder.append('0');
+        }
+        if (value < 100) {
+            builder.append('0');
+        }
+        if (value < 10) {
+            builder.append('0');
+        }
+        builder.append(value);
+    }
+}
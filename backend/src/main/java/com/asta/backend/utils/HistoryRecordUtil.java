@@ -0,0 +1,128 @@
+package com.asta.backend.utils;
+
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.asta.backend.entity.po.ItineraryHistorySummary;
+import com.asta.backend.entity.vo.ItineraryHistorySummaryVO;
+import com.asta.backend.entity.vo.ItineraryHistoryVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 历史记录转换工具
+ * <p>
+ * 创建时间与时间索引score的互转、记录与摘要及VO之间的转换，以及写入前路线字段的统一格式。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@Slf4j
+public final class HistoryRecordUtil {
+
+    public static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private HistoryRecordUtil() {
+    }
+
+    /**
+     * 将创建时间转换为毫秒时间戳，作为时间索引的score
+     */
+    public static long toEpochMilli(String createdAt) {
+        if (!StringUtils.hasText(createdAt)) {
+            return 0L;
+        }
+        try {
+            return LocalDateTime.parse(createdAt, FORMATTER)
+                    .atZone(ZoneId.systemDefault())
+                    .toInstant()
+                    .toEpochMilli();
+        } catch (DateTimeParseException e) {
+            log.warn("创建时间格式错误: {}", createdAt);
+            return 0L;
+        }
+    }
+
+    /**
+     * 将查询参数中的时间转换为毫秒时间戳
+     */
+    public static long parseQueryTime(String time) {
+        try {
+            return LocalDateTime.parse(time, FORMATTER)
+                    .atZone(ZoneId.systemDefault())
+                    .toInstant()
+                    .toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("时间格式错误，应为 yyyy-MM-dd HH:mm:ss: " + time);
+        }
+    }
+
+    /**
+     * 统一路线字段格式（地点、出行方式去除空白，出行方式转小写），出行日期格式错误时抛出异常
+     */
+    public static void normalizeRouteFields(ItineraryHistoryItem item) {
+        RouteIndexUtil.parseTravelDate(item.getTravelDate());
+        item.setStartPoint(RouteIndexUtil.normalizePlace(item.getStartPoint()));
+        item.setEndPoint(RouteIndexUtil.normalizePlace(item.getEndPoint()));
+        item.setTravelMode(RouteIndexUtil.normalizeMode(item.getTravelMode()));
+        item.setTravelDate(StringUtils.hasText(item.getTravelDate()) ? item.getTravelDate().trim() : null);
+    }
+
+    /**
+     * 从历史记录中提取摘要
+     */
+    public static ItineraryHistorySummary toSummary(ItineraryHistoryItem item) {
+        return new ItineraryHistorySummary()
+                .setId(item.getId())
+                .setCreatedAt(item.getCreatedAt())
+                .setTitle(item.getTitle())
+                .setUserId(item.getUserId())
+                .setUsername(item.getUsername())
+                .setStartPoint(item.getStartPoint())
+                .setEndPoint(item.getEndPoint())
+                .setTravelDate(item.getTravelDate())
+                .setTravelMode(item.getTravelMode())
+                .setDuration(item.getDuration());
+    }
+
+    /**
+     * 转换为VO对象
+     */
+    public static ItineraryHistoryVO toVO(ItineraryHistoryItem item) {
+        ItineraryHistoryVO vo = new ItineraryHistoryVO();
+        vo.setId(item.getId());
+        vo.setGeneratedItinerary(item.getGeneratedItinerary());
+        vo.setCreatedAt(item.getCreatedAt());
+        vo.setTitle(item.getTitle());
+        vo.setUserId(item.getUserId());
+        vo.setUsername(item.getUsername());
+        vo.setStartPoint(item.getStartPoint());
+        vo.setEndPoint(item.getEndPoint());
+        vo.setTravelDate(item.getTravelDate());
+        vo.setTravelMode(item.getTravelMode());
+        vo.setDuration(item.getDuration());
+        return vo;
+    }
+
+    /**
+     * 摘要转换为VO对象
+     */
+    public static ItineraryHistorySummaryVO toSummaryVO(ItineraryHistorySummary summary) {
+        ItineraryHistorySummaryVO vo = new ItineraryHistorySummaryVO();
+        vo.setId(summary.getId());
+        vo.setCreatedAt(summary.getCreatedAt());
+        vo.setTitle(summary.getTitle());
+        vo.setUserId(summary.getUserId());
+        vo.setUsername(summary.getUsername());
+        vo.setStartPoint(summary.getStartPoint());
+        vo.setEndPoint(summary.getEndPoint());
+        vo.setTravelDate(summary.getTravelDate());
+        vo.setTravelMode(summary.getTravelMode());
+        vo.setDuration(summary.getDuration());
+        return vo;
+    }
+}
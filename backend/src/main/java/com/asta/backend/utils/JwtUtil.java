@@ -1,28 +1,136 @@
 package com.asta.backend.utils;
 
+import com.asta.backend.auth.LoginUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
+    /**
+     * 用户ID claim
+     */
+    public static final String CLAIM_USER_ID = "uid";
+
+    /**
+     * 角色（权限）列表 claim
+     */
+    public static final String CLAIM_ROLES = "roles";
+
+    /**
+     * 毫秒精度的签发时间 claim，标准 iat 只精确到秒
+     */
+    public static final String CLAIM_ISSUED_AT_MILLIS = "iatms";
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${jwt.secret}") // 从 application.yml 读取 secret
     private String secret;
 
     @Value("${jwt.expiration}") // 从 application.yml 读取过期时间 (毫秒)
     private long expirationTime;
 
+    @Value("${jwt.cache.enabled:true}") // 是否缓存已验证的 token
+    private boolean cacheEnabled;
+
+    @Value("${jwt.cache.max-size:10000}") // 已验证 token 缓存的条目上限
+    private long cacheMaxSize;
+
+    /**
+     * 签名及验证使用的 key，启动时解码一次
+     */
+    private Key key;
+
+    /**
+     * 不可变且线程安全的解析器，所有请求共用
+     */
+    private JwtParser parser;
+
+    /**
+     * 已验证的 token：token 的 SHA-256 摘要 -> claims，条目在 token 过期时失效
+     */
+    private Cache<String, Claims> verifiedTokens;
+
+    private Timer verifyTimer;
+
+    @PostConstruct
+    public void init() {
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String tokenHash, Claims claims, long currentTime) {
+                        long remaining = claims.getExpiration() == null
+                                ? expirationTime : claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified");
+        verifyTimer = Timer.builder("jwt.verify")
+                .description("未命中缓存时解析并验证 token 签名的耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 解析并验证 token（签名及过期时间），一次返回全部 claims
+     * <p>
+     * 验证通过的 token 按其摘要缓存到过期为止，同一 token 的后续请求不再重复解析及验签。
+     * </p>
+     * @param token 用户token
+     * @return claims信息，调用方不应修改
+     * @throws io.jsonwebtoken.JwtException token 无效或已过期
+     */
+    public Claims verify(String token) {
+        if (!cacheEnabled) {
+            return parse(token);
+        }
+        return verifiedTokens.get(sha256(token), tokenHash -> parse(token));
+    }
+
     /**
      * 从 token 中提取用户名
      * @param token 用户token
@@ -49,31 +157,26 @@ public class JwtUtil {
      * @param <T> 需要提取信息的类型
      */
     public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = getAllClaimsFromToken(token);
+        final Claims claims = verify(token);
         return claimsResolver.apply(claims);
     }
 
     /**
-     * 从 token 中提取所有 claims
+     * 使用共用的解析器解析并验签
      * @param token 用户token
      * @return claims信息
      */
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private Claims parse(String token) {
+        return verifyTimer.record(() -> parser.parseClaimsJws(token).getBody());
     }
 
     /**
-     * 检查 token 是否过期
-     * @param token 用户token
+     * 检查 claims 是否过期
+     * @param claims 已验证的 claims
      * @return 是否过期
      */
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    private boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
     }
 
     /**
@@ -82,10 +185,52 @@ public class JwtUtil {
      * @return 生成的token
      */
     public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails, null);
+    }
+
+    /**
+     * 生成 token，携带用户ID及角色，无状态认证时无需再查询用户
+     * @param userDetails 用户信息
+     * @param userId 用户ID，可为空
+     * @return 生成的token
+     */
+    public String generateToken(UserDetails userDetails, Integer userId) {
         Map<String, Object> claims = new HashMap<>();
+        if (userId != null) {
+            claims.put(CLAIM_USER_ID, userId);
+        }
+        claims.put(CLAIM_ROLES, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
         return createToken(claims, userDetails.getUsername());
     }
 
+    /**
+     * 读取毫秒精度的签发时间
+     * @param claims 已验证的 claims
+     * @return 签发时间（毫秒），旧版 token 未携带时返回null
+     */
+    public static Long getIssuedAtMillis(Claims claims) {
+        Object issuedAt = claims.get(CLAIM_ISSUED_AT_MILLIS);
+        return issuedAt instanceof Number number ? number.longValue() : null;
+    }
+
+    /**
+     * 由已验证的 claims 构造用户信息（不含密码）
+     * @param claims 已验证的 claims
+     * @return 携带用户ID的用户信息，token 未携带角色（旧版 token）时返回null
+     */
+    public UserDetails getUserDetailsFromClaims(Claims claims) {
+        Object roles = claims.get(CLAIM_ROLES);
+        if (!(roles instanceof List<?> roleList) || claims.getSubject() == null) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = roleList.stream()
+                .<GrantedAuthority>map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                .toList();
+        Object userId = claims.get(CLAIM_USER_ID);
+        return LoginUser.fromToken(userId instanceof Number number ? number.intValue() : null,
+                claims.getSubject(), authorities);
+    }
+
     /**
      * 生成 token (自定义 claims)
      * @param claims 自定义声明
@@ -93,31 +238,47 @@ public class JwtUtil {
      * @return 生成的token
      */
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
+        claims.put(CLAIM_ISSUED_AT_MILLIS, now); //毫秒精度的签发时间，用于与用户吊销时间比较
         return Jwts.builder()
                 .setClaims(claims) //设置 JWT 的 payload (claims)
                 .setSubject(subject) //设置 JWT 的 subject (通常是用户名)
-                .setIssuedAt(new Date(System.currentTimeMillis())) //设置 JWT 的签发时间
-                .setExpiration(new Date(System.currentTimeMillis() + expirationTime)) //设置 JWT 的过期时间
-                .signWith(key()) //使用 key 签名方法对 JWT 进行签名
+                .setId(UUID.randomUUID().toString()) //设置 JWT 的 ID，用于吊销单个 token
+                .setIssuedAt(new Date(now)) //设置 JWT 的签发时间
+                .setExpiration(new Date(now + expirationTime)) //设置 JWT 的过期时间
+                .signWith(key) //使用 key 签名方法对 JWT 进行签名
                 .compact(); //将 JWT 构建成紧凑的字符串形式
     }
 
     /**
-     * 签名方法
-     * @return 用于 JWT 的签名和验证的 key
+     * 验证 token
+     * @param token 用户token
+     * @param userDetails 用户信息
+     * @return token是否有效
      */
-    private Key key(){
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    public Boolean validateToken(String token, UserDetails userDetails) {
+        return validateClaims(verify(token), userDetails);
     }
 
     /**
-     * 验证 token
-     * @param token 用户token
+     * 校验已验证的 claims 与用户是否匹配且未过期
+     * @param claims 已验证的 claims
      * @param userDetails 用户信息
      * @return token是否有效
      */
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public boolean validateClaims(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject()) && !isExpired(claims);
+    }
+
+    /**
+     * 缓存键使用 token 的摘要，避免在内存中长期保留原始 token
+     */
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
     }
 }
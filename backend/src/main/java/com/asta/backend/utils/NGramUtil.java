@@ -0,0 +1,141 @@
+package com.asta.backend.utils;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * N-gram 分词工具，用于标题、用户名的子串倒排索引及行程内容全文检索
+ * <p>
+ * 按Unicode码点切分，中文按单字处理；索引时同时写入单字和相邻双字，
+ * 查询时单字查询使用单字，多字查询使用其全部双字求交集。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+public final class NGramUtil {
+
+    private NGramUtil() {
+    }
+
+    /**
+     * 生成写入索引的gram集合（单字 + 双字）
+     * @param text 原始文本
+     * @return gram集合，文本为空时返回空集合
+     */
+    public static Set<String> indexGrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (!StringUtils.hasText(text)) {
+            return grams;
+        }
+        int[] codePoints = normalize(text).codePoints().toArray();
+        for (int i = 0; i < codePoints.length; i++) {
+            grams.add(new String(codePoints, i, 1));
+            if (i + 1 < codePoints.length) {
+                grams.add(new String(codePoints, i, 2));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * 生成查询使用的gram集合
+     * @param text 查询关键字
+     * @return 单字关键字返回该字，否则返回全部双字
+     */
+    public static Set<String> queryGrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (!StringUtils.hasText(text)) {
+            return grams;
+        }
+        int[] codePoints = normalize(text).codePoints().toArray();
+        if (codePoints.length == 1) {
+            grams.add(new String(codePoints, 0, 1));
+            return grams;
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            grams.add(new String(codePoints, i, 2));
+        }
+        return grams;
+    }
+
+    /**
+     * 查询的gram集合命中是否等价于子串匹配
+     * <p>
+     * 不超过两个字的关键字只对应一个单字或双字，记录的gram集合包含它当且仅当文本包含该关键字；
+     * 更长的关键字由多个双字求交集，可能命中双字都出现但不相邻的文本，需要再做子串校验。
+     * </p>
+     * @param text 查询关键字
+     * @return 是否无需子串校验，关键字为空时返回true
+     */
+    public static boolean isExactQuery(String text) {
+        if (!StringUtils.hasText(text)) {
+            return true;
+        }
+        String normalized = normalize(text);
+        return normalized.codePointCount(0, normalized.length()) <= 2;
+    }
+
+    /**
+     * 全文检索分词（保留重复项用于统计词频）
+     * <p>
+     * 中日韩文字连续片段切分为相邻双字，单独一个字时保留单字；
+     * 字母数字连续片段作为一个小写单词；其余字符视为分隔符。
+     * </p>
+     * @param text 原始文本
+     * @return 分词结果
+     */
+    public static List<String> fullTextTokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (!StringUtils.hasText(text)) {
+            return tokens;
+        }
+        int[] codePoints = text.toLowerCase(Locale.ROOT).codePoints().toArray();
+        int i = 0;
+        while (i < codePoints.length) {
+            int start = i;
+            if (isCjk(codePoints[i])) {
+                while (i < codePoints.length && isCjk(codePoints[i])) {
+                    i++;
+                }
+                if (i - start == 1) {
+                    tokens.add(new String(codePoints, start, 1));
+                }
+                for (int j = start; j + 1 < i; j++) {
+                    tokens.add(new String(codePoints, j, 2));
+                }
+            } else if (Character.isLetterOrDigit(codePoints[i])) {
+                while (i < codePoints.length && Character.isLetterOrDigit(codePoints[i]) && !isCjk(codePoints[i])) {
+                    i++;
+                }
+                tokens.add(new String(codePoints, start, i - start));
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 是否为中日韩文字
+     */
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 统一大小写并去除首尾空白
+     */
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+}
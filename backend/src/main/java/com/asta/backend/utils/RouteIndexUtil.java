@@ -0,0 +1,126 @@
+package com.asta.backend.utils;
+
+import com.asta.backend.constant.RedisConstant;
+import com.asta.backend.entity.po.ItineraryHistorySummary;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 行程路线二级索引工具
+ * <p>
+ * 出发地、目的地、出发地-目的地、出行方式各自对应一个ZSET，score为出行日期的纪元日，
+ * 因此“某目的地某月的行程”只需对单个索引按score区间读取；没有出行日期的记录score为-inf，只在不限日期时命中。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+public final class RouteIndexUtil {
+
+    /**
+     * 出发地-目的地索引键中两者的分隔符
+     */
+    private static final String PAIR_SEPARATOR = "|";
+
+    private RouteIndexUtil() {
+    }
+
+    /**
+     * 一条记录写入的路线索引键
+     */
+    public static List<String> indexKeys(ItineraryHistorySummary summary) {
+        String origin = normalizePlace(summary.getStartPoint());
+        String destination = normalizePlace(summary.getEndPoint());
+        String mode = normalizeMode(summary.getTravelMode());
+
+        List<String> keys = new ArrayList<>(5);
+        if (origin != null) {
+            keys.add(RedisConstant.ROUTE_ORIGIN_INDEX_PREFIX + origin);
+        }
+        if (destination != null) {
+            keys.add(RedisConstant.ROUTE_DESTINATION_INDEX_PREFIX + destination);
+        }
+        if (origin != null && destination != null) {
+            keys.add(RedisConstant.ROUTE_PAIR_INDEX_PREFIX + origin + PAIR_SEPARATOR + destination);
+        }
+        if (mode != null) {
+            keys.add(RedisConstant.ROUTE_MODE_INDEX_PREFIX + mode);
+        }
+        if (parseTravelDate(summary.getTravelDate()) != null) {
+            keys.add(RedisConstant.ROUTE_DATE_INDEX);
+        }
+        return keys;
+    }
+
+    /**
+     * 查询需要求交集的路线索引键，第一个键的score即出行日期；没有任何路线条件时返回空列表
+     * <p>
+     * 同时指定出发地、目的地时直接使用组合索引；只有日期条件时使用出行日期索引。
+     * </p>
+     */
+    public static List<String> queryKeys(String startPoint, String endPoint, String travelMode, boolean hasDateRange) {
+        String origin = normalizePlace(startPoint);
+        String destination = normalizePlace(endPoint);
+        String mode = normalizeMode(travelMode);
+
+        List<String> keys = new ArrayList<>(2);
+        if (origin != null && destination != null) {
+            keys.add(RedisConstant.ROUTE_PAIR_INDEX_PREFIX + origin + PAIR_SEPARATOR + destination);
+        } else if (destination != null) {
+            keys.add(RedisConstant.ROUTE_DESTINATION_INDEX_PREFIX + destination);
+        } else if (origin != null) {
+            keys.add(RedisConstant.ROUTE_ORIGIN_INDEX_PREFIX + origin);
+        }
+        if (mode != null) {
+            keys.add(RedisConstant.ROUTE_MODE_INDEX_PREFIX + mode);
+        }
+        if (keys.isEmpty() && hasDateRange) {
+            keys.add(RedisConstant.ROUTE_DATE_INDEX);
+        }
+        return keys;
+    }
+
+    /**
+     * 出行日期对应的索引score（纪元日），无日期时为负无穷
+     */
+    public static double score(String travelDate) {
+        LocalDate date = parseTravelDate(travelDate);
+        return date == null ? Double.NEGATIVE_INFINITY : date.toEpochDay();
+    }
+
+    /**
+     * 解析出行日期
+     *
+     * @return 日期，为空时返回null
+     * @throws IllegalArgumentException 格式不是 yyyy-MM-dd
+     */
+    public static LocalDate parseTravelDate(String travelDate) {
+        if (!StringUtils.hasText(travelDate)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(travelDate.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("出行日期格式错误，应为 yyyy-MM-dd: " + travelDate);
+        }
+    }
+
+    /**
+     * 地点去除首尾空白，为空时返回null
+     */
+    public static String normalizePlace(String place) {
+        return StringUtils.hasText(place) ? place.trim() : null;
+    }
+
+    /**
+     * 出行方式去除首尾空白并转为小写，为空时返回null
+     */
+    public static String normalizeMode(String mode) {
+        return StringUtils.hasText(mode) ? mode.trim().toLowerCase(Locale.ROOT) : null;
+    }
+}
@@ -0,0 +1,35 @@
+-- 历史行程记录表，由 Redis 落库队列批量写入（history.persist.enabled=true 时需先建表）
+CREATE TABLE IF NOT EXISTS `itinerary_history`
+(
+    `id`                  VARCHAR(64)  NOT NULL COMMENT '历史记录ID',
+    `user_id`             INT          NULL COMMENT '用户ID',
+    `username`            VARCHAR(64)  NULL COMMENT '用户名',
+    `title`               VARCHAR(255) NULL COMMENT '行程标题',
+    `created_at`          DATETIME     NOT NULL COMMENT '创建时间',
+    `generated_itinerary` MEDIUMTEXT   NULL COMMENT '生成的行程内容',
+    `start_point`         VARCHAR(64)  NULL COMMENT '出发地',
+    `end_point`           VARCHAR(64)  NULL COMMENT '目的地',
+    `travel_date`         DATE         NULL COMMENT '出行日期',
+    `travel_mode`         VARCHAR(16)  NULL COMMENT '出行方式',
+    `duration`            VARCHAR(16)  NULL COMMENT '预计时长',
+    PRIMARY KEY (`id`),
+    KEY `idx_created` (`created_at`, `id`),
+    KEY `idx_user_created` (`user_id`, `created_at`, `id`),
+    KEY `idx_route_date` (`start_point`, `end_point`, `travel_date`),
+    KEY `idx_destination_date` (`end_point`, `travel_date`),
+    KEY `idx_mode_date` (`travel_mode`, `travel_date`),
+    KEY `idx_travel_date` (`travel_date`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='历史行程记录';
+
+-- 已有表升级：增加路线字段及索引
+-- ALTER TABLE `itinerary_history`
+--     ADD COLUMN `start_point` VARCHAR(64) NULL COMMENT '出发地',
+--     ADD COLUMN `end_point`   VARCHAR(64) NULL COMMENT '目的地',
+--     ADD COLUMN `travel_date` DATE        NULL COMMENT '出行日期',
+--     ADD COLUMN `travel_mode` VARCHAR(16) NULL COMMENT '出行方式',
+--     ADD COLUMN `duration`    VARCHAR(16) NULL COMMENT '预计时长',
+--     ADD KEY `idx_route_date` (`start_point`, `end_point`, `travel_date`),
+--     ADD KEY `idx_destination_date` (`end_point`, `travel_date`),
+--     ADD KEY `idx_mode_date` (`travel_mode`, `travel_date`),
+--     ADD KEY `idx_travel_date` (`travel_date`);
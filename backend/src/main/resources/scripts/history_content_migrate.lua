@@ -0,0 +1,15 @@
+-- 将内嵌行程内容的旧正文迁移为只保留内容摘要的正文，并登记内容引用
+-- KEYS[1] 正文键  KEYS[2] 内容归属分片  KEYS[3] 内容键
+-- ARGV[1] 记录ID  ARGV[2] 读取到的旧正文  ARGV[3] 新正文  ARGV[4] 内容摘要  ARGV[5] 编码后的行程内容
+-- 正文已被并发修改、删除或记录已登记内容归属时跳过，返回0；迁移成功返回1
+if redis.call('GET', KEYS[1]) ~= ARGV[2] then
+    return 0
+end
+if redis.call('HEXISTS', KEYS[2], ARGV[1]) == 1 then
+    return 0
+end
+redis.call('SET', KEYS[1], ARGV[3])
+redis.call('HSET', KEYS[2], ARGV[1], ARGV[4])
+redis.call('HSETNX', KEYS[3], 'data', ARGV[5])
+redis.call('HINCRBY', KEYS[3], 'refs', 1)
+return 1
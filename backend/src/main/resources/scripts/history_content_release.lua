@@ -0,0 +1,15 @@
+-- 批量释放记录对行程内容的引用：记录的内容归属仍为预期值时删除归属并将引用计数减一，计数归零时删除内容
+-- KEYS[2i-1] 第i条记录的内容归属分片  KEYS[2i] 第i条记录引用的内容键
+-- ARGV[2i-1] 第i条记录ID  ARGV[2i] 调用方读取到的内容摘要
+-- 返回删除的内容数量
+local released = 0
+for i = 1, #ARGV, 2 do
+    if redis.call('HGET', KEYS[i], ARGV[i]) == ARGV[i + 1] then
+        redis.call('HDEL', KEYS[i], ARGV[i])
+        if redis.call('HINCRBY', KEYS[i + 1], 'refs', -1) <= 0 then
+            redis.call('DEL', KEYS[i + 1])
+            released = released + 1
+        end
+    end
+end
+return released
@@ -0,0 +1,38 @@
+-- 原子删除历史记录：正文、摘要、时间索引、行程内容引用、用户历史列表、路线索引及倒排索引在一次调用内全部清理，并写入落库队列的删除条目
+-- KEYS 布局与 history_save.lua 相同，KEYS[6]、KEYS[7] 均为记录引用的内容键
+-- ARGV[1] 记录ID  ARGV[2] 用户历史列表成员（无用户时为空串）  ARGV[3] 落库队列条目（未启用落库时为空串）
+-- ARGV[4] 路线索引键数量  ARGV[5] 调用方读取到的内容摘要（无时为空串）
+-- 返回删除的正文及摘要键数量，二者都不存在（记录不在Redis中）时为0；正文已归档移出Redis时仍按摘要计数；内容摘要与当前归属不一致时不做任何修改并返回-1
+local previous = redis.call('HGET', KEYS[5], ARGV[1]) or ''
+if previous ~= ARGV[5] then
+    return -1
+end
+if previous ~= '' then
+    redis.call('HDEL', KEYS[5], ARGV[1])
+    if redis.call('HINCRBY', KEYS[6], 'refs', -1) <= 0 then
+        redis.call('DEL', KEYS[6])
+    end
+end
+
+local deleted = redis.call('DEL', KEYS[1], KEYS[2])
+redis.call('ZREM', KEYS[3], ARGV[1])
+if ARGV[3] ~= '' then
+    redis.call('LPUSH', KEYS[4], ARGV[3])
+end
+
+local routeStart = 8
+if ARGV[2] ~= '' then
+    redis.call('LREM', KEYS[8], 1, ARGV[2])
+    redis.call('ZREM', KEYS[9], ARGV[1])
+    routeStart = 10
+end
+
+local gramStart = routeStart + tonumber(ARGV[4])
+for i = routeStart, gramStart - 1 do
+    redis.call('ZREM', KEYS[i], ARGV[1])
+end
+
+for i = gramStart, #KEYS do
+    redis.call('SREM', KEYS[i], ARGV[1])
+end
+return deleted
@@ -0,0 +1,70 @@
+-- 原子保存历史记录：正文、摘要、时间索引、落库队列、行程内容引用、用户历史列表、路线索引及倒排索引在一次调用内全部写入
+-- KEYS[1] 正文键  KEYS[2] 摘要键  KEYS[3] 全局时间索引  KEYS[4] 落库队列
+-- KEYS[5] 内容归属分片  KEYS[6] 新内容键（无内容时为占位键）  KEYS[7] 原内容键（无原内容时同KEYS[6]）
+-- 有用户时 KEYS[8] 用户历史列表  KEYS[9] 用户时间索引；其后依次为 ARGV[7] 个路线索引键及n-gram集合键
+-- ARGV[1] 记录ID  ARGV[2] 正文  ARGV[3] 摘要  ARGV[4] 创建时间score  ARGV[5] 用户历史列表成员（无用户时为空串）
+-- ARGV[6] 落库队列条目（未启用落库时为空串）  ARGV[7] 路线索引键数量  ARGV[8] 出行日期score
+-- ARGV[9] 新内容摘要（无内容时为空串）  ARGV[10] 编码后的行程内容  ARGV[11] 调用方读取到的原内容摘要（无时为空串）
+-- ARGV[12] 覆盖已有记录时为1，否则为空串  ARGV[13] 用户变化时原用户历史列表成员（否则为空串）
+-- ARGV[14] 需移除的ZSET索引数量  ARGV[15] 需移除的gram集合数量
+-- 覆盖写入时KEYS末尾依次为：原用户历史列表（ARGV[13]非空时）、ARGV[14] 个原路线索引及原用户时间索引、ARGV[15] 个原gram集合
+-- 原内容摘要与当前归属不一致（并发覆盖写入）时不做任何修改并返回-1，由调用方重新读取后重试
+local previous = redis.call('HGET', KEYS[5], ARGV[1]) or ''
+if previous ~= ARGV[11] then
+    return -1
+end
+
+if ARGV[9] ~= previous then
+    if ARGV[9] ~= '' then
+        redis.call('HSETNX', KEYS[6], 'data', ARGV[10])
+        redis.call('HINCRBY', KEYS[6], 'refs', 1)
+        redis.call('HSET', KEYS[5], ARGV[1], ARGV[9])
+    else
+        redis.call('HDEL', KEYS[5], ARGV[1])
+    end
+    if previous ~= '' and redis.call('HINCRBY', KEYS[7], 'refs', -1) <= 0 then
+        redis.call('DEL', KEYS[7])
+    end
+end
+
+redis.call('SET', KEYS[1], ARGV[2])
+redis.call('SET', KEYS[2], ARGV[3])
+redis.call('ZADD', KEYS[3], ARGV[4], ARGV[1])
+if ARGV[6] ~= '' then
+    redis.call('LPUSH', KEYS[4], ARGV[6])
+end
+
+-- 先移除原记录不再适用的索引项
+local staleList = ARGV[13] ~= '' and 1 or 0
+local staleStart = #KEYS - staleList - tonumber(ARGV[14]) - tonumber(ARGV[15]) + 1
+if staleList == 1 then
+    redis.call('LREM', KEYS[staleStart], 0, ARGV[13])
+end
+local staleSetStart = staleStart + staleList + tonumber(ARGV[14])
+for i = staleStart + staleList, staleSetStart - 1 do
+    redis.call('ZREM', KEYS[i], ARGV[1])
+end
+for i = staleSetStart, #KEYS do
+    redis.call('SREM', KEYS[i], ARGV[1])
+end
+
+local routeStart = 8
+if ARGV[5] ~= '' then
+    -- 覆盖写入时先移除列表中的原成员，避免重复
+    if ARGV[12] ~= '' then
+        redis.call('LREM', KEYS[8], 0, ARGV[5])
+    end
+    redis.call('LPUSH', KEYS[8], ARGV[5])
+    redis.call('ZADD', KEYS[9], ARGV[4], ARGV[1])
+    routeStart = 10
+end
+
+local gramStart = routeStart + tonumber(ARGV[7])
+for i = routeStart, gramStart - 1 do
+    redis.call('ZADD', KEYS[i], ARGV[8], ARGV[1])
+end
+
+for i = gramStart, staleStart - 1 do
+    redis.call('SADD', KEYS[i], ARGV[1])
+end
+return 1
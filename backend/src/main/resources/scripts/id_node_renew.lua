@@ -0,0 +1,6 @@
+-- 续约历史记录ID节点号租约，仅当租约仍由当前实例持有时延长过期时间
+-- KEYS[1] 节点号租约键  ARGV[1] 实例标识  ARGV[2] 租约时长(毫秒)
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,6 @@
+-- 释放分布式锁，仅当锁仍由当前实例持有时删除
+-- KEYS[1] 锁键  ARGV[1] 实例标识
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,40 @@
+package com.asta.backend.benchmark;
+
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+
+/**
+ * 基准测试使用的样例数据
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 构造一条接近真实大小的历史记录，行程正文约 1KB
+     *
+     * @param n 序号，用于区分不同记录
+     */
+    static ItineraryHistoryItem historyItem(int n) {
+        StringBuilder itinerary = new StringBuilder();
+        for (int day = 1; day <= 5; day++) {
+            itinerary.append("第").append(day).append("天：上午游览西湖景区，中午在河坊街品尝特色小吃，")
+                    .append("下午前往灵隐寺参观，晚上入住湖滨酒店。预计费用 ").append(300 + n * day).append(" 元。\n");
+        }
+        return new ItineraryHistoryItem()
+                .setId(String.format("HIST_1751600000000_0001%04d", n % 10000))
+                .setTitle("杭州五日游 " + n)
+                .setGeneratedItinerary(itinerary.toString())
+                .setCreatedAt("2025-07-04 12:00:00")
+                .setUserId(n)
+                .setUsername("user" + n)
+                .setStartPoint("上海")
+                .setEndPoint("杭州")
+                .setTravelDate("2025-08-01")
+                .setTravelMode("train")
+                .setDuration("5天");
+    }
+}
@@ -0,0 +1,71 @@
+package com.asta.backend.benchmark;
+
+import com.asta.backend.codec.HistoryRecordCodec;
+import com.asta.backend.codec.JsonHistoryRecordCodec;
+import com.asta.backend.codec.SmileHistoryRecordCodec;
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史记录编解码基准：对比 json 与 smile 的编码、解码耗时及编码后大小
+ * <p>
+ * 运行方式（backend 目录下）：
+ * {@code mvn -B test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="HistoryCodecBenchmark"}
+ * </p>
+ * 编码后大小在每组参数结束时输出到控制台。
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryCodecBenchmark {
+
+    @Param({"json", "smile"})
+    private String format;
+
+    private HistoryRecordCodec codec;
+    private ItineraryHistoryItem item;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        codec = "smile".equals(format) ? new SmileHistoryRecordCodec() : new JsonHistoryRecordCodec(new ObjectMapper());
+        item = BenchmarkData.historyItem(1);
+        encoded = codec.encode(item);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return codec.encode(item);
+    }
+
+    @Benchmark
+    public ItineraryHistoryItem decode() throws IOException {
+        return codec.decode(encoded);
+    }
+
+    @TearDown
+    public void reportSize() {
+        System.out.printf("%n[%s] 编码后大小: %d 字节%n", format, encoded.length);
+    }
+}
@@ -0,0 +1,117 @@
+package com.asta.backend.benchmark;
+
+import com.asta.backend.codec.CompressionDictionaryStore;
+import com.asta.backend.codec.DictionaryTrainer;
+import com.asta.backend.codec.HistoryRecordSerializer;
+import com.asta.backend.codec.JsonHistoryRecordCodec;
+import com.asta.backend.codec.LegacyJsonStringHistoryRecordDecoder;
+import com.asta.backend.codec.SmileHistoryRecordCodec;
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史记录字典压缩基准：对比有无预置字典时的序列化、反序列化耗时及压缩率
+ * <p>
+ * 运行方式（backend 目录下）：
+ * {@code mvn -B test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="HistoryCompressionBenchmark"}
+ * </p>
+ * 压缩率（压缩后字节数 / 压缩前字节数）在每组参数结束时输出到控制台；样例记录彼此相似，
+ * 压缩率会优于真实数据，需以线上 history.record.compression.ratio 指标为准。
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryCompressionBenchmark {
+
+    private static final int SAMPLE_COUNT = 200;
+    private static final int DICTIONARY_SIZE = 16 * 1024;
+
+    @Param({"json", "smile"})
+    private String format;
+
+    @Param({"true", "false"})
+    private boolean dictionary;
+
+    private HistoryRecordSerializer serializer;
+    private ItineraryHistoryItem item;
+    private byte[] plain;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        CompressionDictionaryStore dictionaryStore = new CompressionDictionaryStore(null, null);
+        if (dictionary) {
+            HistoryRecordSerializer sampler = serializer(new CompressionDictionaryStore(null, null));
+            List<byte[]> samples = new ArrayList<>(SAMPLE_COUNT);
+            for (int i = 0; i < SAMPLE_COUNT; i++) {
+                samples.add(sampler.encodeUncompressed(BenchmarkData.historyItem(i)));
+            }
+            // 直接写入本地缓存，避免访问Redis
+            Map<Integer, byte[]> dictionaries = getDictionaries(dictionaryStore);
+            dictionaries.put(1, DictionaryTrainer.train(samples, DICTIONARY_SIZE));
+            ReflectionTestUtils.setField(dictionaryStore, "currentVersion", 1);
+        }
+        serializer = serializer(dictionaryStore);
+        item = BenchmarkData.historyItem(SAMPLE_COUNT + 1);
+        plain = serializer.encodeUncompressed(item);
+        serialized = serializer.serialize(item);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return serializer.serialize(item);
+    }
+
+    @Benchmark
+    public ItineraryHistoryItem deserialize() throws IOException {
+        return serializer.deserialize(serialized);
+    }
+
+    @TearDown
+    public void reportRatio() {
+        System.out.printf("%n[%s, dictionary=%s] %d -> %d 字节，压缩率 %.3f%n",
+                format, dictionary, plain.length, serialized.length, (double) serialized.length / plain.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Integer, byte[]> getDictionaries(CompressionDictionaryStore dictionaryStore) {
+        return (Map<Integer, byte[]>) ReflectionTestUtils.getField(dictionaryStore, "dictionaries");
+    }
+
+    private HistoryRecordSerializer serializer(CompressionDictionaryStore dictionaryStore) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HistoryRecordSerializer result = new HistoryRecordSerializer(
+                List.of(new JsonHistoryRecordCodec(objectMapper), new SmileHistoryRecordCodec(),
+                        new LegacyJsonStringHistoryRecordDecoder(objectMapper)),
+                dictionaryStore, new SimpleMeterRegistry(), format);
+        ReflectionTestUtils.setField(result, "compressionEnabled", true);
+        ReflectionTestUtils.setField(result, "compressionThreshold", 256);
+        return result;
+    }
+}
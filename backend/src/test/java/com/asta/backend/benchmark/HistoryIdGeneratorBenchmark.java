@@ -0,0 +1,58 @@
+package com.asta.backend.benchmark;
+
+import com.asta.backend.utils.HistoryIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史记录ID生成基准：单线程与多线程竞争下的吞吐量
+ * <p>
+ * 运行方式（backend 目录下）：
+ * {@code mvn -B test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="HistoryIdGeneratorBenchmark"}
+ * </p>
+ * 单节点每毫秒最多生成 4096 个ID，吞吐量超过该上限后会借用后续毫秒，时间戳逐渐超前于系统时钟。
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryIdGeneratorBenchmark {
+
+    private HistoryIdGenerator generator;
+
+    @Setup
+    public void setup() {
+        generator = new HistoryIdGenerator(null);
+        ReflectionTestUtils.setField(generator, "configuredNodeId", 1);
+        generator.init();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String singleThread() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String eightThreads() {
+        return generator.nextId();
+    }
+}
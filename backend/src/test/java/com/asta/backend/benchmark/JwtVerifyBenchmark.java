@@ -0,0 +1,92 @@
+package com.asta.backend.benchmark;
+
+import com.asta.backend.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * token 验证基准：对比启用与关闭已验证 token 缓存时 {@link JwtUtil#verify} 的耗时，以及改造前每次请求的验证路径
+ * <p>
+ * 运行方式（backend 目录下）：
+ * {@code mvn -B test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="JwtVerifyBenchmark"}
+ * </p>
+ * 启用缓存时测得的是命中开销（计算 token 摘要 + 缓存查询），关闭时为完整的解析及验签开销。
+ * {@link #baseline()} 复现改造前的过滤器路径，不受缓存参数影响：每次解析都重新构造签名密钥及解析器，
+ * 依次读取用户名、再在 validateToken 中读取用户名及过期时间，共解析验签三次。
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerifyBenchmark {
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    private JwtUtil jwtUtil;
+    private String secret;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil(new SimpleMeterRegistry());
+        secret = Base64.getEncoder().encodeToString(new byte[32]);
+        ReflectionTestUtils.setField(jwtUtil, "secret", secret);
+        ReflectionTestUtils.setField(jwtUtil, "expirationTime", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtUtil, "cacheEnabled", cacheEnabled);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 10_000L);
+        jwtUtil.init();
+        token = jwtUtil.generateToken(new User("alice", "", AuthorityUtils.createAuthorityList("ROLE_USER")), 7);
+    }
+
+    @Benchmark
+    public Object verify() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public boolean baseline() {
+        String username = parse().getSubject();
+        // 原 validateToken：getUsernameFromToken 与 isTokenExpired 各解析一次
+        return username.equals(parse().getSubject()) && !parse().getExpiration().before(new Date());
+    }
+
+    /**
+     * 原 getAllClaimsFromToken：每次调用都重新解码密钥并构造解析器
+     */
+    private Claims parse() {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,119 @@
+package com.asta.backend.benchmark;
+
+import com.asta.backend.utils.NGramUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 标题子串检索基准：对比 n-gram 倒排索引与原先逐条 contains 扫描在 1万、10万、100万条记录下的耗时
+ * <p>
+ * 运行方式（backend 目录下）：
+ * {@code mvn -B test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="NGramIndexBenchmark"}
+ * </p>
+ * <p>
+ * 倒排索引使用 {@link NGramUtil} 的索引、查询分词，在内存中以有序ID数组模拟Redis的gram集合：
+ * 查询时从最短的集合开始求交集，再对候选记录做子串校验，与服务中 ZINTERSTORE + 校验的流程一致，
+ * 不含网络往返。扫描与原实现一致，对全部标题小写后逐条 contains。
+ * </p>
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class NGramIndexBenchmark {
+
+    private static final String[] CITIES = {"杭州", "上海", "北京", "成都", "重庆", "西安", "广州", "深圳", "厦门", "青岛",
+            "大理", "丽江", "桂林", "三亚", "苏州", "南京", "武汉", "长沙", "昆明", "拉萨"};
+
+    private static final String[] THEMES = {"美食", "亲子", "徒步", "古镇", "海岛", "博物馆", "温泉", "夜景", "自驾", "摄影"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int records;
+
+    /**
+     * 常见词（约 1/20 的记录命中）、组合词（约 1/200）、近似唯一的编号
+     */
+    @Param({"杭州", "成都美食", "#12345"})
+    private String keyword;
+
+    private String[] titles;
+    private Map<String, int[]> postings;
+
+    @Setup
+    public void setup() {
+        titles = new String[records];
+        Map<String, List<Integer>> building = new HashMap<>();
+        for (int i = 0; i < records; i++) {
+            titles[i] = CITIES[i % CITIES.length] + THEMES[(i / CITIES.length) % THEMES.length] + (i % 7 + 1) + "日游 #" + i;
+            for (String gram : NGramUtil.indexGrams(titles[i])) {
+                building.computeIfAbsent(gram, k -> new ArrayList<>()).add(i);
+            }
+        }
+        postings = new HashMap<>(building.size() * 2);
+        building.forEach((gram, ids) -> postings.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    @Benchmark
+    public int scan() {
+        String lowerKeyword = keyword.trim().toLowerCase();
+        int matched = 0;
+        for (String title : titles) {
+            if (title.toLowerCase().contains(lowerKeyword)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int index() {
+        List<int[]> lists = new ArrayList<>();
+        for (String gram : NGramUtil.queryGrams(keyword)) {
+            int[] ids = postings.get(gram);
+            if (ids == null) {
+                return 0;
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(ids -> ids.length));
+
+        String lowerKeyword = keyword.trim().toLowerCase();
+        int matched = 0;
+        int[] smallest = lists.get(0);
+        candidates:
+        for (int id : smallest) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (Arrays.binarySearch(lists.get(i), id) < 0) {
+                    continue candidates;
+                }
+            }
+            // 双字交集可能误命中，与服务一致再做一次子串校验
+            if (titles[id].toLowerCase().contains(lowerKeyword)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,183 @@
+package com.asta.backend.codec;
+
+import com.asta.backend.entity.po.ItineraryHistoryItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 历史记录序列化往返测试
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+class HistoryRecordSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"json", "smile"})
+    void roundTripsEveryWriteCodec(String format) throws IOException {
+        HistoryRecordSerializer serializer = serializer(format, mock(CompressionDictionaryStore.class));
+        ItineraryHistoryItem item = sampleItem(1);
+
+        byte[] data = serializer.serialize(item);
+
+        assertThat(serializer.isCurrentFormat(data)).isTrue();
+        assertThat(serializer.deserialize(data)).isEqualTo(item);
+    }
+
+    @Test
+    void smileIsSmallerThanJson() throws IOException {
+        CompressionDictionaryStore dictionaryStore = mock(CompressionDictionaryStore.class);
+        ItineraryHistoryItem item = sampleItem(1);
+
+        byte[] json = serializer("json", dictionaryStore).serialize(item);
+        byte[] smile = serializer("smile", dictionaryStore).serialize(item);
+
+        assertThat(smile.length).isLessThan(json.length);
+    }
+
+    @Test
+    void readsRecordsWrittenInOtherFormats() throws IOException {
+        CompressionDictionaryStore dictionaryStore = mock(CompressionDictionaryStore.class);
+        ItineraryHistoryItem item = sampleItem(1);
+        byte[] json = serializer("json", dictionaryStore).serialize(item);
+        byte[] legacy = objectMapper.writeValueAsBytes(objectMapper.writeValueAsString(item));
+
+        HistoryRecordSerializer smileSerializer = serializer("smile", dictionaryStore);
+
+        assertThat(smileSerializer.deserialize(json)).isEqualTo(item);
+        assertThat(smileSerializer.deserialize(legacy)).isEqualTo(item);
+        assertThat(smileSerializer.isCurrentFormat(json)).isFalse();
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        HistoryRecordSerializer serializer = serializer("json", mock(CompressionDictionaryStore.class));
+
+        assertThatThrownBy(() -> serializer.deserialize(new byte[]{'x', 'y'})).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> serializer("xml", mock(CompressionDictionaryStore.class)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsReadOnlyFormatForWrites() {
+        assertThatThrownBy(() -> serializer("legacy", mock(CompressionDictionaryStore.class)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("legacy");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"json", "smile"})
+    void roundTripsEveryWriteCodecWithDictionary(String format) throws IOException {
+        CompressionDictionaryStore dictionaryStore = dictionaryStore(format, 1);
+        HistoryRecordSerializer serializer = serializer(format, dictionaryStore);
+        ItineraryHistoryItem item = sampleItem(42);
+
+        byte[] plain = serializer.encodeUncompressed(item);
+        byte[] data = serializer.serialize(item);
+
+        assertThat(data[0]).isEqualTo((byte) 'Z');
+        assertThat(data[1]).isEqualTo((byte) 'D');
+        assertThat(data.length).isLessThan(plain.length);
+        assertThat(serializer.isCurrentFormat(data)).isTrue();
+        assertThat(serializer.isCurrentFormat(plain)).isFalse();
+        assertThat(serializer.deserialize(data)).isEqualTo(item);
+    }
+
+    @Test
+    void readsRecordsCompressedWithPreviousDictionary() throws IOException {
+        CompressionDictionaryStore dictionaryStore = dictionaryStore("json", 1);
+        HistoryRecordSerializer serializer = serializer("json", dictionaryStore);
+        ItineraryHistoryItem item = sampleItem(42);
+        byte[] data = serializer.serialize(item);
+
+        when(dictionaryStore.currentVersion()).thenReturn(2);
+
+        assertThat(serializer.isCurrentFormat(data)).isFalse();
+        assertThat(serializer.deserialize(data)).isEqualTo(item);
+    }
+
+    @Test
+    void rejectsCompressedRecordWithUnknownDictionary() throws IOException {
+        CompressionDictionaryStore dictionaryStore = dictionaryStore("json", 1);
+        byte[] data = serializer("json", dictionaryStore).serialize(sampleItem(42));
+
+        when(dictionaryStore.get(1)).thenReturn(null);
+
+        assertThatThrownBy(() -> serializer("json", dictionaryStore).deserialize(data))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void skipsCompressionWhenDisabled() throws IOException {
+        HistoryRecordSerializer serializer = serializer("json", dictionaryStore("json", 1));
+        ReflectionTestUtils.setField(serializer, "compressionEnabled", false);
+        ItineraryHistoryItem item = sampleItem(42);
+
+        byte[] data = serializer.serialize(item);
+
+        assertThat(data).isEqualTo(serializer.encodeUncompressed(item));
+        assertThat(serializer.isCurrentFormat(data)).isTrue();
+    }
+
+    /**
+     * 使用同格式的样本训练字典，并模拟字典存储只持有该版本
+     */
+    CompressionDictionaryStore dictionaryStore(String format, int version) throws IOException {
+        HistoryRecordSerializer sampler = serializer(format, mock(CompressionDictionaryStore.class));
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            samples.add(sampler.encodeUncompressed(sampleItem(i)));
+        }
+        byte[] dictionary = DictionaryTrainer.train(samples, 4096);
+
+        CompressionDictionaryStore dictionaryStore = mock(CompressionDictionaryStore.class);
+        when(dictionaryStore.currentVersion()).thenReturn(version);
+        when(dictionaryStore.get(version)).thenReturn(dictionary);
+        return dictionaryStore;
+    }
+
+    HistoryRecordSerializer serializer(String format, CompressionDictionaryStore dictionaryStore) {
+        List<HistoryRecordDecoder> decoders = List.of(new JsonHistoryRecordCodec(objectMapper),
+                new SmileHistoryRecordCodec(), new LegacyJsonStringHistoryRecordDecoder(objectMapper));
+        HistoryRecordSerializer serializer =
+                new HistoryRecordSerializer(decoders, dictionaryStore, new SimpleMeterRegistry(), format);
+        ReflectionTestUtils.setField(serializer, "compressionEnabled", true);
+        ReflectionTestUtils.setField(serializer, "compressionThreshold", 256);
+        return serializer;
+    }
+
+    static ItineraryHistoryItem sampleItem(int n) {
+        StringBuilder itinerary = new StringBuilder();
+        for (int day = 1; day <= 5; day++) {
+            itinerary.append("第").append(day).append("天：上午游览西湖景区，中午在河坊街品尝特色小吃，")
+                    .append("下午前往灵隐寺参观，晚上入住湖滨酒店。预计费用 ").append(300 + n * day).append(" 元。\n");
+        }
+        return new ItineraryHistoryItem()
+                .setId("HIST_1751600000000_0001" + String.format("%04d", n))
+                .setTitle("杭州五日游 " + n)
+                .setGeneratedItinerary(itinerary.toString())
+                .setCreatedAt("2025-07-04 12:00:00")
+                .setUserId(n)
+                .setUsername("user" + n)
+                .setStartPoint("上海")
+                .setEndPoint("杭州")
+                .setTravelDate("2025-08-01")
+                .setTravelMode("train")
+                .setDuration("5天");
+    }
+}
@@ -0,0 +1,227 @@
+package com.asta.backend.utils;
+
+import com.asta.backend.constant.RedisConstant;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 历史记录ID生成器测试
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+class HistoryIdGeneratorTest {
+
+    private static final String ID_PATTERN = "HIST_\\d{13}_\\d{8}";
+
+    private static final int THREADS = 8;
+
+    private static final int IDS_PER_THREAD = 20_000;
+
+    @Test
+    void generatesUniqueIdsUnderConcurrency() throws Exception {
+        HistoryIdGenerator generator = generator(7);
+
+        List<List<String>> batches = generateConcurrently(List.of(generator), THREADS, IDS_PER_THREAD);
+
+        Set<String> ids = new HashSet<>();
+        for (List<String> batch : batches) {
+            ids.addAll(batch);
+            assertThat(batch).isSorted();
+            assertThat(batch).allMatch(id -> id.matches(ID_PATTERN));
+        }
+        assertThat(ids).hasSize(THREADS * IDS_PER_THREAD);
+    }
+
+    @Test
+    void nodesNeverCollide() throws Exception {
+        List<HistoryIdGenerator> generators = List.of(generator(1), generator(2), generator(1023));
+
+        List<List<String>> batches = generateConcurrently(generators, generators.size() * 2, IDS_PER_THREAD);
+
+        Set<String> ids = new HashSet<>();
+        batches.forEach(ids::addAll);
+        assertThat(ids).hasSize(generators.size() * 2 * IDS_PER_THREAD);
+    }
+
+    @Test
+    void keepsIncreasingWhenClockMovesBackwards() {
+        HistoryIdGenerator generator = generator(3);
+        long future = System.currentTimeMillis() + Duration.ofMinutes(5).toMillis();
+        ReflectionTestUtils.setField(generator, "lastTimestamp", future);
+        ReflectionTestUtils.setField(generator, "sequence", 10);
+
+        String first = generator.nextId();
+        String second = generator.nextId();
+
+        assertThat(first).isEqualTo("HIST_" + future + "_00030011");
+        assertThat(second).isEqualTo("HIST_" + future + "_00030012");
+    }
+
+    @Test
+    void borrowsNextMillisecondWhenSequenceIsExhausted() {
+        HistoryIdGenerator generator = generator(3);
+        long future = System.currentTimeMillis() + Duration.ofMinutes(5).toMillis();
+        ReflectionTestUtils.setField(generator, "lastTimestamp", future);
+        ReflectionTestUtils.setField(generator, "sequence", 4095);
+
+        assertThat(generator.nextId()).isEqualTo("HIST_" + (future + 1) + "_00030000");
+    }
+
+    @Test
+    void usesConfiguredNodeWithoutRedis() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        HistoryIdGenerator generator = new HistoryIdGenerator(redisTemplate);
+        ReflectionTestUtils.setField(generator, "configuredNodeId", 42);
+
+        generator.init();
+
+        assertThat(generator.nextId()).matches("HIST_\\d{13}_0042\\d{4}");
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void rejectsConfiguredNodeOutOfRange() {
+        HistoryIdGenerator generator = new HistoryIdGenerator(mock(StringRedisTemplate.class));
+        ReflectionTestUtils.setField(generator, "configuredNodeId", 1024);
+
+        assertThatThrownBy(generator::init).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void claimsFirstFreeNodeLease() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment(anyString())).thenReturn(1025L, 1026L);
+        when(valueOperations.setIfAbsent(eq(RedisConstant.HISTORY_ID_NODE_PREFIX + 1), anyString(), eq(Duration.ofSeconds(60))))
+                .thenReturn(false);
+        when(valueOperations.setIfAbsent(eq(RedisConstant.HISTORY_ID_NODE_PREFIX + 2), anyString(), eq(Duration.ofSeconds(60))))
+                .thenReturn(true);
+        HistoryIdGenerator generator = new HistoryIdGenerator(redisTemplate);
+        ReflectionTestUtils.setField(generator, "configuredNodeId", -1);
+
+        generator.init();
+
+        assertThat(generator.nextId()).matches("HIST_\\d{13}_0002\\d{4}");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failsWithoutFallbackWhenRedisIsUnavailable() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        HistoryIdGenerator generator = new HistoryIdGenerator(redisTemplate);
+        ReflectionTestUtils.setField(generator, "configuredNodeId", -1);
+
+        generator.init();
+
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void failsOnceLeaseExpiresWithoutRenewal() {
+        HistoryIdGenerator generator = leasedGenerator(mock(StringRedisTemplate.class));
+        assertThat(generator.nextId()).matches("HIST_\\d{13}_0002\\d{4}");
+
+        // 续约一直失败，租约到期（减去安全余量）后不再生成ID
+        ReflectionTestUtils.setField(generator, "leaseDeadline", System.nanoTime() - 1);
+
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failsWhenLeaseIsLostAndCannotBeReclaimed() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        HistoryIdGenerator generator = leasedGenerator(redisTemplate);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any())).thenReturn(0L);
+        when(redisTemplate.opsForValue().increment(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        generator.renewLease();
+
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * 多个线程轮流使用给定的生成器，各线程同时开始并按生成顺序返回ID
+     */
+    private static List<List<String>> generateConcurrently(List<HistoryIdGenerator> generators,
+                                                           int threads, int count) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                HistoryIdGenerator generator = generators.get(t % generators.size());
+                Callable<List<String>> task = () -> {
+                    List<String> ids = new ArrayList<>(count);
+                    start.await();
+                    for (int i = 0; i < count; i++) {
+                        ids.add(generator.nextId());
+                    }
+                    return ids;
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            List<List<String>> batches = new ArrayList<>();
+            for (Future<List<String>> future : futures) {
+                batches.add(future.get());
+            }
+            return batches;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 通过Redis租约分配到节点号2的生成器
+     */
+    @SuppressWarnings("unchecked")
+    private static HistoryIdGenerator leasedGenerator(StringRedisTemplate redisTemplate) {
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment(anyString())).thenReturn(2L);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        HistoryIdGenerator generator = new HistoryIdGenerator(redisTemplate);
+        ReflectionTestUtils.setField(generator, "configuredNodeId", -1);
+        generator.init();
+        return generator;
+    }
+
+    private static HistoryIdGenerator generator(int nodeId) {
+        HistoryIdGenerator generator = new HistoryIdGenerator(mock(StringRedisTemplate.class));
+        ReflectionTestUtils.setField(generator, "configuredNodeId", nodeId);
+        generator.init();
+        return generator;
+    }
+}
@@ -0,0 +1,130 @@
+package com.asta.backend.utils;
+
+import com.asta.backend.auth.LoginUser;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JWT 工具类测试：验证缓存、过期及签名校验
+ *
+ * @author asta
+ * @since 2025-07-04
+ */
+class JwtUtilTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private static final UserDetails USER =
+            new User("alice", "", AuthorityUtils.createAuthorityList("ROLE_USER"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void cachesVerifiedToken() {
+        JwtUtil jwtUtil = jwtUtil(60_000, true);
+        String token = jwtUtil.generateToken(USER, 7);
+
+        Claims first = jwtUtil.verify(token);
+        Claims second = jwtUtil.verify(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getSubject()).isEqualTo("alice");
+        assertThat(parseCount()).isEqualTo(1);
+    }
+
+    @Test
+    void parsesEveryTimeWhenCacheDisabled() {
+        JwtUtil jwtUtil = jwtUtil(60_000, false);
+        String token = jwtUtil.generateToken(USER, 7);
+
+        jwtUtil.verify(token);
+        jwtUtil.verify(token);
+        jwtUtil.verify(token);
+
+        assertThat(parseCount()).isEqualTo(3);
+    }
+
+    @Test
+    void rejectsExpiredTokenWithoutCachingIt() {
+        JwtUtil jwtUtil = jwtUtil(-1_000, true);
+        String token = jwtUtil.generateToken(USER, 7);
+
+        assertThatThrownBy(() -> jwtUtil.verify(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThatThrownBy(() -> jwtUtil.verify(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(parseCount()).isEqualTo(2);
+    }
+
+    @Test
+    void evictsCachedTokenWhenItExpires() throws InterruptedException {
+        JwtUtil jwtUtil = jwtUtil(1_500, true);
+        String token = jwtUtil.generateToken(USER, 7);
+        Date expiration = jwtUtil.verify(token).getExpiration();
+
+        while (System.currentTimeMillis() <= expiration.getTime() + 50) {
+            Thread.sleep(50);
+        }
+
+        assertThatThrownBy(() -> jwtUtil.verify(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(parseCount()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        JwtUtil jwtUtil = jwtUtil(60_000, true);
+        String token = jwtUtil.generateToken(USER, 7);
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin\",\"roles\":[\"ROLE_ADMIN\"]}".getBytes());
+        String forged = parts[0] + "." + forgedPayload + "." + parts[2];
+
+        jwtUtil.verify(token);
+
+        assertThatThrownBy(() -> jwtUtil.verify(forged)).isInstanceOf(JwtException.class);
+        assertThat(jwtUtil.verify(token).getSubject()).isEqualTo("alice");
+    }
+
+    @Test
+    void restoresPrincipalFromClaims() {
+        JwtUtil jwtUtil = jwtUtil(60_000, true);
+        long before = System.currentTimeMillis();
+        Claims claims = jwtUtil.verify(jwtUtil.generateToken(USER, 7));
+
+        UserDetails principal = jwtUtil.getUserDetailsFromClaims(claims);
+
+        assertThat(principal).isInstanceOf(LoginUser.class);
+        LoginUser loginUser = (LoginUser) principal;
+        assertThat(loginUser.getUserId()).isEqualTo(7);
+        assertThat(loginUser.getUsername()).isEqualTo("alice");
+        assertThat(loginUser.getRole()).isEqualTo("USER");
+        assertThat(loginUser.getPassword()).isNull();
+        assertThat(JwtUtil.getIssuedAtMillis(claims)).isBetween(before, System.currentTimeMillis());
+        assertThat(jwtUtil.validateClaims(claims, USER)).isTrue();
+    }
+
+    private long parseCount() {
+        return meterRegistry.get("jwt.verify").timer().count();
+    }
+
+    private JwtUtil jwtUtil(long expirationTime, boolean cacheEnabled) {
+        JwtUtil jwtUtil = new JwtUtil(meterRegistry);
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expirationTime", expirationTime);
+        ReflectionTestUtils.setField(jwtUtil, "cacheEnabled", cacheEnabled);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 100L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
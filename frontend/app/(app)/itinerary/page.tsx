@@ -3,13 +3,13 @@
 import { useEffect, useState } from 'react';
 import { useRouter } from 'next/navigation';
 import { ArrowLeft, History, Calendar, Trash2, Eye, Plus } from 'lucide-react';
-import { ItineraryHistoryItem } from '@/lib/types/itinerary';
+import { ItineraryHistorySummary } from '@/lib/types/itinerary';
 import { getItineraryHistory, removeItineraryFromHistory, clearItineraryHistory } from '@/lib/utils/itinerary-history';
 import { useAuthGuard, useCurrentUser } from '@/lib/hooks/useAuthGuard';
 
 export default function ItineraryHistoryPage() {
   const router = useRouter();
-  const [historyItems, setHistoryItems] = useState<ItineraryHistoryItem[]>([]);
+  const [historyItems, setHistoryItems] = useState<ItineraryHistorySummary[]>([]);
   const [isLoading, setIsLoading] = useState(true);
 
   // 使用认证保护
@@ -71,7 +71,7 @@ export default function ItineraryHistoryPage() {
   };
 
   // 查看历史记录详情
-  const handleViewDetail = (item: ItineraryHistoryItem) => {
+  const handleViewDetail = (item: ItineraryHistorySummary) => {
     // 可以跳转到详情页面或者在当前页面显示详情
     router.push(`/itinerary/detail/${item.id}`);
   };
@@ -18,5 +18,12 @@ export async function register(userData: RegisterRequest): Promise<RegisterRespo
   });
 }
 
+// 登出API，吊销当前token
+export async function logout(): Promise<void> {
+  await apiRequest<unknown>('/authenticate/logout', {
+    method: 'POST',
+  });
+}
+
 // 导出tokenUtils以保持向后兼容
 export { tokenUtils };
@@ -1,9 +1,13 @@
 import { apiRequest } from './http';
 import {
   ItineraryHistoryItem,
+  ItineraryHistorySummary,
   SaveHistoryRequest,
   HistoryPageRequest,
-  HistoryPageResponse
+  HistoryRouteRequest,
+  HistoryPageResponse,
+  HistoryDeleteJob,
+  HistoryImportResult
 } from '@/lib/types/itinerary';
 import { ApiResponse } from '@/lib/types/common';
 
@@ -21,6 +25,20 @@ export async function saveHistory(request: SaveHistoryRequest): Promise<Itinerar
   return response.data;
 }
 
+// 批量导入历史记录（如迁移本地存储中的历史记录）
+export async function importHistory(items: SaveHistoryRequest[]): Promise<HistoryImportResult> {
+  const response = await apiRequest<ApiResponse<HistoryImportResult>>('/api/history/import', {
+    method: 'POST',
+    body: JSON.stringify(items),
+  });
+
+  if (response.code !== 10000) {
+    throw new Error(response.message || '批量导入历史记录失败');
+  }
+
+  return response.data;
+}
+
 // 根据ID删除历史记录
 export async function deleteHistoryById(id: string): Promise<string> {
   const response = await apiRequest<ApiResponse<string>>(`/api/history/${id}`, {
@@ -47,6 +65,32 @@ export async function deleteHistoryByUserId(userId: number): Promise<string> {
   return response.data;
 }
 
+// 提交用户历史记录删除任务（记录较多时在后台执行）
+export async function submitDeleteHistoryJob(userId: number): Promise<HistoryDeleteJob> {
+  const response = await apiRequest<ApiResponse<HistoryDeleteJob>>(`/api/history/user/${userId}/delete-job`, {
+    method: 'POST',
+  });
+
+  if (response.code !== 10000) {
+    throw new Error(response.message || '提交删除任务失败');
+  }
+
+  return response.data;
+}
+
+// 查询删除任务进度
+export async function getDeleteHistoryJob(jobId: string): Promise<HistoryDeleteJob> {
+  const response = await apiRequest<ApiResponse<HistoryDeleteJob>>(`/api/history/delete-job/${jobId}`, {
+    method: 'GET',
+  });
+
+  if (response.code !== 10000) {
+    throw new Error(response.message || '查询删除任务失败');
+  }
+
+  return response.data;
+}
+
 // 根据ID查询历史记录
 export async function getHistoryById(id: string): Promise<ItineraryHistoryItem> {
   const response = await apiRequest<ApiResponse<ItineraryHistoryItem>>(`/api/history/${id}`, {
@@ -61,8 +105,8 @@ export async function getHistoryById(id: string): Promise<ItineraryHistoryItem>
 }
 
 // 根据用户ID查询历史记录列表
-export async function getHistoryByUserId(userId: number): Promise<ItineraryHistoryItem[]> {
-  const response = await apiRequest<ApiResponse<ItineraryHistoryItem[]>>(`/api/history/user/${userId}`, {
+export async function getHistoryByUserId(userId: number): Promise<ItineraryHistorySummary[]> {
+  const response = await apiRequest<ApiResponse<ItineraryHistorySummary[]>>(`/api/history/user/${userId}`, {
     method: 'GET',
   });
 
@@ -87,9 +131,23 @@ export async function getHistoryPage(request: HistoryPageRequest): Promise<Histo
   return response.data;
 }
 
+// 按路线条件分页查询历史记录（按出行日期倒序）
+export async function getHistoryByRoute(request: HistoryRouteRequest): Promise<HistoryPageResponse> {
+  const response = await apiRequest<ApiResponse<HistoryPageResponse>>('/api/history/route', {
+    method: 'POST',
+    body: JSON.stringify(request),
+  });
+
+  if (response.code !== 10000) {
+    throw new Error(response.message || '按路线查询历史记录失败');
+  }
+
+  return response.data;
+}
+
 // 查询所有历史记录
-export async function getAllHistory(): Promise<ItineraryHistoryItem[]> {
-  const response = await apiRequest<ApiResponse<ItineraryHistoryItem[]>>('/api/history/all', {
+export async function getAllHistory(): Promise<ItineraryHistorySummary[]> {
+  const response = await apiRequest<ApiResponse<ItineraryHistorySummary[]>>('/api/history/all', {
     method: 'GET',
   });
 
@@ -101,8 +159,8 @@ export async function getAllHistory(): Promise<ItineraryHistoryItem[]> {
 }
 
 // 根据标题搜索历史记录
-export async function searchHistoryByTitle(title: string): Promise<ItineraryHistoryItem[]> {
-  const response = await apiRequest<ApiResponse<ItineraryHistoryItem[]>>(
+export async function searchHistoryByTitle(title: string): Promise<ItineraryHistorySummary[]> {
+  const response = await apiRequest<ApiResponse<ItineraryHistorySummary[]>>(
     `/api/history/search?title=${encodeURIComponent(title)}`,
     {
       method: 'GET',
@@ -2,6 +2,7 @@
 
 import React, { createContext, useContext, useState, useEffect, ReactNode } from 'react';
 import { tokenUtils } from '@/lib/utils/token';
+import { logout as logoutApi } from '@/lib/api/java/auth';
 
 // 用户信息类型
 interface User {
@@ -53,8 +54,15 @@ export function AuthProvider({ children }: AuthProviderProps) {
           localStorage.removeItem('user_info');
         }
       } else {
-        // 如果有token但没有用户信息，清除token
-        tokenUtils.removeToken();
+        // 没有用户信息时从token的claims恢复，旧版token不含用户ID时清除token
+        const claims = tokenUtils.getClaims(token);
+        if (claims?.uid && claims.sub) {
+          const userData = { userId: claims.uid, username: claims.sub, token };
+          setUser(userData);
+          localStorage.setItem('user_info', JSON.stringify(userData));
+        } else {
+          tokenUtils.removeToken();
+        }
       }
     }
     setIsLoading(false);
@@ -68,8 +76,11 @@ export function AuthProvider({ children }: AuthProviderProps) {
     localStorage.setItem('user_info', JSON.stringify(userData));
   };
 
-  // 登出函数
+  // 登出函数，通知后端吊销token，失败不影响本地登出
   const logout = () => {
+    if (tokenUtils.getToken()) {
+      logoutApi().catch((error) => console.error('登出请求失败:', error));
+    }
     setUser(null);
     tokenUtils.removeToken();
     localStorage.removeItem('user_info');
@@ -13,6 +13,7 @@ export interface LoginResponse {
   data: {
     userId: number;
     username: string;
+    role: string;
     token: string;
   };
 }
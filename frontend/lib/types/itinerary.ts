@@ -28,6 +28,25 @@ export interface ItineraryHistoryItem {
   title: string;                // 行程标题
   userId?: number;              // 用户ID (可选)
   username?: string;            // 用户名 (可选)
+  startPoint?: string;          // 出发地
+  endPoint?: string;            // 目的地
+  travelDate?: string;          // 出行日期 (yyyy-MM-dd)
+  travelMode?: string;          // 出行方式
+  duration?: string;            // 预计时长
+}
+
+// 历史行程记录摘要（列表接口返回，不含行程内容，详情通过 getHistoryById 获取）
+export interface ItineraryHistorySummary {
+  id: string;                    // 历史记录ID
+  createdAt: string;            // 创建时间 (yyyy-MM-dd HH:mm:ss)
+  title: string;                // 行程标题
+  userId?: number;              // 用户ID (可选)
+  username?: string;            // 用户名 (可选)
+  startPoint?: string;          // 出发地
+  endPoint?: string;            // 目的地
+  travelDate?: string;          // 出行日期 (yyyy-MM-dd)
+  travelMode?: string;          // 出行方式
+  duration?: string;            // 预计时长
 }
 
 // 历史记录列表
@@ -59,15 +78,55 @@ export interface HistoryPageRequest {
   endTime?: string;             // 可选，结束时间
   pageNum: number;              // 页码，从1开始
   pageSize: number;             // 每页大小
+  cursor?: string;              // 可选，上一页返回的 nextCursor，传入时按游标续读
+  searchCount?: boolean;        // 可选，是否统计总数，默认 true
+}
+
+// 按路线分页查询历史记录请求（至少指定一个路线条件）
+export interface HistoryRouteRequest {
+  startPoint?: string;          // 可选，出发地（精确匹配）
+  endPoint?: string;            // 可选，目的地（精确匹配）
+  travelMode?: string;          // 可选，出行方式
+  travelDateFrom?: string;      // 可选，出行日期下限 (yyyy-MM-dd)
+  travelDateTo?: string;        // 可选，出行日期上限 (yyyy-MM-dd)
+  userId?: number;              // 可选，按用户过滤
+  pageIndex: number;            // 页码，从1开始
+  pageSize: number;             // 每页大小
+  cursor?: string;              // 可选，上一页返回的 nextCursor，传入时忽略 pageIndex；深分页应使用游标
 }
 
 // 分页查询响应
 export interface HistoryPageResponse {
-  records: ItineraryHistoryItem[];  // 当前页数据
-  total: number;                    // 总记录数
-  current: number;                  // 当前页码
+  records: ItineraryHistorySummary[];  // 当前页数据
+  total: number | null;             // 总记录数（searchCount 为 false 或路线查询时为空）
+  current: number | null;           // 当前页码（游标模式下为空）
   size: number;                     // 每页大小
-  pages: number;                    // 总页数
+  pages: number | null;             // 总页数
   hasPrevious: boolean;             // 是否有上一页
   hasNext: boolean;                 // 是否有下一页
+  nextCursor: string | null;        // 下一页游标
+}
+
+// 批量删除历史记录任务
+export interface HistoryDeleteJob {
+  jobId: string | null;             // 任务ID（同步完成时为空）
+  userId: number;                   // 用户ID
+  status: 'RUNNING' | 'COMPLETED' | 'FAILED';  // 任务状态
+  total: number;                    // 待删除的记录总数
+  deleted: number;                  // 已删除的记录数量
+  message?: string;                 // 失败原因
+}
+
+// 批量导入历史记录结果
+export interface HistoryImportResult {
+  total: number;                    // 读取到的记录总数
+  imported: number;                 // 导入成功的记录数量
+  failed: number;                   // 导入失败的记录数量
+  elapsedMillis: number;            // 导入耗时（毫秒）
+  recordsPerSecond: number;         // 平均每秒导入的记录数量
+  failures: {
+    index: number;                  // 记录在请求中的序号，从0开始
+    id: string | null;              // 记录ID
+    reason: string;                 // 失败原因
+  }[];                              // 失败明细（最多前100条）
 }
@@ -1,4 +1,4 @@
-import { ItineraryPlanData, ItineraryHistoryItem, SaveHistoryRequest } from '@/lib/types/itinerary';
+import { ItineraryPlanData, ItineraryHistoryItem, ItineraryHistorySummary, SaveHistoryRequest } from '@/lib/types/itinerary';
 import {
   saveHistory,
   deleteHistoryById,
@@ -22,7 +22,7 @@ export function generateItineraryTitle(planData: ItineraryPlanData): string {
 }
 
 // 获取历史记录列表（需要用户信息）
-export async function getItineraryHistory(userInfo: UserInfo | null): Promise<ItineraryHistoryItem[]> {
+export async function getItineraryHistory(userInfo: UserInfo | null): Promise<ItineraryHistorySummary[]> {
   if (!userInfo) {
     throw new Error('用户未登录，无法获取历史记录');
   }
@@ -110,7 +110,7 @@ export async function getItineraryHistoryItem(id: string, userInfo: UserInfo | n
 }
 
 // 搜索历史记录（需要用户信息）
-export async function searchItineraryHistory(keyword: string, userInfo: UserInfo | null): Promise<ItineraryHistoryItem[]> {
+export async function searchItineraryHistory(keyword: string, userInfo: UserInfo | null): Promise<ItineraryHistorySummary[]> {
   if (!userInfo) {
     throw new Error('用户未登录，无法搜索历史记录');
   }
@@ -26,4 +26,29 @@ export const tokenUtils = {
   isLoggedIn: (): boolean => {
     return !!tokenUtils.getToken();
   },
+
+  // 解析token中的claims（不校验签名，仅用于读取用户ID、用户名等展示信息）
+  getClaims: (token: string): TokenClaims | null => {
+    try {
+      const payload = token.split('.')[1];
+      if (!payload) {
+        return null;
+      }
+      const base64 = payload.replace(/-/g, '+').replace(/_/g, '/');
+      const json = decodeURIComponent(
+        Array.from(atob(base64), (c) => '%' + c.charCodeAt(0).toString(16).padStart(2, '0')).join('')
+      );
+      return JSON.parse(json) as TokenClaims;
+    } catch {
+      return null;
+    }
+  },
 };
+
+// token中携带的claims
+export interface TokenClaims {
+  sub: string;       // 用户名
+  uid?: number;      // 用户ID
+  roles?: string[];  // 角色列表
+  exp?: number;      // 过期时间(秒)
+}